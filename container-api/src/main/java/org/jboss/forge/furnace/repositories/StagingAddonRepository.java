@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.repositories;
+
+import java.io.File;
+
+import org.jboss.forge.furnace.addons.AddonId;
+
+/**
+ * Optionally implemented by a {@link MutableAddonRepository} that can deploy an addon in two steps, so that its
+ * resources are placed in the repository without taking any lock, and only moved into place while holding the write
+ * lock. Callers should check for this interface, and fall back to
+ * {@link MutableAddonRepository#deploy(AddonId, Iterable, Iterable)} otherwise.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public interface StagingAddonRepository extends MutableAddonRepository
+{
+   /**
+    * Place the given resources into a new staging directory of this repository, without taking any lock. Return the
+    * staging directory to be passed to {@link #deployStaged(AddonId, Iterable, File)} or {@link #unstage(File)}, or
+    * <code>null</code> if there are no resources.
+    */
+   public File stage(AddonId addon, Iterable<File> resourceJars);
+
+   /**
+    * Deploy the given {@link AddonId} with resources previously returned by {@link #stage(AddonId, Iterable)}. Only
+    * moving the staged resources into place and writing the addon descriptor is done while holding the write lock.
+    */
+   public boolean deployStaged(AddonId addon, Iterable<AddonDependencyEntry> dependencies, File staged);
+
+   /**
+    * Discard resources previously returned by {@link #stage(AddonId, Iterable)} that will not be deployed.
+    */
+   public void unstage(File staged);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.spi;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonStatus;
+
+/**
+ * Implemented by {@link Addon} instances that signal changes of their {@link AddonStatus}, allowing callers to block
+ * until a status is reached instead of polling {@link Addon#getStatus()}.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public interface AddonStatusSignal
+{
+   /**
+    * Block until {@link AddonStatus#isStarted()} is <code>true</code>.
+    */
+   public void awaitStarted() throws InterruptedException;
+
+   /**
+    * Block until {@link AddonStatus#isStarted()} is <code>true</code>, or the given timeout expires. Return
+    * <code>false</code> if the timeout expired.
+    */
+   public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException;
+
+   /**
+    * Block until {@link AddonStatus#isStarted()} is <code>false</code>.
+    */
+   public void awaitStopped() throws InterruptedException;
+
+   /**
+    * Block until {@link AddonStatus#isStarted()} is <code>false</code>, or the given timeout expires. Return
+    * <code>false</code> if the timeout expired.
+    */
+   public boolean awaitStopped(long timeout, TimeUnit unit) throws InterruptedException;
+}
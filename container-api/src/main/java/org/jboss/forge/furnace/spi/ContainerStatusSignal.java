@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.spi;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.ContainerStatus;
+import org.jboss.forge.furnace.Furnace;
+
+/**
+ * Implemented by {@link Furnace} instances that signal changes of their {@link ContainerStatus}, allowing callers to
+ * block until addons have finished starting instead of polling {@link Furnace#getStatus()}.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public interface ContainerStatusSignal
+{
+   /**
+    * Block until {@link ContainerStatus#isStarting()} is <code>false</code>.
+    */
+   public void awaitStarted() throws InterruptedException;
+
+   /**
+    * Block until {@link ContainerStatus#isStarting()} is <code>false</code>, or the given timeout expires. Return
+    * <code>false</code> if the timeout expired.
+    */
+   public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -11,8 +11,12 @@ import java.util.concurrent.TimeoutException;
 
 import org.jboss.forge.furnace.addons.Addon;
 import org.jboss.forge.furnace.exception.ContainerException;
+import org.jboss.forge.furnace.spi.AddonStatusSignal;
 
 /**
+ * Utilities for waiting on {@link Addon} status changes. {@link Addon} instances implementing
+ * {@link AddonStatusSignal} are waited on until they signal the requested status; all others are polled.
+ *
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  */
 public class Addons
@@ -22,9 +26,14 @@ public class Addons
    {
       try
       {
-         while (!addon.getStatus().isStarted())
+         if (addon instanceof AddonStatusSignal)
+            ((AddonStatusSignal) addon).awaitStarted();
+         else
          {
-            Thread.sleep(10);
+            while (!addon.getStatus().isStarted())
+            {
+               Thread.sleep(10);
+            }
          }
       }
       catch (Exception e)
@@ -39,9 +48,14 @@ public class Addons
       {
          try
          {
-            while (addon.getStatus().isStarted())
+            if (addon instanceof AddonStatusSignal)
+               ((AddonStatusSignal) addon).awaitStopped();
+            else
             {
-               Thread.sleep(10);
+               while (addon.getStatus().isStarted())
+               {
+                  Thread.sleep(10);
+               }
             }
          }
          catch (Exception e)
@@ -53,6 +67,20 @@ public class Addons
 
    public static void waitUntilStarted(Addon addon, int quantity, TimeUnit unit) throws TimeoutException
    {
+      if (addon instanceof AddonStatusSignal)
+      {
+         try
+         {
+            if (!((AddonStatusSignal) addon).awaitStarted(quantity, unit))
+               throw new TimeoutException("Timeout expired waiting for [" + addon + "] to start.");
+            return;
+         }
+         catch (InterruptedException e)
+         {
+            throw new ContainerException("Addon [" + addon + "] was not started.", e);
+         }
+      }
+
       long start = System.currentTimeMillis();
       while (!addon.getStatus().isStarted())
       {
@@ -78,7 +106,19 @@ public class Addons
 
    public static void waitUntilStopped(Addon addon, int quantity, TimeUnit unit) throws TimeoutException
    {
-      if (addon != null)
+      if (addon instanceof AddonStatusSignal)
+      {
+         try
+         {
+            if (!((AddonStatusSignal) addon).awaitStopped(quantity, unit))
+               throw new TimeoutException("Timeout expired waiting for [" + addon + "] to stop.");
+         }
+         catch (InterruptedException e)
+         {
+            throw new ContainerException("Addon [" + addon + "] was not stopped.", e);
+         }
+      }
+      else if (addon != null)
       {
          long start = System.currentTimeMillis();
          while (addon.getStatus().isStarted())
@@ -0,0 +1,24 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.util;
+
+/**
+ * A task executed by {@link ClassLoaders#executeIn(ClassLoader, ClassLoaderTask, Object, Object)}. Since all inputs
+ * are passed as arguments, a single instance may be reused for every execution, instead of allocating a new
+ * {@link java.util.concurrent.Callable} each time.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * @param <RESULTTYPE> the result type.
+ * @param <FIRSTTYPE> the first input type.
+ * @param <SECONDTYPE> the second input type.
+ */
+public interface ClassLoaderTask<RESULTTYPE, FIRSTTYPE, SECONDTYPE>
+{
+   RESULTTYPE call(FIRSTTYPE first, SECONDTYPE second) throws Exception;
+}
@@ -1,6 +1,14 @@
 package org.jboss.forge.furnace.util;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -8,6 +16,13 @@ import org.jboss.forge.furnace.exception.ContainerException;
 
 /**
  * Utility class for executing fragments of code within a specific {@link Thread#getContextClassLoader()}
+ * <p>
+ * The results of {@link #containsClass(ClassLoader, Class)} and {@link #containsClass(ClassLoader, String)} are cached
+ * per {@link ClassLoader}, without locking, and without preventing the {@link ClassLoader} from being collected.
+ * Negative results expire after a short time, since a {@link ClassLoader} may gain classes later, and only a bounded
+ * number of them is kept per {@link ClassLoader}. Call
+ * {@link #releaseClassLoader(ClassLoader)} once a {@link ClassLoader} is no longer in use, or when the set of classes
+ * visible to it may have changed.
  * 
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  */
@@ -15,6 +30,25 @@ public class ClassLoaders
 {
    private static Logger log = Logger.getLogger(ClassLoaders.class.getName());
 
+   /*
+    * Set "furnace.classloaders.absent.ttl" to the number of milliseconds for which a class found to be missing from a
+    * ClassLoader is reported missing without asking the ClassLoader again.
+    */
+   private static final long ABSENT_TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong(
+            "furnace.classloaders.absent.ttl", 5000));
+
+   /*
+    * The maximum number of cached negative results per ClassLoader.
+    */
+   private static final int MAX_ABSENT = 1024;
+
+   /*
+    * Keyed by LoaderKey, and looked up by LookupKey, so that neither lookups nor cached entries hold a ClassLoader
+    * strongly. Entries of collected ClassLoader instances are expunged via the reference queue.
+    */
+   private static final ConcurrentMap<Object, LoaderTypes> visibility = new ConcurrentHashMap<Object, LoaderTypes>();
+   private static final ReferenceQueue<ClassLoader> collected = new ReferenceQueue<ClassLoader>();
+
    /**
     * Execute the given {@link Callable} in the {@link ClassLoader} provided. Return the result, if any.
     */
@@ -23,11 +57,15 @@ public class ClassLoaders
       if (task == null)
          return null;
 
-      if (log.isLoggable(Level.FINE))
+      ClassLoader original = SecurityActions.getContextClassLoader();
+      if (original == loader)
+         return task.call();
+
+      boolean fine = log.isLoggable(Level.FINE);
+      if (fine)
       {
          log.fine("ClassLoader [" + loader + "] task began.");
       }
-      ClassLoader original = SecurityActions.getContextClassLoader();
       try
       {
          SecurityActions.setContextClassLoader(loader);
@@ -36,44 +74,266 @@ public class ClassLoaders
       finally
       {
          SecurityActions.setContextClassLoader(original);
-         if (log.isLoggable(Level.FINE))
+         if (fine)
          {
             log.fine("ClassLoader [" + loader + "] task ended.");
          }
       }
    }
 
-   public static boolean containsClass(ClassLoader loader, Class<?> type)
+   /**
+    * Execute the given {@link ClassLoaderTask} with the given inputs in the {@link ClassLoader} provided. Return the
+    * result, if any. The {@link Thread#getContextClassLoader()} is only changed if it is not already the given
+    * {@link ClassLoader}.
+    */
+   public static <T, F, S> T executeIn(ClassLoader loader, ClassLoaderTask<T, F, S> task, F first, S second)
+            throws Exception
    {
-      Assert.notNull(loader, "Class loader to inspect must not be null.");
-      Assert.notNull(type, "Class to find must not be null.");
+      if (task == null)
+         return null;
+
+      ClassLoader original = SecurityActions.getContextClassLoader();
+      if (original == loader)
+         return task.call(first, second);
 
+      boolean fine = log.isLoggable(Level.FINE);
+      if (fine)
+      {
+         log.fine("ClassLoader [" + loader + "] task began.");
+      }
       try
       {
-         return loader.loadClass(type.getName()).equals(type);
+         SecurityActions.setContextClassLoader(loader);
+         return task.call(first, second);
       }
-      catch (ClassNotFoundException e)
+      finally
       {
-         return false;
+         SecurityActions.setContextClassLoader(original);
+         if (fine)
+         {
+            log.fine("ClassLoader [" + loader + "] task ended.");
+         }
       }
    }
 
+   public static boolean containsClass(ClassLoader loader, Class<?> type)
+   {
+      Assert.notNull(loader, "Class loader to inspect must not be null.");
+      Assert.notNull(type, "Class to find must not be null.");
+
+      return type.equals(findClass(loader, type.getName()));
+   }
+
    public static boolean containsClass(ClassLoader loader, String type)
    {
       Assert.notNull(loader, "Class loader to inspect must not be null.");
       Assert.notNull(type, "Class to find must not be null.");
 
-      try
+      return findClass(loader, type) != null;
+   }
+
+   /**
+    * Discard all cached class visibility information for, or referencing types from, the given {@link ClassLoader}.
+    */
+   @SuppressWarnings("unchecked")
+   public static void releaseClassLoader(ClassLoader loader)
+   {
+      visibility.remove(new LookupKey(loader));
+      for (LoaderTypes entry : visibility.values())
       {
-         loader.loadClass(type);
-         return true;
+         Iterator<Object> iterator = entry.types.values().iterator();
+         while (iterator.hasNext())
+         {
+            Object value = iterator.next();
+            if (!(value instanceof Absent))
+            {
+               Class<?> type = ((WeakReference<Class<?>>) value).get();
+               if (type == null || type.getClassLoader() == loader)
+                  iterator.remove();
+            }
+         }
       }
-      catch (ClassNotFoundException e)
+   }
+
+   /**
+    * Return the {@link Class} with the given name as seen by the given {@link ClassLoader}, or <code>null</code> if
+    * it is not visible. Visible types are held weakly, so that the cache does not prevent class unloading.
+    */
+   @SuppressWarnings("unchecked")
+   private static Class<?> findClass(ClassLoader loader, String typeName)
+   {
+      LoaderTypes entry = getLoaderTypes(loader);
+
+      Object cached = entry.types.get(typeName);
+      if (cached instanceof Absent && !((Absent) cached).isExpired())
+         return null;
+
+      Class<?> result = cached == null || cached instanceof Absent ? null : ((WeakReference<Class<?>>) cached).get();
+      if (result == null)
+      {
+         try
+         {
+            result = loader.loadClass(typeName);
+            if (entry.types.put(typeName, new WeakReference<Class<?>>(result)) instanceof Absent)
+               entry.absent.decrementAndGet();
+         }
+         catch (ClassNotFoundException e)
+         {
+            cacheAbsent(entry, typeName);
+         }
+      }
+      return result;
+   }
+
+   private static LoaderTypes getLoaderTypes(ClassLoader loader)
+   {
+      LoaderTypes result = visibility.get(new LookupKey(loader));
+      if (result == null)
       {
+         expungeCollected();
+         result = new LoaderTypes();
+         LoaderTypes existing = visibility.putIfAbsent(new LoaderKey(loader, collected), result);
+         if (existing != null)
+            result = existing;
+      }
+      return result;
+   }
+
+   private static void expungeCollected()
+   {
+      Reference<? extends ClassLoader> reference;
+      while ((reference = collected.poll()) != null)
+      {
+         visibility.remove(reference);
+      }
+   }
+
+   private static void cacheAbsent(LoaderTypes entry, String typeName)
+   {
+      if (entry.absent.get() >= MAX_ABSENT)
+      {
+         Iterator<Object> iterator = entry.types.values().iterator();
+         while (iterator.hasNext())
+         {
+            Object value = iterator.next();
+            if (value instanceof Absent && ((Absent) value).isExpired())
+            {
+               iterator.remove();
+               entry.absent.decrementAndGet();
+            }
+         }
+         if (entry.absent.get() >= MAX_ABSENT)
+         {
+            if (entry.types.remove(typeName) instanceof Absent)
+               entry.absent.decrementAndGet();
+            return;
+         }
+      }
+      if (!(entry.types.put(typeName, new Absent(System.nanoTime() + ABSENT_TTL_NANOS)) instanceof Absent))
+         entry.absent.incrementAndGet();
+   }
+
+   /**
+    * Returns the number of negative results currently cached for the given {@link ClassLoader}.
+    */
+   static int getAbsentCount(ClassLoader loader)
+   {
+      LoaderTypes entry = visibility.get(new LookupKey(loader));
+      return entry == null ? 0 : entry.absent.get();
+   }
+
+   /**
+    * The cached visibility of types in one {@link ClassLoader}: a {@link WeakReference} to each visible {@link Class},
+    * or an {@link Absent} marker for each missing type, along with the number of such markers.
+    */
+   private static final class LoaderTypes
+   {
+      private final ConcurrentMap<String, Object> types = new ConcurrentHashMap<String, Object>();
+      private final AtomicInteger absent = new AtomicInteger();
+   }
+
+   /**
+    * Weakly references a cached {@link ClassLoader}, compared by identity.
+    */
+   private static final class LoaderKey extends WeakReference<ClassLoader>
+   {
+      private final int hashCode;
+
+      public LoaderKey(ClassLoader loader, ReferenceQueue<ClassLoader> queue)
+      {
+         super(loader, queue);
+         this.hashCode = System.identityHashCode(loader);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hashCode;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         ClassLoader loader = get();
+         if (loader == null)
+            return false;
+         if (obj instanceof LookupKey)
+            return loader == ((LookupKey) obj).loader;
+         if (obj instanceof LoaderKey)
+            return loader == ((LoaderKey) obj).get();
          return false;
       }
    }
 
+   /**
+    * References a {@link ClassLoader} for the duration of a lookup, compared by identity.
+    */
+   private static final class LookupKey
+   {
+      private final ClassLoader loader;
+
+      public LookupKey(ClassLoader loader)
+      {
+         this.loader = loader;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return System.identityHashCode(loader);
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (obj instanceof LookupKey)
+            return loader == ((LookupKey) obj).loader;
+         if (obj instanceof LoaderKey)
+            return loader == ((LoaderKey) obj).get();
+         return false;
+      }
+   }
+
+   /**
+    * A cached negative result, valid until the given {@link System#nanoTime()}.
+    */
+   private static final class Absent
+   {
+      private final long expires;
+
+      public Absent(long expires)
+      {
+         this.expires = expires;
+      }
+
+      public boolean isExpired()
+      {
+         return System.nanoTime() - expires > 0;
+      }
+   }
+
    public static Class<?> loadClass(ClassLoader loader, String typeName)
    {
       Assert.notNull(loader, "Class loader to inspect must not be null.");
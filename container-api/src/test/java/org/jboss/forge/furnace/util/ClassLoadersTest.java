@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassLoadersTest
+{
+   @Test
+   public void testContainsClass() throws Exception
+   {
+      CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+      Assert.assertTrue(ClassLoaders.containsClass(loader, ClassLoadersTest.class));
+      Assert.assertTrue(ClassLoaders.containsClass(loader, ClassLoadersTest.class.getName()));
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+   }
+
+   @Test
+   public void testMissingClassIsOnlyLookedUpOnce() throws Exception
+   {
+      CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+      Assert.assertEquals(1, loader.getCount());
+   }
+
+   @Test
+   public void testReleasedClassLoaderIsLookedUpAgain() throws Exception
+   {
+      CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+      ClassLoaders.releaseClassLoader(loader);
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+      Assert.assertEquals(2, loader.getCount());
+   }
+
+   @Test
+   public void testVisibleClassesAreNotCountedAsAbsent() throws Exception
+   {
+      CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+      Assert.assertTrue(ClassLoaders.containsClass(loader, ClassLoadersTest.class.getName()));
+      Assert.assertTrue(ClassLoaders.containsClass(loader, Assert.class.getName()));
+      Assert.assertEquals(0, ClassLoaders.getAbsentCount(loader));
+
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+      Assert.assertEquals(1, ClassLoaders.getAbsentCount(loader));
+   }
+
+   @Test
+   public void testCacheDoesNotPinClassLoader() throws Exception
+   {
+      WeakReference<ClassLoader> reference = lookUpInDiscardedLoader();
+      for (int i = 0; i < 50 && reference.get() != null; i++)
+      {
+         System.gc();
+         Thread.sleep(20);
+      }
+      Assert.assertNull(reference.get());
+   }
+
+   @Test
+   public void testConcurrentLookups() throws Exception
+   {
+      final CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+      int threads = 8;
+      final CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try
+      {
+         List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+         for (int i = 0; i < threads; i++)
+         {
+            results.add(executor.submit(new Callable<Boolean>()
+            {
+               @Override
+               public Boolean call() throws Exception
+               {
+                  start.await();
+                  for (int j = 0; j < 100; j++)
+                  {
+                     if (!ClassLoaders.containsClass(loader, ClassLoadersTest.class)
+                              || ClassLoaders.containsClass(loader, "org.example.DoesNotExist"))
+                        return false;
+                  }
+                  return true;
+               }
+            }));
+         }
+         start.countDown();
+
+         for (Future<Boolean> result : results)
+         {
+            Assert.assertTrue(result.get(10, TimeUnit.SECONDS));
+         }
+         Assert.assertEquals(1, ClassLoaders.getAbsentCount(loader));
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   private WeakReference<ClassLoader> lookUpInDiscardedLoader()
+   {
+      CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+      Assert.assertTrue(ClassLoaders.containsClass(loader, ClassLoadersTest.class));
+      Assert.assertFalse(ClassLoaders.containsClass(loader, "org.example.DoesNotExist"));
+      return new WeakReference<ClassLoader>(loader);
+   }
+
+   private static class CountingClassLoader extends ClassLoader
+   {
+      private int count = 0;
+
+      public CountingClassLoader(ClassLoader parent)
+      {
+         super(parent);
+      }
+
+      @Override
+      public Class<?> loadClass(String name) throws ClassNotFoundException
+      {
+         count++;
+         return super.loadClass(name);
+      }
+
+      public int getCount()
+      {
+         return count;
+      }
+   }
+}
@@ -14,6 +14,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,10 +28,12 @@ import org.jboss.forge.furnace.impl.addons.AddonLifecycleManager;
 import org.jboss.forge.furnace.impl.addons.AddonRegistryImpl;
 import org.jboss.forge.furnace.impl.addons.AddonRepositoryImpl;
 import org.jboss.forge.furnace.impl.addons.ImmutableAddonRepository;
-import org.jboss.forge.furnace.lock.LockManager;
+import org.jboss.forge.furnace.impl.addons.RepositoryChangeNotifier;
+import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.repositories.AddonRepository;
 import org.jboss.forge.furnace.repositories.AddonRepositoryMode;
 import org.jboss.forge.furnace.spi.ContainerLifecycleListener;
+import org.jboss.forge.furnace.spi.ContainerStatusSignal;
 import org.jboss.forge.furnace.spi.ListenerRegistration;
 import org.jboss.forge.furnace.util.Assert;
 import org.jboss.forge.furnace.versions.Version;
@@ -38,7 +43,7 @@ import org.jboss.modules.log.StreamModuleLogger;
 /**
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  */
-public class FurnaceImpl implements Furnace
+public class FurnaceImpl implements Furnace, ContainerStatusSignal
 {
    {
       if (System.getProperty("modules.ignore.jdk.factory") == null)
@@ -47,12 +52,25 @@ public class FurnaceImpl implements Furnace
 
    private static Logger logger = Logger.getLogger(FurnaceImpl.class.getName());
 
+   /*
+    * Repository changes made by this process wake the container immediately. Changes made by other processes are
+    * detected when the container wakes up on its own, every REPOSITORY_POLL_INTERVAL milliseconds, which is never less
+    * than RepositoryChangeNotifier.MIN_POLL_INTERVAL. If "furnace.repository.polling" is set, the container instead
+    * wakes up every POLLING_INTERVAL milliseconds.
+    */
+   private static final boolean REPOSITORY_POLLING = Boolean.getBoolean("furnace.repository.polling");
+   private static final long REPOSITORY_POLL_INTERVAL = RepositoryChangeNotifier.getPollInterval(Long.getLong(
+            "furnace.repository.poll_interval", 1000));
+   private static final long REPOSITORY_QUIET_PERIOD = 50;
+   private static final long POLLING_INTERVAL = 100;
+
    private volatile boolean alive = false;
    private volatile ContainerStatus status = ContainerStatus.STOPPED;
 
    private boolean serverMode = true;
-   private AddonLifecycleManager manager;
-   private List<ContainerLifecycleListener> registeredListeners = new ArrayList<ContainerLifecycleListener>();
+   private volatile AddonLifecycleManager manager;
+   private List<ContainerLifecycleListener> registeredListeners =
+            new CopyOnWriteArrayList<ContainerLifecycleListener>();
    private List<ListenerRegistration<ContainerLifecycleListener>> loadedListenerRegistrations = new ArrayList<ListenerRegistration<ContainerLifecycleListener>>();
 
    private ClassLoader loader;
@@ -60,7 +78,8 @@ public class FurnaceImpl implements Furnace
    private List<AddonRepository> repositories = new ArrayList<AddonRepository>();
    private Map<AddonRepository, Integer> lastRepoVersionSeen = new HashMap<AddonRepository, Integer>();
 
-   private final LockManager lock = new LockManagerImpl();
+   private final LockManagerImpl lock = new LockManagerImpl();
+   private final RepositoryChangeNotifier repositoryChangeNotifier = new RepositoryChangeNotifier();
 
    private String[] args;
 
@@ -76,7 +95,7 @@ public class FurnaceImpl implements Furnace
    }
 
    @Override
-   public LockManager getLockManager()
+   public LockManagerImpl getLockManager()
    {
       return lock;
    }
@@ -162,8 +181,20 @@ public class FurnaceImpl implements Furnace
                {
                   try
                   {
+                     /*
+                      * Listeners are notified outside of the write lock, but a scan is begun before the write lock is
+                      * taken, so a scan begun after a change made under the write lock always sees that change.
+                      */
                      fireBeforeConfigurationScanEvent();
-                     getLifecycleManager().forceUpdate();
+                     lock.performLocked(LockMode.WRITE, new Callable<Void>()
+                     {
+                        @Override
+                        public Void call() throws Exception
+                        {
+                           getLifecycleManager().forceUpdate();
+                           return null;
+                        }
+                     });
                      fireAfterConfigurationScanEvent();
                   }
                   catch (Exception e)
@@ -174,7 +205,10 @@ public class FurnaceImpl implements Furnace
             }
             status = ContainerStatus.STARTED;
 
-            Thread.sleep(100);
+            if (REPOSITORY_POLLING || getLifecycleManager().isStartingAddons())
+               Thread.sleep(POLLING_INTERVAL);
+            else
+               repositoryChangeNotifier.await(REPOSITORY_POLL_INTERVAL, REPOSITORY_QUIET_PERIOD);
          }
          while (alive && serverMode);
 
@@ -246,6 +280,8 @@ public class FurnaceImpl implements Furnace
    public Furnace stop()
    {
       alive = false;
+      repositoryChangeNotifier.changed();
+      getLifecycleManager().statusChanged();
       return this;
    }
 
@@ -281,12 +317,12 @@ public class FurnaceImpl implements Furnace
       {
          if (repositories == null || repositories.length == 0)
          {
-            result = new AddonRegistryImpl(lock, getLifecycleManager(), getRepositories(), "ROOT");
+            result = new AddonRegistryImpl(getLifecycleManager(), getRepositories(), "ROOT");
             getLifecycleManager().addView(result);
          }
          else
          {
-            result = new AddonRegistryImpl(lock, getLifecycleManager(), Arrays.asList(repositories),
+            result = new AddonRegistryImpl(getLifecycleManager(), Arrays.asList(repositories),
                      String.valueOf(registryCount++));
             getLifecycleManager().addView(result);
             getLifecycleManager().forceUpdate();
@@ -351,7 +387,7 @@ public class FurnaceImpl implements Furnace
             throw new IllegalArgumentException("There is already a repository defined with this path: " + directory);
          }
       }
-      AddonRepository repository = AddonRepositoryImpl.forDirectory(this, directory);
+      AddonRepository repository = AddonRepositoryImpl.forDirectory(this, directory, repositoryChangeNotifier);
 
       if (mode.isImmutable())
          repository = new ImmutableAddonRepository(repository);
@@ -385,6 +421,33 @@ public class FurnaceImpl implements Furnace
       return startingAddons ? ContainerStatus.STARTING : status;
    }
 
+   @Override
+   public void awaitStarted() throws InterruptedException
+   {
+      awaitStarted(-1);
+   }
+
+   @Override
+   public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException
+   {
+      return awaitStarted(Math.max(0, unit.toMillis(timeout)));
+   }
+
+   private boolean awaitStarted(long timeoutMillis) throws InterruptedException
+   {
+      long deadline = System.currentTimeMillis() + timeoutMillis;
+      while (true)
+      {
+         long generation = getLifecycleManager().getStatusGeneration();
+         if (!getStatus().isStarting())
+            return true;
+
+         long remaining = timeoutMillis < 0 ? -1 : Math.max(0, deadline - System.currentTimeMillis());
+         if (!getLifecycleManager().awaitStatusChange(generation, remaining))
+            return false;
+      }
+   }
+
    public List<ContainerLifecycleListener> getRegisteredListeners()
    {
       return Collections.unmodifiableList(registeredListeners);
@@ -401,10 +464,25 @@ public class FurnaceImpl implements Furnace
       return getLifecycleManager().toString();
    }
 
+   /*
+    * Callers waiting on the container status may get here from other threads while the container is starting, so only
+    * one AddonLifecycleManager may ever be created.
+    */
    private AddonLifecycleManager getLifecycleManager()
    {
-      if (manager == null)
-         manager = new AddonLifecycleManager(this);
-      return manager;
+      AddonLifecycleManager result = manager;
+      if (result == null)
+      {
+         synchronized (this)
+         {
+            result = manager;
+            if (result == null)
+            {
+               result = new AddonLifecycleManager(this);
+               manager = result;
+            }
+         }
+      }
+      return result;
    }
 }
@@ -20,32 +20,101 @@ import org.jboss.forge.furnace.util.Assert;
  */
 public class LockManagerImpl implements LockManager
 {
-   private ReentrantReadWriteLock readWriteLock;
+   private final OwnedReadWriteLock readWriteLock = new OwnedReadWriteLock();
 
    private Lock obtainLock(LockMode mode)
    {
-      if (readWriteLock == null)
-         readWriteLock = new ReentrantReadWriteLock(true);
-
       if (LockMode.READ.equals(mode))
          return readWriteLock.readLock();
       else
          return readWriteLock.writeLock();
    }
 
+   /*
+    * The thread holding the write lock, set for threads performing a task on its behalf. See #delegate(Callable).
+    */
+   private final ThreadLocal<Thread> delegated = new ThreadLocal<Thread>();
+
    @Override
    public <T> T performLocked(LockMode mode, Callable<T> task)
    {
       Assert.notNull(mode, "LockMode must not be null.");
       Assert.notNull(task, "Task to perform must not be null.");
 
+      if (isDelegated())
+         return call(mode, task);
+
       Lock lock = obtainLock(mode);
       lock.lock();
+      try
+      {
+         return call(mode, task);
+      }
+      finally
+      {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Return a {@link Callable} that performs the given task on another thread as if that thread held the write lock
+    * currently held by the calling thread. The calling thread must hold the write lock, and must continue to hold it
+    * until the returned {@link Callable} has completed. Tasks delegated at the same time are not mutually exclusive.
+    * <p>
+    * Only calls to {@link #performLocked(LockMode, Callable)} made by the task itself, on the thread running it, skip
+    * the lock, and only while the delegating thread still holds the write lock. Threads started by the task, and calls
+    * made after the delegating thread has released the lock, acquire it as usual.
+    */
+   public <T> Callable<T> delegate(final Callable<T> task)
+   {
+      Assert.notNull(task, "Task to delegate must not be null.");
+      if (!readWriteLock.isWriteLockedByCurrentThread())
+         throw new IllegalStateException("Only the thread holding the write lock may delegate tasks.");
+
+      final Thread owner = Thread.currentThread();
+
+      return new Callable<T>()
+      {
+         @Override
+         public T call() throws Exception
+         {
+            Thread previous = delegated.get();
+            delegated.set(owner);
+            try
+            {
+               return task.call();
+            }
+            finally
+            {
+               if (previous == null)
+                  delegated.remove();
+               else
+                  delegated.set(previous);
+            }
+         }
+      };
+   }
 
-      T result;
+   /**
+    * Return <code>true</code> if the calling thread holds the write lock, or performs a task delegated by the thread
+    * holding the write lock.
+    */
+   public boolean isWriteLockedByCurrentThread()
+   {
+      return readWriteLock.isWriteLockedByCurrentThread() || isDelegated();
+   }
+
+   private boolean isDelegated()
+   {
+      Thread owner = delegated.get();
+      return owner != null && owner == readWriteLock.getOwner();
+   }
+
+   private <T> T call(LockMode mode, Callable<T> task)
+   {
       try
       {
-         result = task.call();
+         return task.call();
       }
       catch (RuntimeException e)
       {
@@ -55,11 +124,24 @@ public class LockManagerImpl implements LockManager
       {
          throw new ContainerException("Failed to execute task in LockMode [" + mode + "]", e);
       }
-      finally
+   }
+
+   /*
+    * Exposes the thread holding the write lock, which ReentrantReadWriteLock only makes available to subclasses.
+    */
+   private static class OwnedReadWriteLock extends ReentrantReadWriteLock
+   {
+      private static final long serialVersionUID = -4356321846452271547L;
+
+      public OwnedReadWriteLock()
       {
-         lock.unlock();
+         super(true);
       }
-      return result;
-   }
 
+      @Override
+      protected Thread getOwner()
+      {
+         return super.getOwner();
+      }
+   }
 }
@@ -8,6 +8,7 @@ package org.jboss.forge.furnace.impl.addons;
 
 import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.forge.furnace.addons.Addon;
 import org.jboss.forge.furnace.addons.AddonDependency;
@@ -16,13 +17,14 @@ import org.jboss.forge.furnace.addons.AddonStatus;
 import org.jboss.forge.furnace.event.EventManager;
 import org.jboss.forge.furnace.impl.util.NullFuture;
 import org.jboss.forge.furnace.repositories.AddonRepository;
+import org.jboss.forge.furnace.spi.AddonStatusSignal;
 import org.jboss.forge.furnace.spi.ServiceRegistry;
 import org.jboss.forge.furnace.util.Assert;
 
 /**
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  */
-public class AddonImpl implements Addon
+public class AddonImpl implements Addon, AddonStatusSignal
 {
    private final AddonId id;
    private AddonStateManager manager;
@@ -101,6 +103,30 @@ public class AddonImpl implements Addon
       return result;
    }
 
+   @Override
+   public void awaitStarted() throws InterruptedException
+   {
+      manager.awaitStatus(this, true, -1);
+   }
+
+   @Override
+   public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException
+   {
+      return manager.awaitStatus(this, true, Math.max(0, unit.toMillis(timeout)));
+   }
+
+   @Override
+   public void awaitStopped() throws InterruptedException
+   {
+      manager.awaitStatus(this, false, -1);
+   }
+
+   @Override
+   public boolean awaitStopped(long timeout, TimeUnit unit) throws InterruptedException
+   {
+      return manager.awaitStatus(this, false, Math.max(0, unit.toMillis(timeout)));
+   }
+
    @Override
    public String toString()
    {
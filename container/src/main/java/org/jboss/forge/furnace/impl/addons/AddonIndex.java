@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.impl.graph.AddonVertex;
+import org.jboss.forge.furnace.impl.graph.MasterGraph;
+
+/**
+ * Indexes the {@link Addon} assigned to each {@link AddonVertex} of a {@link MasterGraph} by {@link Addon}, and by
+ * {@link AddonView} and {@link AddonId}. An {@link Addon} assigned to several vertices is indexed with the
+ * {@link AddonView} instances of the first vertex added.
+ * <p>
+ * Instances are built and modified only by the thread updating the {@link MasterGraph}, and must not be modified once
+ * published to other threads.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class AddonIndex
+{
+   static final AddonIndex EMPTY = new AddonIndex();
+
+   private final Map<Addon, Set<AddonView>> viewsByAddon = new HashMap<Addon, Set<AddonView>>();
+   private final Map<AddonView, Set<Addon>> addonsByView = new HashMap<AddonView, Set<Addon>>();
+   private final Map<AddonView, Map<AddonId, Addon>> addonsByViewAndId = new HashMap<AddonView, Map<AddonId, Addon>>();
+
+   /**
+    * Create an {@link AddonIndex} of all vertices in the given {@link MasterGraph}.
+    */
+   static AddonIndex of(MasterGraph graph)
+   {
+      AddonIndex result = new AddonIndex();
+      for (AddonVertex vertex : graph.getGraph().vertexSet())
+      {
+         result.add(vertex);
+      }
+      return result;
+   }
+
+   /**
+    * Index the {@link Addon} of the given {@link AddonVertex}, if it has been assigned.
+    */
+   void add(AddonVertex vertex)
+   {
+      Addon addon = vertex.getAddon();
+      if (addon == null || viewsByAddon.containsKey(addon))
+         return;
+
+      Set<AddonView> views = Collections.unmodifiableSet(new HashSet<AddonView>(vertex.getViews()));
+      viewsByAddon.put(addon, views);
+      for (AddonView view : views)
+      {
+         Set<Addon> addons = addonsByView.get(view);
+         if (addons == null)
+         {
+            addons = new LinkedHashSet<Addon>();
+            addonsByView.put(view, addons);
+         }
+         addons.add(addon);
+
+         Map<AddonId, Addon> byId = addonsByViewAndId.get(view);
+         if (byId == null)
+         {
+            byId = new HashMap<AddonId, Addon>();
+            addonsByViewAndId.put(view, byId);
+         }
+         if (!byId.containsKey(addon.getId()))
+            byId.put(addon.getId(), addon);
+      }
+   }
+
+   /**
+    * Get the {@link AddonView} instances of the given {@link Addon} (never <code>null</code>.)
+    */
+   Set<AddonView> getViewsOf(Addon addon)
+   {
+      Set<AddonView> result = viewsByAddon.get(addon);
+      if (result == null)
+         result = Collections.emptySet();
+      return result;
+   }
+
+   /**
+    * Get the {@link Addon} instances in the given {@link AddonView} (never <code>null</code>.)
+    */
+   Set<Addon> getAddonsOf(AddonView view)
+   {
+      Set<Addon> result = addonsByView.get(view);
+      if (result == null)
+         return Collections.emptySet();
+      return Collections.unmodifiableSet(result);
+   }
+
+   /**
+    * Get the {@link Addon} with the given {@link AddonId} in the given {@link AddonView}, or <code>null</code> if no
+    * such {@link Addon} exists.
+    */
+   Addon getAddon(AddonView view, AddonId id)
+   {
+      Map<AddonId, Addon> byId = addonsByViewAndId.get(view);
+      return byId == null ? null : byId.get(id);
+   }
+}
@@ -6,14 +6,24 @@
  */
 package org.jboss.forge.furnace.impl.addons;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -23,13 +33,14 @@ import org.jboss.forge.furnace.addons.AddonFilter;
 import org.jboss.forge.furnace.addons.AddonId;
 import org.jboss.forge.furnace.addons.AddonRegistry;
 import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.exception.ContainerException;
 import org.jboss.forge.furnace.impl.FurnaceImpl;
+import org.jboss.forge.furnace.impl.LockManagerImpl;
 import org.jboss.forge.furnace.impl.graph.CompleteAddonGraph;
 import org.jboss.forge.furnace.impl.graph.MasterGraph;
 import org.jboss.forge.furnace.impl.graph.MasterGraphChangeHandler;
 import org.jboss.forge.furnace.impl.graph.OptimizedAddonGraph;
 import org.jboss.forge.furnace.impl.modules.AddonModuleLoader;
-import org.jboss.forge.furnace.lock.LockManager;
 import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.repositories.AddonRepository;
 import org.jboss.forge.furnace.util.AddonFilters;
@@ -44,15 +55,24 @@ public class AddonLifecycleManager
 {
    private static final Logger logger = Logger.getLogger(AddonLifecycleManager.class.getName());
 
-   private final LockManager lock;
+   /*
+    * The maximum number of addons loaded concurrently. Set "furnace.load.threads" to 1 to load addons sequentially.
+    */
+   private static final int LOAD_THREADS = Integer.getInteger("furnace.load.threads", Runtime.getRuntime()
+            .availableProcessors());
+
+   private final LockManagerImpl lock;
    private FurnaceImpl furnace;
    private AddonLoader loader;
    private AddonStateManager stateManager;
 
    private Set<Addon> addons = Sets.getConcurrentSet();
+   private final Map<AddonId, Set<Addon>> addonsById = new ConcurrentHashMap<AddonId, Set<Addon>>();
    private final Set<AddonView> views = Sets.getConcurrentSet();
+   private final Map<AddonView, ViewGraph> viewGraphs = new HashMap<AddonView, ViewGraph>();
    private final AtomicInteger starting = new AtomicInteger(-1);
-   private final ExecutorService executor = Executors.newCachedThreadPool();
+   private final AddonStartScheduler scheduler = new AddonStartScheduler();
+   private ExecutorService loadExecutor;
 
    private AddonModuleLoader moduleLoader;
 
@@ -81,52 +101,58 @@ public class AddonLifecycleManager
 
    public Set<Addon> getOrphanAddons(final AddonId id)
    {
-      return lock.performLocked(LockMode.READ, new Callable<Set<Addon>>()
+      Set<Addon> result = new HashSet<Addon>();
+      Set<Addon> candidates = addonsById.get(id);
+      if (candidates != null)
       {
-         @Override
-         public Set<Addon> call() throws Exception
+         for (Addon addon : candidates)
          {
-            Set<Addon> result = new HashSet<Addon>();
-            for (Addon addon : addons)
+            if (stateManager.getViewsOf(addon).isEmpty())
             {
-               if (addon.getId().equals(id) && stateManager.getViewsOf(addon).isEmpty())
-               {
-                  result.add(addon);
-               }
+               result.add(addon);
             }
-            return result;
          }
-      });
+      }
+      return result;
    }
 
    public Addon getAddon(final AddonView view, final AddonId id)
    {
       Assert.notNull(id, "AddonId must not be null.");
-      return lock.performLocked(LockMode.READ, new Callable<Addon>()
+      Addon result = stateManager.getAddon(view, id);
+      if (result == null)
       {
-         private Addon result;
-
-         @Override
-         public Addon call() throws Exception
+         /*
+          * The published index does not include addons assigned by a graph update in progress. Waiting for the read
+          * lock lets such an update publish its index first, so that an assigned addon is not created twice.
+          */
+         result = lock.performLocked(LockMode.READ, new Callable<Addon>()
          {
-            for (Addon addon : getAddons(view))
+            @Override
+            public Addon call() throws Exception
             {
-               if (id.equals(addon.getId()))
+               synchronized (addons)
                {
-                  result = addon;
-                  break;
+                  Addon addon = stateManager.getAddon(view, id);
+                  if (addon == null)
+                  {
+                     addon = new AddonImpl(stateManager, id);
+                     addons.add(addon);
+
+                     Set<Addon> byId = addonsById.get(id);
+                     if (byId == null)
+                     {
+                        byId = Sets.getConcurrentSet();
+                        addonsById.put(id, byId);
+                     }
+                     byId.add(addon);
+                  }
+                  return addon;
                }
             }
-
-            if (result == null)
-            {
-               result = new AddonImpl(stateManager, id);
-               addons.add(result);
-            }
-
-            return result;
-         }
-      });
+         });
+      }
+      return result;
    }
 
    public Set<Addon> getAddons(final AddonView view)
@@ -136,23 +162,15 @@ public class AddonLifecycleManager
 
    public Set<Addon> getAddons(final AddonView view, final AddonFilter filter)
    {
-      return lock.performLocked(LockMode.READ, new Callable<Set<Addon>>()
-      {
-         @Override
-         public Set<Addon> call() throws Exception
-         {
-            HashSet<Addon> result = new HashSet<Addon>();
+      HashSet<Addon> result = new HashSet<Addon>();
 
-            AddonViewFilter viewFilter = new AddonViewFilter(stateManager, view);
-            for (Addon addon : addons)
-            {
-               if (viewFilter.accept(addon) && filter.accept(addon))
-                  result.add(addon);
-            }
+      for (Addon addon : stateManager.getAddonsOf(view))
+      {
+         if (filter.accept(addon))
+            result.add(addon);
+      }
 
-            return result;
-         }
-      });
+      return result;
    }
 
    public void forceUpdate()
@@ -165,13 +183,13 @@ public class AddonLifecycleManager
          {
             MasterGraph master = new MasterGraph();
 
+            viewGraphs.keySet().retainAll(views);
             for (AddonView view : views)
             {
                if (starting.get() == -1)
                   starting.set(0);
 
-               OptimizedAddonGraph graph = new OptimizedAddonGraph(view,
-                        new CompleteAddonGraph(view.getRepositories()).getGraph());
+               OptimizedAddonGraph graph = getViewGraph(view);
 
                master.merge(graph);
 
@@ -183,13 +201,60 @@ public class AddonLifecycleManager
             MasterGraph last = stateManager.getCurrentGraph();
             stateManager.setCurrentGraph(master);
 
-            new MasterGraphChangeHandler(AddonLifecycleManager.this, last, master).hotSwapChanges();
+            new MasterGraphChangeHandler(AddonLifecycleManager.this, stateManager, last, master).hotSwapChanges();
+
+            for (AddonView view : views)
+            {
+               if (view instanceof AddonRegistryImpl)
+                  ((AddonRegistryImpl) view).getServiceIndex().sync();
+            }
 
             return null;
          }
       });
    }
 
+   /**
+    * Get the {@link OptimizedAddonGraph} of the given {@link AddonView}, rebuilding it only if the
+    * {@link CompleteAddonGraph} of its repositories has changed since the last update. Must be called while holding the
+    * write lock.
+    */
+   private OptimizedAddonGraph getViewGraph(AddonView view)
+   {
+      ViewGraph cached = viewGraphs.get(view);
+      try
+      {
+         if (cached == null)
+         {
+            CompleteAddonGraph complete = new CompleteAddonGraph(view.getRepositories());
+            cached = new ViewGraph(complete, new OptimizedAddonGraph(view, complete.getGraph()));
+            viewGraphs.put(view, cached);
+         }
+         else if (cached.complete.update())
+         {
+            cached.optimized = new OptimizedAddonGraph(view, cached.complete.getGraph());
+         }
+      }
+      catch (RuntimeException e)
+      {
+         viewGraphs.remove(view);
+         throw e;
+      }
+      return cached.optimized;
+   }
+
+   private static class ViewGraph
+   {
+      private final CompleteAddonGraph complete;
+      private OptimizedAddonGraph optimized;
+
+      public ViewGraph(CompleteAddonGraph complete, OptimizedAddonGraph optimized)
+      {
+         this.complete = complete;
+         this.optimized = optimized;
+      }
+   }
+
    public void loadAddon(Addon addon)
    {
       try
@@ -198,13 +263,124 @@ public class AddonLifecycleManager
       }
       catch (Exception e)
       {
-         e.printStackTrace();
+         logger.log(Level.SEVERE, "Failed to load addon [" + addon.getId() + "].", e);
       }
    }
 
+   /**
+    * Load the given addons, concurrently if possible. None of the given addons may depend on another. Must be called
+    * while holding the write lock. Failures to load an addon are logged by {@link #loadAddon(Addon)}; any other
+    * {@link Error} is rethrown once all addons have finished loading, the same as when loading sequentially.
+    */
+   public void loadAddons(Collection<Addon> addons)
+   {
+      if (addons.size() < 2 || LOAD_THREADS < 2)
+      {
+         for (Addon addon : addons)
+         {
+            loadAddon(addon);
+         }
+         return;
+      }
+
+      List<Future<Void>> results = new ArrayList<Future<Void>>();
+      for (final Addon addon : addons)
+      {
+         results.add(getLoadExecutor().submit(lock.delegate(new Callable<Void>()
+         {
+            @Override
+            public Void call() throws Exception
+            {
+               loadAddon(addon);
+               return null;
+            }
+         })));
+      }
+
+      /*
+       * Wait for every task before rethrowing, since delegated tasks may only run while this thread holds the lock.
+       */
+      Throwable failure = null;
+      boolean interrupted = false;
+      for (Future<Void> result : results)
+      {
+         while (true)
+         {
+            try
+            {
+               result.get();
+               break;
+            }
+            catch (InterruptedException e)
+            {
+               interrupted = true;
+            }
+            catch (ExecutionException e)
+            {
+               if (failure == null)
+                  failure = e.getCause();
+               break;
+            }
+         }
+      }
+
+      if (interrupted)
+         Thread.currentThread().interrupt();
+      if (failure instanceof Error)
+         throw (Error) failure;
+      if (failure instanceof RuntimeException)
+         throw (RuntimeException) failure;
+      if (failure != null)
+         throw new ContainerException("Failed to load addons.", failure);
+   }
+
+   private synchronized ExecutorService getLoadExecutor()
+   {
+      if (loadExecutor == null)
+      {
+         ThreadPoolExecutor pool = new ThreadPoolExecutor(LOAD_THREADS, LOAD_THREADS, 60L, TimeUnit.SECONDS,
+                  new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+                  {
+                     private final AtomicInteger count = new AtomicInteger();
+
+                     @Override
+                     public Thread newThread(Runnable runnable)
+                     {
+                        Thread thread = new Thread(runnable, "Furnace Addon Loader " + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                     }
+                  });
+         /*
+          * Addons are only loaded when the graph changes, so do not keep idle loader threads around between changes.
+          */
+         pool.allowCoreThreadTimeOut(true);
+         loadExecutor = pool;
+      }
+      return loadExecutor;
+   }
+
    public void stopAddon(Addon addon)
    {
       Callables.call(new StopAddonCallable(stateManager, addon));
+      addonStatusChanged(addon);
+   }
+
+   /**
+    * Update the service indexes of all views after the given {@link Addon} has started, failed to start, or stopped.
+    */
+   void addonStatusChanged(Addon addon)
+   {
+      for (AddonView view : views)
+      {
+         if (view instanceof AddonRegistryImpl)
+            ((AddonRegistryImpl) view).getServiceIndex().update(addon);
+      }
+   }
+
+   AddonStateManager getStateManager()
+   {
+      return stateManager;
    }
 
    public void stopAll()
@@ -219,10 +395,19 @@ public class AddonLifecycleManager
                stopAddon(addon);
             }
 
-            List<Runnable> waiting = executor.shutdownNow();
-            if (waiting != null && !waiting.isEmpty())
-               logger.info("(" + waiting.size() + ") addons were aborted while loading due to forced shutdown.");
+            int waiting = scheduler.shutdownNow();
+            if (waiting > 0)
+               logger.info("(" + waiting + ") addons were aborted while loading due to forced shutdown.");
+            synchronized (AddonLifecycleManager.this)
+            {
+               if (loadExecutor != null)
+               {
+                  loadExecutor.shutdownNow();
+                  loadExecutor = null;
+               }
+            }
             starting.set(-1);
+            stateManager.statusChanged();
             return null;
          }
       });
@@ -233,6 +418,56 @@ public class AddonLifecycleManager
       starting.decrementAndGet();
    }
 
+   /**
+    * Block until the given dependency of an {@link Addon} being started has itself started. Must only be called from
+    * an {@link Addon} start-up task.
+    */
+   public void awaitStarted(Addon dependency) throws InterruptedException
+   {
+      scheduler.beginBlocking();
+      try
+      {
+         stateManager.awaitStatus(dependency, true, -1);
+      }
+      finally
+      {
+         scheduler.endBlocking();
+      }
+   }
+
+   /**
+    * Get a number that changes whenever the status of any {@link Addon} may have changed.
+    */
+   public long getStatusGeneration()
+   {
+      return stateManager.getStatusGeneration();
+   }
+
+   /**
+    * Block until the value of {@link #getStatusGeneration()} differs from the given generation, or the given timeout
+    * expires. A negative timeout waits indefinitely. Return <code>false</code> if the timeout expired.
+    */
+   public boolean awaitStatusChange(long generation, long timeoutMillis) throws InterruptedException
+   {
+      return stateManager.awaitStatusChange(generation, timeoutMillis);
+   }
+
+   /**
+    * Wake all threads waiting for a status change, after a change that may affect the status of the container.
+    */
+   public void statusChanged()
+   {
+      stateManager.statusChanged();
+   }
+
+   /**
+    * Get the {@link AddonStartScheduler} running {@link Addon} start-up tasks.
+    */
+   public AddonStartScheduler getStartScheduler()
+   {
+      return scheduler;
+   }
+
    /**
     * Returns <code>true</code> if there are currently any Addons being started. (Non-blocking.)
     */
@@ -252,7 +487,7 @@ public class AddonLifecycleManager
    public void startAddon(Addon addon)
    {
       Assert.notNull(addon, "Addon to start must not be null.");
-      Callables.call(new StartEnabledAddonCallable(furnace, this, stateManager, executor, starting, addon));
+      Callables.call(new StartEnabledAddonCallable(furnace, this, stateManager, scheduler, starting, addon));
    }
 
    public AddonView getRootView()
@@ -12,7 +12,6 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,8 +20,6 @@ import org.jboss.forge.furnace.addons.AddonFilter;
 import org.jboss.forge.furnace.addons.AddonId;
 import org.jboss.forge.furnace.addons.AddonRegistry;
 import org.jboss.forge.furnace.addons.AddonStatus;
-import org.jboss.forge.furnace.lock.LockManager;
-import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.repositories.AddonRepository;
 import org.jboss.forge.furnace.services.Imported;
 import org.jboss.forge.furnace.spi.ServiceRegistry;
@@ -36,25 +33,24 @@ public class AddonRegistryImpl implements AddonRegistry
 {
    private static final Logger logger = Logger.getLogger(AddonRegistryImpl.class.getName());
 
-   private final LockManager lock;
    private List<AddonRepository> repositories;
 
    private AddonLifecycleManager manager;
 
    private String name;
 
-   public AddonRegistryImpl(LockManager lock, AddonLifecycleManager manager, List<AddonRepository> repositories,
-            String name)
+   private final ServiceIndex services;
+
+   public AddonRegistryImpl(AddonLifecycleManager manager, List<AddonRepository> repositories, String name)
    {
-      Assert.notNull(lock, "LockManager must not be null.");
       Assert.notNull(manager, "Addon lifecycle manager must not be null.");
       Assert.notNull(repositories, "AddonRepository list must not be null.");
       Assert.isTrue(repositories.size() > 0, "AddonRepository list must not be empty.");
 
-      this.lock = lock;
       this.manager = manager;
       this.repositories = repositories;
       this.name = name;
+      this.services = new ServiceIndex(this, manager.getStateManager());
 
       logger.log(Level.FINE, "Instantiated AddonRegistryImpl: " + this);
    }
@@ -69,14 +65,7 @@ public class AddonRegistryImpl implements AddonRegistry
    public Addon getAddon(final AddonId id)
    {
       Assert.notNull(id, "AddonId must not be null.");
-      return lock.performLocked(LockMode.READ, new Callable<Addon>()
-      {
-         @Override
-         public Addon call() throws Exception
-         {
-            return manager.getAddon(AddonRegistryImpl.this, id);
-         }
-      });
+      return manager.getAddon(this, id);
    }
 
    @Override
@@ -88,22 +77,7 @@ public class AddonRegistryImpl implements AddonRegistry
    @Override
    public Set<Addon> getAddons(final AddonFilter filter)
    {
-      return lock.performLocked(LockMode.READ, new Callable<Set<Addon>>()
-      {
-         @Override
-         public Set<Addon> call() throws Exception
-         {
-            HashSet<Addon> result = new HashSet<Addon>();
-
-            for (Addon addon : manager.getAddons(AddonRegistryImpl.this))
-            {
-               if (filter.accept(addon))
-                  result.add(addon);
-            }
-
-            return result;
-         }
-      });
+      return manager.getAddons(this, filter);
    }
 
    @Override
@@ -112,60 +86,54 @@ public class AddonRegistryImpl implements AddonRegistry
       return Collections.unmodifiableSet(new LinkedHashSet<AddonRepository>(repositories));
    }
 
+   /**
+    * Get the {@link ServiceIndex} of the started {@link Addon} instances in this registry.
+    */
+   ServiceIndex getServiceIndex()
+   {
+      return services;
+   }
+
    @Override
    public <T> Imported<T> getServices(final Class<T> type)
    {
-      return new ImportedImpl<T>(this, lock, type);
+      return new ImportedImpl<T>(services, type);
    }
 
    @Override
    public <T> Imported<T> getServices(final String typeName)
    {
-      return new ImportedImpl<T>(this, lock, typeName);
+      return new ImportedImpl<T>(services, typeName);
    }
 
    @Override
    public Set<Class<?>> getExportedTypes()
    {
-      return lock.performLocked(LockMode.READ, new Callable<Set<Class<?>>>()
+      Set<Class<?>> result = new HashSet<Class<?>>();
+      for (Addon addon : getAddons())
       {
-         @Override
-         public Set<Class<?>> call() throws Exception
+         if (AddonStatus.STARTED.equals(addon.getStatus()))
          {
-            Set<Class<?>> result = new HashSet<Class<?>>();
-            for (Addon addon : getAddons())
-            {
-               if (AddonStatus.STARTED.equals(addon.getStatus()))
-               {
-                  ServiceRegistry serviceRegistry = addon.getServiceRegistry();
-                  result.addAll(serviceRegistry.getExportedTypes());
-               }
-            }
-            return result;
+            ServiceRegistry serviceRegistry = addon.getServiceRegistry();
+            result.addAll(serviceRegistry.getExportedTypes());
          }
-      });
+      }
+      return result;
    }
 
    @Override
    public <T> Set<Class<T>> getExportedTypes(final Class<T> type)
    {
-      return lock.performLocked(LockMode.READ, new Callable<Set<Class<T>>>()
+      Set<Class<T>> result = new HashSet<Class<T>>();
+      for (Addon addon : getAddons())
       {
-         @Override
-         public Set<Class<T>> call() throws Exception
+         if (AddonStatus.STARTED.equals(addon.getStatus()))
          {
-            Set<Class<T>> result = new HashSet<Class<T>>();
-            for (Addon addon : getAddons())
-            {
-               if (AddonStatus.STARTED.equals(addon.getStatus()))
-               {
-                  ServiceRegistry serviceRegistry = addon.getServiceRegistry();
-                  result.addAll(serviceRegistry.getExportedTypes(type));
-               }
-            }
-            return result;
+            ServiceRegistry serviceRegistry = addon.getServiceRegistry();
+            result.addAll(serviceRegistry.getExportedTypes(type));
          }
-      });
+      }
+      return result;
    }
 
    @Override
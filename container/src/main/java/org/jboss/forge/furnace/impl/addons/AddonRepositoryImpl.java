@@ -15,21 +15,28 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.jboss.forge.furnace.Furnace;
 import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.exception.ContainerException;
 import org.jboss.forge.furnace.impl.util.Files;
 import org.jboss.forge.furnace.lock.LockManager;
 import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
 import org.jboss.forge.furnace.repositories.AddonRepository;
 import org.jboss.forge.furnace.repositories.MutableAddonRepository;
+import org.jboss.forge.furnace.repositories.StagingAddonRepository;
 import org.jboss.forge.furnace.util.Assert;
 import org.jboss.forge.furnace.util.OperatingSystemUtils;
 import org.jboss.forge.furnace.util.Streams;
@@ -48,7 +55,7 @@ import org.jboss.forge.parser.xml.XMLParserException;
  * @author <a href="mailto:koen.aers@gmail.com">Koen Aers</a>
  * @author <a href="mailto:ggastald@redhat.com">George Gastaldi</a>
  */
-public final class AddonRepositoryImpl implements MutableAddonRepository
+public final class AddonRepositoryImpl implements StagingAddonRepository
 {
 
    private static final Logger logger = Logger.getLogger(AddonRepositoryImpl.class.getName());
@@ -62,6 +69,14 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
    private static final String DEFAULT_ADDON_DIR = ".forge/addons";
    private static final String REGISTRY_DESCRIPTOR_NAME = "installed.xml";
    private static final String ADDON_DESCRIPTOR_FILENAME = "addon.xml";
+   private static final String STAGING_DIR_NAME = ".staging";
+   private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+
+   /*
+    * Set "furnace.repository.index" to false to disable reading and writing of the binary repository index.
+    */
+   private static final boolean INDEX_ENABLED = !"false".equalsIgnoreCase(System
+            .getProperty("furnace.repository.index"));
 
    private static final String DEPENDENCY_TAG_NAME = "dependency";
    private static final String DEPENDENCIES_TAG_NAME = "dependencies";
@@ -70,13 +85,22 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
 
    public static MutableAddonRepository forDirectory(Furnace forge, File dir)
    {
-      return new AddonRepositoryImpl(forge.getLockManager(), dir);
+      return new AddonRepositoryImpl(forge.getLockManager(), dir, null);
+   }
+
+   /**
+    * Create a repository for the given directory, signaling the given {@link RepositoryChangeNotifier} whenever the
+    * repository registry is modified.
+    */
+   public static MutableAddonRepository forDirectory(Furnace forge, File dir, RepositoryChangeNotifier notifier)
+   {
+      return new AddonRepositoryImpl(forge.getLockManager(), dir, notifier);
    }
 
    public static MutableAddonRepository forDefaultDirectory(Furnace forge)
    {
       return new AddonRepositoryImpl(forge.getLockManager(), new File(OperatingSystemUtils.getUserHomePath(),
-               DEFAULT_ADDON_DIR));
+               DEFAULT_ADDON_DIR), null);
    }
 
    public static Version getRuntimeAPIVersion()
@@ -104,96 +128,259 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
 
    private File addonDir;
 
-   private int version = 1;
+   private volatile int version = 1;
+
+   /*
+    * The last known state of the registry file, used to detect modifications made by other processes.
+    */
+   private boolean registryObserved;
+   private long registryLastModified;
+   private long registryLength;
 
-   private AddonRepositoryImpl(LockManager lock, File dir)
+   private final RepositoryChangeNotifier notifier;
+
+   /*
+    * Parsed registry and addon descriptor contents, reused until the underlying file or repository version changes.
+    */
+   private volatile RegistrySnapshot registrySnapshot;
+   private final ConcurrentMap<AddonId, DescriptorSnapshot> descriptorSnapshots =
+            new ConcurrentHashMap<AddonId, DescriptorSnapshot>();
+   private final ConcurrentMap<AddonId, ResourceSnapshot> resourceSnapshots =
+            new ConcurrentHashMap<AddonId, ResourceSnapshot>();
+   private final Object indexLock = new Object();
+   private final AtomicLong registryParseCount = new AtomicLong();
+   private final AtomicLong descriptorParseCount = new AtomicLong();
+
+   private AddonRepositoryImpl(LockManager lock, File dir, RepositoryChangeNotifier notifier)
    {
       // TODO Assert.notNull(lock, "LockManager must not be null.");
       Assert.notNull(dir, "Addon directory must not be null.");
       this.addonDir = dir;
       this.lock = lock;
+      this.notifier = notifier;
+      purgeStagingDirectory();
+   }
+
+   /*
+    * Anything left in the staging directory was staged by a process that stopped before deploying it.
+    */
+   private void purgeStagingDirectory()
+   {
+      File stagingDir = new File(addonDir, STAGING_DIR_NAME);
+      if (stagingDir.exists() && !Files.delete(stagingDir, true))
+      {
+         logger.warning("Could not purge staging directory [" + stagingDir + "]");
+      }
    }
 
    @Override
    public boolean deploy(final AddonId addon, final Iterable<AddonDependencyEntry> dependencies,
             final Iterable<File> resources)
    {
-      return lock.performLocked(LockMode.WRITE, new Callable<Boolean>()
+      final File staged;
+      try
       {
-         @Override
-         public Boolean call() throws Exception
+         staged = stage(addon, resources);
+      }
+      catch (ContainerException e)
+      {
+         logger.log(Level.SEVERE, "Could not deploy addon [" + addon + "]", e);
+         return false;
+      }
+      return deployStaged(addon, dependencies, staged);
+   }
+
+   @Override
+   public File stage(AddonId addon, Iterable<File> resources)
+   {
+      try
+      {
+         return stageResources(addon, resources);
+      }
+      catch (IOException e)
+      {
+         throw new ContainerException("Could not stage resources of addon [" + addon + "]", e);
+      }
+   }
+
+   @Override
+   public boolean deployStaged(final AddonId addon, final Iterable<AddonDependencyEntry> dependencies,
+            final File staged)
+   {
+      final List<File> replaced = new ArrayList<File>();
+      try
+      {
+         return lock.performLocked(LockMode.WRITE, new Callable<Boolean>()
          {
-            File addonSlotDir = getAddonBaseDir(addon);
-            File descriptor = getAddonDescriptor(addon);
-            try
+            @Override
+            public Boolean call() throws Exception
             {
-               if (resources != null)
-               {
-                  for (File resource : resources)
-                  {
-                     if (resource.isDirectory())
-                     {
-                        String child = addon.getName()
-                                 + resource.getParentFile().getParentFile().getName();
-                        child = OperatingSystemUtils.getSafeFilename(child);
-                        Files.copyDirectory(resource, new File(addonSlotDir, child));
-                     }
-                     else
-                     {
-                        Files.copyFileToDirectory(resource, addonSlotDir);
-                     }
-                  }
-               }
-               /*
-                * Write out the addon module dependency configuration
-                */
-               Node addonXml = getXmlRoot(descriptor);
-               Node dependenciesNode = addonXml.getOrCreate(DEPENDENCIES_TAG_NAME);
+               return moveStaged(addon, dependencies, staged, replaced);
+            }
+         });
+      }
+      finally
+      {
+         unstage(staged);
+         for (File slot : replaced)
+         {
+            unstage(slot);
+         }
+      }
+   }
 
-               if (dependencies != null)
-               {
-                  for (AddonDependencyEntry dependency : dependencies)
-                  {
-                     String name = dependency.getName();
-                     Node dep = null;
-                     for (Node node : dependenciesNode.get(DEPENDENCY_TAG_NAME))
-                     {
-                        if (name.equals(node.getAttribute(ATTR_NAME)))
-                        {
-                           dep = node;
-                           break;
-                        }
-                     }
-                     if (dep == null)
-                     {
-                        dep = dependenciesNode.createChild(DEPENDENCY_TAG_NAME);
-                        dep.attribute(ATTR_NAME, name);
-                     }
-                     dep.attribute(ATTR_VERSION, dependency.getVersionRange());
-                     dep.attribute(ATTR_EXPORT, dependency.isExported());
-                     dep.attribute(ATTR_OPTIONAL, dependency.isOptional());
-                  }
-               }
+   @Override
+   public void unstage(File staged)
+   {
+      if (staged != null && staged.exists())
+         Files.delete(staged, true);
+   }
+
+   /**
+    * Place the given resources into a new directory under the staging directory of this repository, laid out as they
+    * will be in the slot directory of the given {@link AddonId}. Return <code>null</code> if there are no resources.
+    * <p>
+    * Resources are hard linked where possible. SNAPSHOT resources, and all resources of a SNAPSHOT addon, are always
+    * copied instead, since a SNAPSHOT in the local Maven repository is overwritten in place when it is rebuilt, and a
+    * link would change the deployed addon along with it.
+    */
+   private File stageResources(AddonId addon, Iterable<File> resources) throws IOException
+   {
+      if (resources == null || !resources.iterator().hasNext())
+         return null;
 
-               FileOutputStream fos = null;
+      boolean snapshot = Versions.isSnapshot(addon.getVersion());
+      File stagingDir = new File(new File(getRootDirectory(), STAGING_DIR_NAME), getAddonBaseDir(addon).getName()
+               + "-" + System.nanoTime());
+      try
+      {
+         for (File resource : resources)
+         {
+            boolean copy = snapshot || resource.getName().contains(SNAPSHOT_SUFFIX);
+            if (resource.isDirectory())
+            {
+               String child = addon.getName() + resource.getParentFile().getParentFile().getName();
+               child = OperatingSystemUtils.getSafeFilename(child);
+               File target = new File(stagingDir, child);
+               if (copy)
+                  Files.copyDirectory(resource, target);
+               else
+                  Files.linkOrCopyDirectory(resource, target);
+            }
+            else
+            {
+               File target = new File(stagingDir, resource.getName());
+               target.delete();
+               if (copy)
+                  Files.copyFile(resource, target);
+               else
+                  Files.linkOrCopyFile(resource, target);
+            }
+         }
+      }
+      catch (IOException e)
+      {
+         Files.delete(stagingDir, true);
+         throw e;
+      }
+      return stagingDir;
+   }
+
+   /*
+    * Must be called with the write lock held. Any slot directory replaced by the staged one is added to the given list,
+    * to be deleted once the lock is released.
+    */
+   private boolean moveStaged(AddonId addon, Iterable<AddonDependencyEntry> dependencies, File stagingDir,
+            List<File> replaced) throws Exception
+   {
+      File addonSlotDir = getAddonBaseDir(addon);
+      try
+      {
+         if (stagingDir != null)
+         {
+            if (addonSlotDir.exists())
+            {
+               /*
+                * Swap the existing slot out as a whole, so the staged slot can be renamed into place, and keep its
+                * descriptor.
+                */
+               File previous = new File(stagingDir.getPath() + ".replaced");
+               Files.move(addonSlotDir, previous);
+               replaced.add(previous);
                try
                {
-                  fos = new FileOutputStream(descriptor);
-                  Streams.write(XMLParser.toXMLInputStream(addonXml), fos);
+                  Files.move(stagingDir, addonSlotDir);
                }
-               finally
+               catch (IOException e)
                {
-                  Streams.closeQuietly(fos);
+                  Files.move(previous, addonSlotDir);
+                  replaced.remove(previous);
+                  throw e;
                }
-               return true;
+
+               File previousDescriptor = new File(previous, ADDON_DESCRIPTOR_FILENAME);
+               File descriptor = new File(addonSlotDir, ADDON_DESCRIPTOR_FILENAME);
+               if (previousDescriptor.isFile() && !descriptor.exists())
+                  Files.move(previousDescriptor, descriptor);
             }
-            catch (IOException io)
+            else
             {
-               io.printStackTrace();
-               return false;
+               Files.move(stagingDir, addonSlotDir);
             }
          }
-      });
+         File descriptor = getAddonDescriptor(addon);
+
+         /*
+          * Write out the addon module dependency configuration
+          */
+         Node addonXml = getXmlRoot(descriptor);
+         Node dependenciesNode = addonXml.getOrCreate(DEPENDENCIES_TAG_NAME);
+
+         if (dependencies != null)
+         {
+            for (AddonDependencyEntry dependency : dependencies)
+            {
+               String name = dependency.getName();
+               Node dep = null;
+               for (Node node : dependenciesNode.get(DEPENDENCY_TAG_NAME))
+               {
+                  if (name.equals(node.getAttribute(ATTR_NAME)))
+                  {
+                     dep = node;
+                     break;
+                  }
+               }
+               if (dep == null)
+               {
+                  dep = dependenciesNode.createChild(DEPENDENCY_TAG_NAME);
+                  dep.attribute(ATTR_NAME, name);
+               }
+               dep.attribute(ATTR_VERSION, dependency.getVersionRange());
+               dep.attribute(ATTR_EXPORT, dependency.isExported());
+               dep.attribute(ATTR_OPTIONAL, dependency.isOptional());
+            }
+         }
+
+         FileOutputStream fos = null;
+         try
+         {
+            fos = new FileOutputStream(descriptor);
+            Streams.write(XMLParser.toXMLInputStream(addonXml), fos);
+         }
+         finally
+         {
+            Streams.closeQuietly(fos);
+            descriptorSnapshots.remove(addon);
+            resourceSnapshots.remove(addon);
+         }
+         updateIndex();
+         return true;
+      }
+      catch (IOException io)
+      {
+         logger.log(Level.SEVERE, "Could not deploy addon [" + addon + "]", io);
+         return false;
+      }
    }
 
    @Override
@@ -220,6 +407,7 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
                            + ATTR_VERSION + "=" + addon.getVersion());
                   installed.removeChild(child);
                   saveRegistryFile(installed);
+                  updateIndex();
                   return true;
                }
                catch (IOException e)
@@ -255,6 +443,7 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
                         .attribute(ATTR_API_VERSION, (addon.getApiVersion() == null ? "" : addon.getApiVersion()));
 
                saveRegistryFile(installed);
+               updateIndex();
                return true;
             }
             catch (FileNotFoundException e)
@@ -291,33 +480,44 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
          @Override
          public Set<AddonDependencyEntry> call() throws Exception
          {
-            Set<AddonDependencyEntry> result = new HashSet<AddonDependencyEntry>();
             File descriptor = getAddonDescriptor(addon);
+            long lastModified = descriptor.lastModified();
+            long length = descriptor.length();
 
-            try
+            DescriptorSnapshot snapshot = descriptorSnapshots.get(addon);
+            if (snapshot == null || !snapshot.isCurrent(lastModified, length))
             {
-               Node installed = getXmlRoot(descriptor);
-
-               List<Node> children = installed.get("dependencies/dependency");
-               for (final Node child : children)
+               Set<AddonDependencyEntry> dependencies = new HashSet<AddonDependencyEntry>();
+               try
                {
-                  if (child != null)
+                  descriptorParseCount.incrementAndGet();
+                  Node installed = getXmlRoot(descriptor);
+
+                  List<Node> children = installed.get("dependencies/dependency");
+                  for (final Node child : children)
                   {
-                     result.add(AddonDependencyEntry.create(
-                              child.getAttribute(ATTR_NAME),
-                              Versions.parseMultipleVersionRange(child.getAttribute(ATTR_VERSION)),
-                              Boolean.valueOf(child.getAttribute(ATTR_EXPORT)),
-                              Boolean.valueOf(child.getAttribute(ATTR_OPTIONAL)))
-                              );
+                     if (child != null)
+                     {
+                        dependencies.add(AddonDependencyEntry.create(
+                                 child.getAttribute(ATTR_NAME),
+                                 Versions.parseMultipleVersionRange(child.getAttribute(ATTR_VERSION)),
+                                 Boolean.valueOf(child.getAttribute(ATTR_EXPORT)),
+                                 Boolean.valueOf(child.getAttribute(ATTR_OPTIONAL)))
+                                 );
+                     }
                   }
                }
-            }
-            catch (FileNotFoundException e)
-            {
-               // already removed
+               catch (FileNotFoundException e)
+               {
+                  // already removed
+                  return dependencies;
+               }
+
+               snapshot = new DescriptorSnapshot(lastModified, length, dependencies);
+               descriptorSnapshots.put(addon, snapshot);
             }
 
-            return result;
+            return new HashSet<AddonDependencyEntry>(snapshot.getDependencies());
          }
       });
    }
@@ -382,19 +582,28 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
          public List<File> call() throws Exception
          {
             File dir = getAddonBaseDir(found);
-            if (dir.exists())
+            long lastModified = dir.lastModified();
+
+            ResourceSnapshot snapshot = resourceSnapshots.get(found);
+            if (snapshot == null || !snapshot.isCurrent(lastModified))
             {
-               File[] files = dir.listFiles(new FileFilter()
+               List<File> resources = Collections.emptyList();
+               if (dir.exists())
                {
-                  @Override
-                  public boolean accept(File pathname)
+                  File[] files = dir.listFiles(new FileFilter()
                   {
-                     return pathname.isDirectory() || pathname.getName().endsWith(".jar");
-                  }
-               });
-               return Arrays.asList(files);
+                     @Override
+                     public boolean accept(File pathname)
+                     {
+                        return pathname.isDirectory() || pathname.getName().endsWith(".jar");
+                     }
+                  });
+                  resources = Arrays.asList(files);
+               }
+               snapshot = new ResourceSnapshot(lastModified, resources);
+               resourceSnapshots.put(found, snapshot);
             }
-            return Collections.emptyList();
+            return new ArrayList<File>(snapshot.getResources());
          }
       });
    }
@@ -446,6 +655,11 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
                   {
                      Streams.closeQuietly(out);
                   }
+
+                  /*
+                   * An empty registry lists no addons, so creating it is not a change that needs to be scanned.
+                   */
+                  isModified(registryFile.lastModified(), registryFile.length());
                }
                return registryFile;
             }
@@ -481,11 +695,11 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
          @Override
          public Boolean call() throws Exception
          {
-            List<AddonId> enabled = listEnabledCompatibleWithVersion(getRuntimeAPIVersion());
-
-            for (AddonId id : enabled)
+            Version runtimeVersion = getRuntimeAPIVersion();
+            for (AddonId id : getRegistrySnapshot().getEnabled(addon.getName()))
             {
-               if (id.equals(addon))
+               if (id.equals(addon) && (runtimeVersion == null || id.getApiVersion() == null
+                        || Versions.isApiCompatible(runtimeVersion, id.getApiVersion())))
                   return true;
             }
 
@@ -502,22 +716,53 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
          @Override
          public List<AddonId> call() throws Exception
          {
-            List<AddonId> result = new ArrayList<AddonId>();
+            return new ArrayList<AddonId>(getRegistrySnapshot().getEnabled());
+         }
+      });
+   }
+
+   /**
+    * Get the parsed contents of the registry file, parsing it only if it, or the repository version, has changed
+    * since it was last parsed.
+    */
+   private RegistrySnapshot getRegistrySnapshot()
+   {
+      return lock.performLocked(LockMode.READ, new Callable<RegistrySnapshot>()
+      {
+         @Override
+         public RegistrySnapshot call() throws Exception
+         {
             File registryFile = getRepositoryRegistryFile();
+            int currentVersion = version;
+            long lastModified = registryFile.lastModified();
+            long length = registryFile.length();
+
+            RegistrySnapshot snapshot = registrySnapshot;
+            if (snapshot != null && snapshot.isCurrent(currentVersion, lastModified, length))
+               return snapshot;
+
+            if (snapshot == null && INDEX_ENABLED)
+            {
+               snapshot = readIndex(currentVersion, lastModified, length);
+               if (snapshot != null)
+                  return snapshot;
+            }
+
+            List<AddonId> enabled = new ArrayList<AddonId>();
             try
             {
+               registryParseCount.incrementAndGet();
                Node installed = getXmlRoot(registryFile);
-               if (installed == null)
+               if (installed != null)
                {
-                  return Collections.emptyList();
-               }
-               List<Node> list = installed.get("addon");
-               for (Node addon : list)
-               {
-                  AddonId entry = AddonId.from(addon.getAttribute(ATTR_NAME),
-                           addon.getAttribute(ATTR_VERSION),
-                           addon.getAttribute(ATTR_API_VERSION));
-                  result.add(entry);
+                  List<Node> list = installed.get("addon");
+                  for (Node addon : list)
+                  {
+                     AddonId entry = AddonId.from(addon.getAttribute(ATTR_NAME),
+                              addon.getAttribute(ATTR_VERSION),
+                              addon.getAttribute(ATTR_API_VERSION));
+                     enabled.add(entry);
+                  }
                }
             }
             catch (XMLParserException e)
@@ -528,12 +773,162 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
             catch (FileNotFoundException e)
             {
                // this is OK, no addons installed
+               return new RegistrySnapshot(currentVersion, lastModified, length, enabled);
             }
-            return result;
+
+            snapshot = new RegistrySnapshot(currentVersion, lastModified, length, enabled);
+            registrySnapshot = snapshot;
+            if (INDEX_ENABLED)
+               writeIndex(snapshot);
+            return snapshot;
          }
       });
    }
 
+   /**
+    * Read the repository index and use its current entries in place of parsing the registry and descriptor files.
+    * Return <code>null</code> if there is no index, or if it does not match the given registry file state. Entries
+    * for addons whose descriptor or resources have since changed are ignored, and the index is rewritten.
+    */
+   private RegistrySnapshot readIndex(int currentVersion, long lastModified, long length)
+   {
+      AddonRepositoryIndex index = null;
+      try
+      {
+         index = AddonRepositoryIndex.read(new File(addonDir, AddonRepositoryIndex.INDEX_FILENAME));
+      }
+      catch (IOException e)
+      {
+         logger.log(Level.FINE, "Could not read repository index in [" + addonDir + "]", e);
+      }
+
+      if (index == null || !index.isCurrent(lastModified, length))
+         return null;
+
+      boolean stale = false;
+      List<AddonId> enabled = new ArrayList<AddonId>();
+      for (AddonRepositoryIndex.Entry entry : index.getEntries())
+      {
+         AddonId id = entry.getId();
+         enabled.add(id);
+
+         File descriptor = getAddonDescriptorFile(id);
+         DescriptorSnapshot descriptorSnapshot = new DescriptorSnapshot(entry.getDescriptorLastModified(),
+                  entry.getDescriptorLength(), entry.getDependencies());
+         if (descriptorSnapshot.isCurrent(descriptor.lastModified(), descriptor.length()))
+            descriptorSnapshots.putIfAbsent(id, descriptorSnapshot);
+         else
+            stale = true;
+
+         File dir = getAddonBaseDir(id);
+         List<File> resources = new ArrayList<File>();
+         for (AddonRepositoryIndex.Resource resource : entry.getResources())
+         {
+            File file = new File(dir, resource.getName());
+            if (!resource.isCurrent(file))
+               stale = true;
+            resources.add(file);
+         }
+         ResourceSnapshot resourceSnapshot = new ResourceSnapshot(entry.getResourceDirLastModified(), resources);
+         if (resourceSnapshot.isCurrent(dir.lastModified()))
+            resourceSnapshots.putIfAbsent(id, resourceSnapshot);
+         else
+            stale = true;
+      }
+
+      RegistrySnapshot snapshot = new RegistrySnapshot(currentVersion, lastModified, length, enabled);
+      registrySnapshot = snapshot;
+      if (stale)
+      {
+         for (AddonId id : enabled)
+         {
+            descriptorSnapshots.remove(id);
+            resourceSnapshots.remove(id);
+         }
+         writeIndex(snapshot);
+      }
+      return snapshot;
+   }
+
+   /**
+    * Rewrite the repository index from the given {@link RegistrySnapshot} and the current addon descriptors and
+    * resources. Failure to write the index is not fatal, since it is only used to speed up reading the repository.
+    */
+   private void writeIndex(RegistrySnapshot snapshot)
+   {
+      synchronized (indexLock)
+      {
+         List<AddonRepositoryIndex.Entry> entries = new ArrayList<AddonRepositoryIndex.Entry>();
+         for (AddonId id : snapshot.getEnabled())
+         {
+            long descriptorLastModified = 0;
+            long descriptorLength = 0;
+            Set<AddonDependencyEntry> dependencies = Collections.emptySet();
+            long resourceDirLastModified = 0;
+            List<AddonRepositoryIndex.Resource> resources = new ArrayList<AddonRepositoryIndex.Resource>();
+
+            if (isDeployed(id))
+            {
+               dependencies = getAddonDependencies(id);
+               File descriptor = getAddonDescriptorFile(id);
+               descriptorLastModified = descriptor.lastModified();
+               descriptorLength = descriptor.length();
+
+               File dir = getAddonBaseDir(id);
+               resourceDirLastModified = dir.lastModified();
+               for (File resource : getAddonResources(id))
+               {
+                  resources.add(new AddonRepositoryIndex.Resource(resource.getName(), resource.length(),
+                           resource.lastModified()));
+               }
+            }
+
+            entries.add(new AddonRepositoryIndex.Entry(id, descriptorLastModified, descriptorLength, dependencies,
+                     resourceDirLastModified, resources));
+         }
+
+         File indexFile = new File(addonDir, AddonRepositoryIndex.INDEX_FILENAME);
+         try
+         {
+            new AddonRepositoryIndex(snapshot.getLastModified(), snapshot.getLength(), entries).write(indexFile);
+         }
+         catch (IOException e)
+         {
+            logger.log(Level.FINE, "Could not write repository index [" + indexFile + "]", e);
+         }
+      }
+   }
+
+   /**
+    * Rewrite the repository index after a modification of this repository, unless reading the registry already did.
+    */
+   private void updateIndex()
+   {
+      if (INDEX_ENABLED)
+      {
+         RegistrySnapshot previous = registrySnapshot;
+         RegistrySnapshot current = getRegistrySnapshot();
+         if (current == previous)
+            writeIndex(current);
+      }
+   }
+
+   /**
+    * Get the number of times the registry file has been parsed.
+    */
+   public long getRegistryParseCount()
+   {
+      return registryParseCount.get();
+   }
+
+   /**
+    * Get the number of times an addon descriptor file has been parsed.
+    */
+   public long getDescriptorParseCount()
+   {
+      return descriptorParseCount.get();
+   }
+
    @Override
    public List<AddonId> listEnabledCompatibleWithVersion(final Version version)
    {
@@ -569,7 +964,11 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
          {
             File dir = getAddonBaseDir(addon);
             disable(addon);
-            return Files.delete(dir, true);
+            descriptorSnapshots.remove(addon);
+            resourceSnapshots.remove(addon);
+            boolean result = Files.delete(dir, true);
+            updateIndex();
+            return result;
          }
       });
    }
@@ -609,16 +1008,32 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
    @Override
    public int getVersion()
    {
+      File registryFile = new File(addonDir, REGISTRY_DESCRIPTOR_NAME);
+      if (isModified(registryFile.lastModified(), registryFile.length()))
+         incrementVersion();
       return version;
    }
 
+   /**
+    * Record the given registry file state, returning <code>true</code> if it differs from the last known state.
+    */
+   private synchronized boolean isModified(long lastModified, long length)
+   {
+      boolean result = registryObserved && (lastModified != registryLastModified || length != registryLength);
+      registryObserved = true;
+      registryLastModified = lastModified;
+      registryLength = length;
+      return result;
+   }
+
    private void saveRegistryFile(Node installed) throws FileNotFoundException
    {
+      File registryFile = getRepositoryRegistryFile();
       FileOutputStream outStream = null;
       try
       {
          // TODO need to replace this with actual file-system transactionality, but should work for the common case
-         outStream = new FileOutputStream(getRepositoryRegistryFile());
+         outStream = new FileOutputStream(registryFile);
          incrementVersion();
          Streams.write(XMLParser.toXMLInputStream(installed), outStream);
       }
@@ -626,9 +1041,13 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
       {
          Streams.closeQuietly(outStream);
       }
+
+      isModified(registryFile.lastModified(), registryFile.length());
+      if (notifier != null)
+         notifier.changed();
    }
 
-   private void incrementVersion()
+   private synchronized void incrementVersion()
    {
       version++;
    }
@@ -667,4 +1086,114 @@ public final class AddonRepositoryImpl implements MutableAddonRepository
          return false;
       return true;
    }
+
+   /**
+    * The enabled {@link AddonId} instances read from the registry file, indexed by name.
+    */
+   private static class RegistrySnapshot
+   {
+      private final int version;
+      private final long lastModified;
+      private final long length;
+      private final List<AddonId> enabled;
+      private final Map<String, List<AddonId>> enabledByName = new HashMap<String, List<AddonId>>();
+
+      public RegistrySnapshot(int version, long lastModified, long length, List<AddonId> enabled)
+      {
+         this.version = version;
+         this.lastModified = lastModified;
+         this.length = length;
+         this.enabled = Collections.unmodifiableList(enabled);
+         for (AddonId id : enabled)
+         {
+            List<AddonId> ids = enabledByName.get(id.getName());
+            if (ids == null)
+            {
+               ids = new ArrayList<AddonId>();
+               enabledByName.put(id.getName(), ids);
+            }
+            ids.add(id);
+         }
+      }
+
+      public boolean isCurrent(int version, long lastModified, long length)
+      {
+         return this.version == version && this.lastModified == lastModified && this.length == length;
+      }
+
+      public long getLastModified()
+      {
+         return lastModified;
+      }
+
+      public long getLength()
+      {
+         return length;
+      }
+
+      public List<AddonId> getEnabled()
+      {
+         return enabled;
+      }
+
+      public List<AddonId> getEnabled(String name)
+      {
+         List<AddonId> result = enabledByName.get(name);
+         if (result == null)
+            return Collections.emptyList();
+         return result;
+      }
+   }
+
+   /**
+    * The {@link AddonDependencyEntry} instances read from an addon descriptor file.
+    */
+   private static class DescriptorSnapshot
+   {
+      private final long lastModified;
+      private final long length;
+      private final Set<AddonDependencyEntry> dependencies;
+
+      public DescriptorSnapshot(long lastModified, long length, Set<AddonDependencyEntry> dependencies)
+      {
+         this.lastModified = lastModified;
+         this.length = length;
+         this.dependencies = Collections.unmodifiableSet(dependencies);
+      }
+
+      public boolean isCurrent(long lastModified, long length)
+      {
+         return this.lastModified == lastModified && this.length == length;
+      }
+
+      public Set<AddonDependencyEntry> getDependencies()
+      {
+         return dependencies;
+      }
+   }
+
+   /**
+    * The resource files found in an addon base directory.
+    */
+   private static class ResourceSnapshot
+   {
+      private final long lastModified;
+      private final List<File> resources;
+
+      public ResourceSnapshot(long lastModified, List<File> resources)
+      {
+         this.lastModified = lastModified;
+         this.resources = Collections.unmodifiableList(resources);
+      }
+
+      public boolean isCurrent(long lastModified)
+      {
+         return this.lastModified == lastModified;
+      }
+
+      public List<File> getResources()
+      {
+         return resources;
+      }
+   }
 }
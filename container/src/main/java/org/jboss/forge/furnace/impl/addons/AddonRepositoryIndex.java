@@ -0,0 +1,348 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.impl.addons;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.util.Streams;
+import org.jboss.forge.furnace.versions.Versions;
+
+/**
+ * A compact binary copy of the contents of an {@link AddonRepositoryImpl}: the enabled {@link AddonId} instances, the
+ * {@link AddonDependencyEntry} instances of each, and their resource files. Every entry records the modification time
+ * and size of the file it was read from, so that stale entries can be detected and ignored. The XML registry and
+ * descriptor files remain the source of truth.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class AddonRepositoryIndex
+{
+   static final String INDEX_FILENAME = "installed.index";
+
+   private static final int MAGIC = 0x46524E43;
+   private static final int FORMAT_VERSION = 1;
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+   private final long registryLastModified;
+   private final long registryLength;
+   private final List<Entry> entries;
+
+   AddonRepositoryIndex(long registryLastModified, long registryLength, List<Entry> entries)
+   {
+      this.registryLastModified = registryLastModified;
+      this.registryLength = registryLength;
+      this.entries = Collections.unmodifiableList(entries);
+   }
+
+   /**
+    * Return <code>true</code> if this index was created from the given registry file state.
+    */
+   boolean isCurrent(long registryLastModified, long registryLength)
+   {
+      return this.registryLastModified == registryLastModified && this.registryLength == registryLength;
+   }
+
+   List<Entry> getEntries()
+   {
+      return entries;
+   }
+
+   /**
+    * Read the index from the given {@link File}. Return <code>null</code> if the file does not exist, or is not a
+    * valid index.
+    */
+   static AddonRepositoryIndex read(File file) throws IOException
+   {
+      if (!file.isFile())
+         return null;
+
+      FileInputStream stream = new FileInputStream(file);
+      try
+      {
+         /*
+          * Read into a heap buffer rather than mapping the file, since a mapping is only released when it is garbage
+          * collected, and prevents replacing or deleting the file on some platforms until then.
+          */
+         FileChannel channel = stream.getChannel();
+         long size = channel.size();
+         if (size > Integer.MAX_VALUE)
+            return null;
+
+         ByteBuffer buffer = ByteBuffer.allocate((int) size);
+         while (buffer.hasRemaining())
+         {
+            if (channel.read(buffer) < 0)
+               return null;
+         }
+         buffer.flip();
+
+         if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+            return null;
+
+         long registryLastModified = buffer.getLong();
+         long registryLength = buffer.getLong();
+         int entryCount = readCount(buffer);
+         List<Entry> entries = new ArrayList<Entry>(entryCount);
+         for (int i = 0; i < entryCount; i++)
+         {
+            AddonId id = AddonId.from(readString(buffer), readString(buffer), readString(buffer));
+            long descriptorLastModified = buffer.getLong();
+            long descriptorLength = buffer.getLong();
+
+            int dependencyCount = readCount(buffer);
+            Set<AddonDependencyEntry> dependencies = new HashSet<AddonDependencyEntry>();
+            for (int j = 0; j < dependencyCount; j++)
+            {
+               String name = readString(buffer);
+               String versionRange = readString(buffer);
+               boolean exported = buffer.get() != 0;
+               boolean optional = buffer.get() != 0;
+               dependencies.add(AddonDependencyEntry.create(name, Versions.parseMultipleVersionRange(versionRange),
+                        exported, optional));
+            }
+
+            long resourceDirLastModified = buffer.getLong();
+            int resourceCount = readCount(buffer);
+            List<Resource> resources = new ArrayList<Resource>(resourceCount);
+            for (int j = 0; j < resourceCount; j++)
+            {
+               resources.add(new Resource(readString(buffer), buffer.getLong(), buffer.getLong()));
+            }
+
+            entries.add(new Entry(id, descriptorLastModified, descriptorLength, dependencies,
+                     resourceDirLastModified, resources));
+         }
+         return new AddonRepositoryIndex(registryLastModified, registryLength, entries);
+      }
+      catch (BufferUnderflowException e)
+      {
+         return null;
+      }
+      catch (IllegalArgumentException e)
+      {
+         return null;
+      }
+      finally
+      {
+         Streams.closeQuietly(stream);
+      }
+   }
+
+   /**
+    * Write this index to the given {@link File}, replacing any existing file only once the new index has been
+    * completely written.
+    */
+   void write(File file) throws IOException
+   {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(registryLastModified);
+      out.writeLong(registryLength);
+      out.writeInt(entries.size());
+      for (Entry entry : entries)
+      {
+         AddonId id = entry.getId();
+         writeString(out, id.getName());
+         writeString(out, id.getVersion() == null ? null : id.getVersion().toString());
+         writeString(out, id.getApiVersion() == null ? null : id.getApiVersion().toString());
+         out.writeLong(entry.getDescriptorLastModified());
+         out.writeLong(entry.getDescriptorLength());
+
+         out.writeInt(entry.getDependencies().size());
+         for (AddonDependencyEntry dependency : entry.getDependencies())
+         {
+            writeString(out, dependency.getName());
+            writeString(out, dependency.getVersionRange() == null ? null : dependency.getVersionRange().toString());
+            out.writeBoolean(dependency.isExported());
+            out.writeBoolean(dependency.isOptional());
+         }
+
+         out.writeLong(entry.getResourceDirLastModified());
+         out.writeInt(entry.getResources().size());
+         for (Resource resource : entry.getResources())
+         {
+            writeString(out, resource.getName());
+            out.writeLong(resource.getLength());
+            out.writeLong(resource.getLastModified());
+         }
+      }
+      out.flush();
+
+      File temp = File.createTempFile(INDEX_FILENAME, ".tmp", file.getParentFile());
+      FileOutputStream stream = null;
+      try
+      {
+         stream = new FileOutputStream(temp);
+         bytes.writeTo(stream);
+         stream.getFD().sync();
+      }
+      finally
+      {
+         Streams.closeQuietly(stream);
+      }
+
+      if (!temp.renameTo(file))
+      {
+         file.delete();
+         if (!temp.renameTo(file))
+         {
+            temp.delete();
+            throw new IOException("Could not replace repository index [" + file + "]");
+         }
+      }
+   }
+
+   /*
+    * Counts and lengths are validated against the remaining bytes, so that a corrupt index is rejected instead of
+    * causing a large allocation.
+    */
+   private static int readCount(ByteBuffer buffer)
+   {
+      int count = buffer.getInt();
+      if (count < 0 || count > buffer.remaining())
+         throw new BufferUnderflowException();
+      return count;
+   }
+
+   private static String readString(ByteBuffer buffer)
+   {
+      int length = buffer.getInt();
+      if (length == -1)
+         return null;
+      if (length < 0 || length > buffer.remaining())
+         throw new BufferUnderflowException();
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, UTF_8);
+   }
+
+   private static void writeString(DataOutputStream out, String value) throws IOException
+   {
+      if (value == null)
+      {
+         out.writeInt(-1);
+      }
+      else
+      {
+         byte[] bytes = value.getBytes(UTF_8);
+         out.writeInt(bytes.length);
+         out.write(bytes);
+      }
+   }
+
+   /**
+    * The indexed state of a single enabled addon.
+    */
+   static final class Entry
+   {
+      private final AddonId id;
+      private final long descriptorLastModified;
+      private final long descriptorLength;
+      private final Set<AddonDependencyEntry> dependencies;
+      private final long resourceDirLastModified;
+      private final List<Resource> resources;
+
+      Entry(AddonId id, long descriptorLastModified, long descriptorLength, Set<AddonDependencyEntry> dependencies,
+               long resourceDirLastModified, List<Resource> resources)
+      {
+         this.id = id;
+         this.descriptorLastModified = descriptorLastModified;
+         this.descriptorLength = descriptorLength;
+         this.dependencies = dependencies;
+         this.resourceDirLastModified = resourceDirLastModified;
+         this.resources = resources;
+      }
+
+      AddonId getId()
+      {
+         return id;
+      }
+
+      long getDescriptorLastModified()
+      {
+         return descriptorLastModified;
+      }
+
+      long getDescriptorLength()
+      {
+         return descriptorLength;
+      }
+
+      Set<AddonDependencyEntry> getDependencies()
+      {
+         return dependencies;
+      }
+
+      long getResourceDirLastModified()
+      {
+         return resourceDirLastModified;
+      }
+
+      List<Resource> getResources()
+      {
+         return resources;
+      }
+   }
+
+   /**
+    * The indexed state of a single addon resource, relative to the addon base directory.
+    */
+   static final class Resource
+   {
+      private final String name;
+      private final long length;
+      private final long lastModified;
+
+      Resource(String name, long length, long lastModified)
+      {
+         this.name = name;
+         this.length = length;
+         this.lastModified = lastModified;
+      }
+
+      /**
+       * Return <code>true</code> if the given {@link File} is unchanged since it was indexed.
+       */
+      boolean isCurrent(File file)
+      {
+         return file.length() == length && file.lastModified() == lastModified;
+      }
+
+      String getName()
+      {
+         return name;
+      }
+
+      long getLength()
+      {
+         return length;
+      }
+
+      long getLastModified()
+      {
+         return lastModified;
+      }
+   }
+}
@@ -23,7 +23,6 @@ import org.jboss.forge.furnace.impl.util.Iterators;
 import org.jboss.forge.furnace.lifecycle.AddonLifecycleProvider;
 import org.jboss.forge.furnace.lifecycle.ControlType;
 import org.jboss.forge.furnace.repositories.AddonRepository;
-import org.jboss.forge.furnace.util.Addons;
 import org.jboss.forge.furnace.util.ClassLoaders;
 
 /**
@@ -81,7 +80,7 @@ public final class AddonRunnable implements Runnable
                   for (AddonDependency dependency : addon.getDependencies())
                   {
                      if (dependency.getDependency().getStatus().isLoaded())
-                        Addons.waitUntilStarted(dependency.getDependency());
+                        lifecycleManager.awaitStarted(dependency.getDependency());
                   }
 
                   lifecycleProvider.postStartup(addon);
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jboss.forge.furnace.addons.Addon;
+
+/**
+ * Runs the start-up sequence of each {@link Addon}.
+ * <p>
+ * By default, start-up tasks run on a bounded pool of named threads, sized by the <code>furnace.start.threads</code>
+ * system property (defaults to the number of available processors.) Because an {@link Addon} blocks while waiting for
+ * its dependencies to start, a thread is temporarily added to the pool for every start-up task blocked in
+ * {@link #beginBlocking()}, so that dependencies queued behind their dependents can always run. If the
+ * <code>furnace.start.virtual_threads</code> system property is set to <code>true</code> and the running JDK supports
+ * virtual threads, each start-up task runs in its own virtual thread instead.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class AddonStartScheduler
+{
+   private static final Logger logger = Logger.getLogger(AddonStartScheduler.class.getName());
+
+   static final String THREADS_PROPERTY = "furnace.start.threads";
+   static final String VIRTUAL_THREADS_PROPERTY = "furnace.start.virtual_threads";
+
+   private final int threads;
+   private final ThreadPoolExecutor pool;
+   private final ExecutorService executor;
+
+   private final AtomicInteger queued = new AtomicInteger();
+   private final AtomicInteger running = new AtomicInteger();
+   private int blocked = 0;
+
+   public AddonStartScheduler()
+   {
+      this(Math.max(1, Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors())),
+               Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY));
+   }
+
+   public AddonStartScheduler(int threads, boolean virtualThreads)
+   {
+      this.threads = threads;
+      ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+      if (virtual != null)
+      {
+         this.pool = null;
+         this.executor = virtual;
+      }
+      else
+      {
+         this.pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                  new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+                  {
+                     private final AtomicInteger count = new AtomicInteger();
+
+                     @Override
+                     public Thread newThread(Runnable runnable)
+                     {
+                        return new Thread(runnable, "Furnace Addon Starter " + count.incrementAndGet());
+                     }
+                  });
+         this.pool.allowCoreThreadTimeOut(true);
+         this.executor = pool;
+      }
+   }
+
+   private static ExecutorService newVirtualThreadExecutor()
+   {
+      try
+      {
+         return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      }
+      catch (Exception e)
+      {
+         logger.log(Level.FINE, "Virtual threads are not supported by this JDK, using a bounded thread pool.", e);
+         return null;
+      }
+   }
+
+   /**
+    * Schedule the given start-up task.
+    */
+   public void execute(final Runnable task)
+   {
+      queued.incrementAndGet();
+      try
+      {
+         executor.execute(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               queued.decrementAndGet();
+               running.incrementAndGet();
+               try
+               {
+                  task.run();
+               }
+               finally
+               {
+                  running.decrementAndGet();
+               }
+            }
+         });
+      }
+      catch (RuntimeException e)
+      {
+         queued.decrementAndGet();
+         throw e;
+      }
+   }
+
+   /**
+    * Signal that the current start-up task is about to block until another start-up task has completed. Must be
+    * followed by {@link #endBlocking()}.
+    */
+   public void beginBlocking()
+   {
+      if (pool != null)
+      {
+         synchronized (this)
+         {
+            blocked++;
+            pool.setMaximumPoolSize(threads + blocked);
+            pool.setCorePoolSize(threads + blocked);
+         }
+      }
+   }
+
+   /**
+    * Signal that the current start-up task is no longer blocked.
+    */
+   public void endBlocking()
+   {
+      if (pool != null)
+      {
+         synchronized (this)
+         {
+            blocked--;
+            pool.setCorePoolSize(threads + blocked);
+            pool.setMaximumPoolSize(threads + blocked);
+         }
+      }
+   }
+
+   /**
+    * Return the number of start-up tasks waiting for a thread.
+    */
+   public int getQueueDepth()
+   {
+      return queued.get();
+   }
+
+   /**
+    * Return the number of start-up tasks currently running, including those blocked on other start-up tasks.
+    */
+   public int getRunningCount()
+   {
+      return running.get();
+   }
+
+   /**
+    * Return the number of start-up tasks currently blocked on other start-up tasks.
+    */
+   public synchronized int getBlockedCount()
+   {
+      return blocked;
+   }
+
+   /**
+    * Return the number of threads currently in the pool, or <code>-1</code> if virtual threads are in use.
+    */
+   public int getPoolSize()
+   {
+      return pool == null ? -1 : pool.getPoolSize();
+   }
+
+   public boolean isShutdown()
+   {
+      return executor.isShutdown();
+   }
+
+   /**
+    * Stop all running start-up tasks, and return the number of tasks that never started.
+    */
+   public int shutdownNow()
+   {
+      List<Runnable> waiting = executor.shutdownNow();
+      int result = waiting == null ? 0 : waiting.size();
+      queued.addAndGet(-result);
+      return result;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "AddonStartScheduler [queued=" + getQueueDepth() + ", running=" + getRunningCount() + ", blocked="
+               + getBlockedCount() + ", poolSize=" + getPoolSize() + "]";
+   }
+}
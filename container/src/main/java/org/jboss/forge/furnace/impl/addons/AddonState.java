@@ -44,6 +44,22 @@ public class AddonState
    {
    }
 
+   /**
+    * Create a copy of the given {@link AddonState}.
+    */
+   public AddonState(AddonState other)
+   {
+      Assert.notNull(other, "Addon state to copy must not be null.");
+      this.future = other.future;
+      this.dependencies = other.dependencies;
+      this.missingDependencies = other.missingDependencies;
+      this.repository = other.repository;
+      this.registry = other.registry;
+      this.eventManager = other.eventManager;
+      this.runnable = other.runnable;
+      this.loader = other.loader;
+   }
+
    public ClassLoader getClassLoader()
    {
       return loader;
@@ -1,5 +1,6 @@
 package org.jboss.forge.furnace.impl.addons;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,12 +11,13 @@ import java.util.concurrent.Future;
 import org.jboss.forge.furnace.addons.Addon;
 import org.jboss.forge.furnace.addons.AddonDependency;
 import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.addons.AddonStatus;
 import org.jboss.forge.furnace.addons.AddonView;
 import org.jboss.forge.furnace.event.EventManager;
+import org.jboss.forge.furnace.impl.LockManagerImpl;
 import org.jboss.forge.furnace.impl.graph.AddonVertex;
 import org.jboss.forge.furnace.impl.graph.MasterGraph;
 import org.jboss.forge.furnace.impl.modules.AddonModuleLoader;
-import org.jboss.forge.furnace.lock.LockManager;
 import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.repositories.AddonRepository;
 import org.jboss.forge.furnace.spi.ServiceRegistry;
@@ -23,12 +25,27 @@ import org.jboss.forge.furnace.util.Assert;
 
 public class AddonStateManager
 {
-   private LockManager lock;
-   private MasterGraph graph;
-   private Map<Addon, AddonState> states = new HashMap<Addon, AddonState>();
+   private final LockManagerImpl lock;
    private AddonModuleLoader loader;
 
-   public AddonStateManager(LockManager lock)
+   /*
+    * Readers never lock: the graph, states and indexes are published as immutable snapshots, and replaced by writers
+    * holding the write lock. Writes are additionally serialized on the snapshot lock, because tasks delegated by the
+    * write lock holder may write concurrently.
+    */
+   private final Object snapshotLock = new Object();
+   private volatile MasterGraph graph;
+   private volatile Map<Addon, AddonState> states = Collections.emptyMap();
+   private volatile AddonIndex index = AddonIndex.EMPTY;
+   private volatile AddonIndex pending;
+
+   /*
+    * Incremented and notified on every change that may affect the AddonStatus of any Addon.
+    */
+   private final Object statusMonitor = new Object();
+   private volatile long statusChanges = 0;
+
+   public AddonStateManager(LockManagerImpl lock)
    {
       this.lock = lock;
    }
@@ -80,65 +97,120 @@ public class AddonStateManager
 
    public Set<AddonView> getViewsOf(final Addon addon)
    {
-      return lock.performLocked(LockMode.READ, new Callable<Set<AddonView>>()
+      return getIndex().getViewsOf(addon);
+   }
+
+   /**
+    * Get the {@link Addon} instances of the current {@link MasterGraph} in the given {@link AddonView}.
+    */
+   public Set<Addon> getAddonsOf(AddonView view)
+   {
+      return getIndex().getAddonsOf(view);
+   }
+
+   /**
+    * Get the {@link Addon} of the current {@link MasterGraph} with the given {@link AddonId} in the given
+    * {@link AddonView}, or <code>null</code> if no such {@link Addon} has been assigned.
+    */
+   public Addon getAddon(AddonView view, AddonId id)
+   {
+      return getIndex().getAddon(view, id);
+   }
+
+   /*
+    * While the graph is being updated, the thread performing the update must see the vertices it has just assigned, so
+    * it reads the pending index.
+    */
+   private AddonIndex getIndex()
+   {
+      if (isUpdating())
       {
-         @Override
-         public Set<AddonView> call() throws Exception
-         {
-            Set<AddonView> result = new HashSet<AddonView>();
-            for (AddonVertex vertex : getCurrentGraph().getGraph().vertexSet())
-            {
-               if (addon.equals(vertex.getAddon()))
-               {
-                  result.addAll(vertex.getViews());
-                  break;
-               }
-            }
+         AddonIndex result = pending;
+         if (result != null)
             return result;
-         }
-      });
+      }
+      return index;
    }
 
-   private AddonState getState(final Addon addon)
+   private boolean isUpdating()
+   {
+      return lock.isWriteLockedByCurrentThread();
+   }
+
+   /**
+    * Index the {@link Addon} of the given {@link AddonVertex}, which has been added to, or assigned in the current
+    * {@link MasterGraph}. The change is visible to the thread updating the {@link MasterGraph} immediately, and to all
+    * other threads once {@link #publishIndex()} is called.
+    */
+   public void indexVertex(final AddonVertex vertex)
    {
-      return lock.performLocked(LockMode.READ, new Callable<AddonState>()
+      lock.performLocked(LockMode.WRITE, new Callable<Void>()
       {
          @Override
-         public AddonState call() throws Exception
+         public Void call() throws Exception
          {
-            AddonState result = states.get(addon);
-            if (result == null)
-               result = new AddonState();
-            return result;
+            if (pending == null)
+               pending = AddonIndex.of(getCurrentGraph());
+            else
+               pending.add(vertex);
+            return null;
          }
       });
    }
 
-   public void setState(final Addon addon, final AddonState state)
+   /**
+    * Publish the {@link Addon} and {@link AddonView} indexes of the current {@link MasterGraph} to lock-free readers.
+    * Must be called once the {@link Addon} of every {@link AddonVertex} in the current {@link MasterGraph} has been
+    * assigned.
+    */
+   public void publishIndex()
    {
       lock.performLocked(LockMode.WRITE, new Callable<Void>()
       {
          @Override
          public Void call() throws Exception
          {
-            states.put(addon, state);
+            index = pending != null ? pending : AddonIndex.of(getCurrentGraph());
+            pending = null;
+            statusChanged();
             return null;
          }
       });
    }
 
-   public MasterGraph getCurrentGraph()
+   private AddonState getState(final Addon addon)
+   {
+      AddonState result = states.get(addon);
+      if (result == null)
+         result = new AddonState();
+      return result;
+   }
+
+   public void setState(final Addon addon, final AddonState state)
    {
-      return lock.performLocked(LockMode.READ, new Callable<MasterGraph>()
+      lock.performLocked(LockMode.WRITE, new Callable<Void>()
       {
          @Override
-         public MasterGraph call() throws Exception
+         public Void call() throws Exception
          {
-            return graph != null ? graph : new MasterGraph();
+            synchronized (snapshotLock)
+            {
+               Map<Addon, AddonState> result = new HashMap<Addon, AddonState>(states);
+               result.put(addon, state);
+               states = Collections.unmodifiableMap(result);
+            }
+            statusChanged();
+            return null;
          }
       });
    }
 
+   public MasterGraph getCurrentGraph()
+   {
+      MasterGraph result = graph;
+      return result != null ? result : new MasterGraph();
+   }
+
    public void setCurrentGraph(final MasterGraph update)
    {
       lock.performLocked(LockMode.WRITE, new Callable<Void>()
@@ -147,6 +219,7 @@ public class AddonStateManager
          public Void call() throws Exception
          {
             graph = update;
+            pending = AddonIndex.of(update);
             return null;
          }
       });
@@ -222,7 +295,16 @@ public class AddonStateManager
          @Override
          public Void call() throws Exception
          {
-            states.remove(addon);
+            synchronized (snapshotLock)
+            {
+               if (states.containsKey(addon))
+               {
+                  Map<Addon, AddonState> result = new HashMap<Addon, AddonState>(states);
+                  result.remove(addon);
+                  states = Collections.unmodifiableMap(result);
+               }
+            }
+            statusChanged();
             return null;
          }
       });
@@ -241,8 +323,16 @@ public class AddonStateManager
          @Override
          public Void call() throws Exception
          {
-            getState(addon).setFuture(result);
-            getState(addon).setRunnable(runnable);
+            synchronized (snapshotLock)
+            {
+               AddonState state = copyState(addon);
+               if (state != null)
+               {
+                  state.setFuture(result);
+                  state.setRunnable(runnable);
+                  setState(addon, state);
+               }
+            }
             return null;
          }
       });
@@ -255,7 +345,15 @@ public class AddonStateManager
          @Override
          public Void call() throws Exception
          {
-            getState(addon).setEventManager(manager);
+            synchronized (snapshotLock)
+            {
+               AddonState state = copyState(addon);
+               if (state != null)
+               {
+                  state.setEventManager(manager);
+                  setState(addon, state);
+               }
+            }
             return null;
          }
       });
@@ -268,9 +366,96 @@ public class AddonStateManager
          @Override
          public Void call() throws Exception
          {
-            getState(addon).setServiceRegistry(registry);
+            synchronized (snapshotLock)
+            {
+               AddonState state = copyState(addon);
+               if (state != null)
+               {
+                  state.setServiceRegistry(registry);
+                  setState(addon, state);
+               }
+            }
             return null;
          }
       });
    }
+
+   /**
+    * Return a mutable copy of the published {@link AddonState} of the given {@link Addon}, or <code>null</code> if
+    * none has been published. Published {@link AddonState} instances are never modified.
+    */
+   private AddonState copyState(Addon addon)
+   {
+      AddonState state = states.get(addon);
+      return state == null ? null : new AddonState(state);
+   }
+
+   /**
+    * Get a number that changes whenever a change may have affected the {@link AddonStatus} of any {@link Addon}.
+    */
+   public long getStatusGeneration()
+   {
+      return statusChanges;
+   }
+
+   /**
+    * Wake all threads waiting in {@link #awaitStatus(Addon, boolean, long)} or
+    * {@link #awaitStatusChange(long, long)}. Must be called whenever a change may affect the {@link AddonStatus} of an
+    * {@link Addon}.
+    */
+   void statusChanged()
+   {
+      synchronized (statusMonitor)
+      {
+         statusChanges++;
+         statusMonitor.notifyAll();
+      }
+   }
+
+   /**
+    * Block until {@link AddonStatus#isStarted()} of the given {@link Addon} equals the given value, or the given
+    * timeout expires. A negative timeout waits indefinitely. Return <code>false</code> if the timeout expired.
+    */
+   public boolean awaitStatus(Addon addon, boolean started, long timeoutMillis) throws InterruptedException
+   {
+      long deadline = System.currentTimeMillis() + timeoutMillis;
+      while (true)
+      {
+         /*
+          * Never check the status while holding the monitor: doing so takes the read lock, which would deadlock with
+          * a thread signaling a change while holding the write lock.
+          */
+         long seen = statusChanges;
+         if (addon.getStatus().isStarted() == started)
+            return true;
+
+         if (!awaitStatusChange(seen, timeoutMillis < 0 ? -1 : Math.max(0, deadline - System.currentTimeMillis())))
+            return false;
+      }
+   }
+
+   /**
+    * Block until the value of {@link #getStatusGeneration()} differs from the given generation, or the given timeout
+    * expires. A negative timeout waits indefinitely. Return <code>false</code> if the timeout expired.
+    */
+   public boolean awaitStatusChange(long generation, long timeoutMillis) throws InterruptedException
+   {
+      long deadline = System.currentTimeMillis() + timeoutMillis;
+      synchronized (statusMonitor)
+      {
+         while (statusChanges == generation)
+         {
+            if (timeoutMillis < 0)
+               statusMonitor.wait();
+            else
+            {
+               long remaining = deadline - System.currentTimeMillis();
+               if (remaining <= 0)
+                  return false;
+               statusMonitor.wait(remaining);
+            }
+         }
+      }
+      return true;
+   }
 }
@@ -6,25 +6,17 @@
  */
 package org.jboss.forge.furnace.impl.addons;
 
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 
-import org.jboss.forge.furnace.addons.Addon;
-import org.jboss.forge.furnace.addons.AddonRegistry;
-import org.jboss.forge.furnace.addons.AddonStatus;
 import org.jboss.forge.furnace.exception.ContainerException;
-import org.jboss.forge.furnace.lock.LockManager;
-import org.jboss.forge.furnace.lock.LockMode;
+import org.jboss.forge.furnace.impl.addons.ServiceIndex.Resolution;
 import org.jboss.forge.furnace.services.Imported;
 import org.jboss.forge.furnace.spi.ExportedInstance;
-import org.jboss.forge.furnace.spi.ServiceRegistry;
 import org.jboss.forge.furnace.util.Assert;
 
 /**
@@ -35,23 +27,21 @@ public class ImportedImpl<T> implements Imported<T>
    private Map<T, ExportedInstance<T>> instanceMap = new ConcurrentHashMap<T, ExportedInstance<T>>(
             new WeakHashMap<T, ExportedInstance<T>>(new IdentityHashMap<T, ExportedInstance<T>>()));
 
-   private AddonRegistry addonRegistry;
-   private LockManager lock;
+   private final ServiceIndex index;
+   private volatile Resolution<T> resolution;
    private Class<T> type;
    private String typeName;
 
-   public ImportedImpl(AddonRegistry addonRegistry, LockManager lock, Class<T> type)
+   ImportedImpl(ServiceIndex index, Class<T> type)
    {
-      this.addonRegistry = addonRegistry;
-      this.lock = lock;
+      this.index = index;
       this.type = type;
       this.typeName = type.getName();
    }
 
-   public ImportedImpl(AddonRegistryImpl addonRegistry, LockManager lock, String typeName)
+   ImportedImpl(ServiceIndex index, String typeName)
    {
-      this.addonRegistry = addonRegistry;
-      this.lock = lock;
+      this.index = index;
       this.typeName = typeName;
    }
 
@@ -108,62 +98,26 @@ public class ImportedImpl<T> implements Imported<T>
 
    private ExportedInstance<T> getExportedInstance()
    {
-      return lock.performLocked(LockMode.READ, new Callable<ExportedInstance<T>>()
-      {
-         @Override
-         public ExportedInstance<T> call() throws Exception
-         {
-            ExportedInstance<T> result = null;
-
-            for (Addon addon : addonRegistry.getAddons())
-            {
-               if (AddonStatus.STARTED.equals(addon.getStatus()))
-               {
-                  ServiceRegistry serviceRegistry = addon.getServiceRegistry();
-                  if (type != null)
-                  {
-                     result = serviceRegistry.getExportedInstance(type);
-                  }
-                  else
-                  {
-                     result = serviceRegistry.getExportedInstance(typeName);
-                  }
-               }
-               if (result != null)
-                  break;
-            }
-
-            return result;
-         }
-      });
-
+      return getResolution().getExportedInstance();
    }
 
    private Set<ExportedInstance<T>> getExportedInstances()
    {
-      return lock.performLocked(LockMode.READ, new Callable<Set<ExportedInstance<T>>>()
-      {
-         @SuppressWarnings({ "unchecked", "rawtypes" })
-         @Override
-         public Set<ExportedInstance<T>> call() throws Exception
-         {
-            Set<ExportedInstance<T>> result = new HashSet<ExportedInstance<T>>();
-
-            for (Addon addon : addonRegistry.getAddons())
-            {
-               if (AddonStatus.STARTED.equals(addon.getStatus()))
-               {
-                  ServiceRegistry serviceRegistry = addon.getServiceRegistry();
-                  if (type != null)
-                     result.addAll(serviceRegistry.getExportedInstances(type));
-                  else
-                     result.addAll((Collection) serviceRegistry.getExportedInstances(typeName));
-               }
-            }
+      return getResolution().getExportedInstances();
+   }
 
-            return result;
-         }
-      });
+   /*
+    * The resolution is cached by this handle until an Addon of the registry starts or stops.
+    */
+   private Resolution<T> getResolution()
+   {
+      Resolution<T> result = resolution;
+      if (!index.isCurrent(result))
+      {
+         result = index.resolve(type, typeName);
+         resolution = result;
+      }
+      return result;
    }
 
    private class ImportedIteratorImpl implements Iterator<T>
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.impl.addons;
+
+/**
+ * Wakes a thread waiting in {@link #await(long, long)} as soon as an {@link AddonRepositoryImpl} records a change,
+ * coalescing bursts of changes into a single wake-up.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class RepositoryChangeNotifier
+{
+   /**
+    * The shortest interval, in milliseconds, returned by {@link #getPollInterval(long)}.
+    */
+   public static final long MIN_POLL_INTERVAL = 100;
+
+   private boolean changed = false;
+
+   /**
+    * Get the interval, in milliseconds, at which a thread waiting in {@link #await(long, long)} should wake up on its
+    * own to look for changes not signaled to this notifier, given the configured interval. Intervals shorter than
+    * {@link #MIN_POLL_INTERVAL}, including zero and negative intervals, are raised to it, so that the waiting thread
+    * never spins.
+    */
+   public static long getPollInterval(long configured)
+   {
+      return Math.max(MIN_POLL_INTERVAL, configured);
+   }
+
+   /**
+    * Signal that a change has occurred, waking any thread waiting in {@link #await(long, long)}.
+    */
+   public synchronized void changed()
+   {
+      changed = true;
+      notifyAll();
+   }
+
+   /**
+    * Wait until {@link #changed()} is called, or the given timeout elapses. Once a change has been signaled, continue
+    * waiting until no further change is signaled for the given quiet period, so that a burst of changes results in a
+    * single wake-up. Return <code>true</code> if any change was signaled.
+    */
+   public synchronized boolean await(long timeoutMillis, long quietPeriodMillis) throws InterruptedException
+   {
+      if (!changed && timeoutMillis > 0)
+         wait(timeoutMillis);
+
+      if (!changed)
+         return false;
+
+      long deadline = System.currentTimeMillis() + timeoutMillis;
+      while (changed && System.currentTimeMillis() < deadline)
+      {
+         changed = false;
+         wait(quietPeriodMillis);
+      }
+      changed = false;
+      return true;
+   }
+}
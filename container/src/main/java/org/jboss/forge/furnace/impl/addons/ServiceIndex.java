@@ -0,0 +1,238 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.spi.ExportedInstance;
+import org.jboss.forge.furnace.spi.ServiceRegistry;
+
+/**
+ * Indexes the {@link ExportedInstance} instances available from the started {@link Addon} instances of an
+ * {@link AddonView}, by requested service type or type name.
+ * <p>
+ * The index is updated incrementally through {@link #update(Addon)} whenever an {@link Addon} starts or stops, and
+ * through {@link #sync()} whenever the {@link Addon} instances of the {@link AddonView} may have changed. Each update
+ * publishes a new {@link Snapshot} of the started {@link Addon} instances without querying any
+ * {@link ServiceRegistry}. The next lookup of a service type resolved before the update re-queries only the
+ * {@link ServiceRegistry} of each {@link Addon} started since, and reuses all other results. Only the resolutions of
+ * the most recent {@link Snapshot} with any lookups are kept for reuse. Lookups never lock.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class ServiceIndex
+{
+   private final AddonView view;
+   private final AddonStateManager stateManager;
+
+   private volatile Snapshot current = new Snapshot(Collections.<Addon, ServiceRegistry> emptyMap(), null);
+
+   ServiceIndex(AddonView view, AddonStateManager stateManager)
+   {
+      this.view = view;
+      this.stateManager = stateManager;
+   }
+
+   /**
+    * Return <code>true</code> if the given {@link Resolution} is still valid.
+    */
+   boolean isCurrent(Resolution<?> resolution)
+   {
+      return resolution != null && resolution.snapshot == current;
+   }
+
+   /**
+    * Get the current {@link Resolution} of the given service {@link Class}, or of the given type name if the
+    * {@link Class} is <code>null</code>.
+    */
+   @SuppressWarnings("unchecked")
+   <T> Resolution<T> resolve(Class<T> type, String typeName)
+   {
+      Snapshot snapshot = current;
+      Object key = type != null ? type : typeName;
+
+      Resolution<T> result = (Resolution<T>) snapshot.resolutions.get(key);
+      if (result == null)
+      {
+         Map<Object, Resolution<?>> previous = snapshot.previous;
+         result = new Resolution<T>(snapshot, type, typeName, previous == null ? null
+                  : (Resolution<T>) previous.get(key));
+         Resolution<T> existing = (Resolution<T>) snapshot.resolutions.putIfAbsent(key, result);
+         if (existing != null)
+            result = existing;
+      }
+      return result;
+   }
+
+   /**
+    * Get the started {@link Addon} instances currently indexed, in the order they were indexed.
+    */
+   Set<Addon> getIndexedAddons()
+   {
+      return current.started.keySet();
+   }
+
+   /**
+    * Index or remove the given {@link Addon}, depending on whether it is started and belongs to the indexed
+    * {@link AddonView}. Must be called whenever the given {@link Addon} has started or stopped.
+    */
+   synchronized void update(Addon addon)
+   {
+      ServiceRegistry registry = null;
+      if (addon.getStatus().isStarted() && stateManager.getViewsOf(addon).contains(view))
+         registry = addon.getServiceRegistry();
+
+      Snapshot snapshot = current;
+      if (snapshot.started.get(addon) == registry)
+         return;
+
+      Map<Addon, ServiceRegistry> started = new LinkedHashMap<Addon, ServiceRegistry>(snapshot.started);
+      if (registry == null)
+         started.remove(addon);
+      else
+         started.put(addon, registry);
+
+      current = new Snapshot(Collections.unmodifiableMap(started),
+               snapshot.resolutions.isEmpty() ? snapshot.previous : snapshot.resolutions);
+
+      /*
+       * Only the current snapshot refers to previous resolutions, so that superseded snapshots are not retained.
+       */
+      snapshot.previous = null;
+   }
+
+   /**
+    * Update every {@link Addon} previously indexed, or currently in the indexed {@link AddonView}. Must be called
+    * whenever the {@link Addon} instances of the {@link AddonView} may have changed.
+    */
+   synchronized void sync()
+   {
+      Set<Addon> addons = new LinkedHashSet<Addon>(current.started.keySet());
+      addons.addAll(stateManager.getAddonsOf(view));
+      for (Addon addon : addons)
+      {
+         update(addon);
+      }
+   }
+
+   /**
+    * The started {@link Addon} instances of the indexed {@link AddonView} and their {@link ServiceRegistry}, the
+    * {@link Resolution} instances computed from them, and the previous {@link Resolution} instances to reuse.
+    */
+   private static class Snapshot
+   {
+      private final Map<Addon, ServiceRegistry> started;
+      private final ConcurrentMap<Object, Resolution<?>> resolutions = new ConcurrentHashMap<Object, Resolution<?>>();
+      private volatile Map<Object, Resolution<?>> previous;
+
+      public Snapshot(Map<Addon, ServiceRegistry> started, Map<Object, Resolution<?>> previous)
+      {
+         this.started = started;
+         this.previous = previous;
+      }
+   }
+
+   /**
+    * The {@link ExportedInstance} instances of a requested service type, as of a single {@link Snapshot}.
+    */
+   static final class Resolution<T>
+   {
+      private final Snapshot snapshot;
+      private final Class<T> type;
+      private final String typeName;
+
+      private final Map<Addon, Services<T>> services = new LinkedHashMap<Addon, Services<T>>();
+      private final Set<ExportedInstance<T>> instances;
+
+      private volatile boolean resolvedInstance = false;
+      private volatile ExportedInstance<T> instance;
+
+      private Resolution(Snapshot snapshot, Class<T> type, String typeName, Resolution<T> previous)
+      {
+         this.snapshot = snapshot;
+         this.type = type;
+         this.typeName = typeName;
+
+         Set<ExportedInstance<T>> result = new LinkedHashSet<ExportedInstance<T>>();
+         for (Entry<Addon, ServiceRegistry> entry : snapshot.started.entrySet())
+         {
+            ServiceRegistry serviceRegistry = entry.getValue();
+            Services<T> reused = previous == null ? null : previous.services.get(entry.getKey());
+            Services<T> addonServices = reused != null && reused.registry == serviceRegistry ? reused
+                     : new Services<T>(serviceRegistry, getExportedInstances(serviceRegistry));
+
+            services.put(entry.getKey(), addonServices);
+            result.addAll(addonServices.instances);
+         }
+         this.instances = Collections.unmodifiableSet(result);
+      }
+
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      private Set<ExportedInstance<T>> getExportedInstances(ServiceRegistry serviceRegistry)
+      {
+         if (type != null)
+            return serviceRegistry.getExportedInstances(type);
+         else
+            return (Set) serviceRegistry.getExportedInstances(typeName);
+      }
+
+      /**
+       * Get all {@link ExportedInstance} instances of the requested type.
+       */
+      Set<ExportedInstance<T>> getExportedInstances()
+      {
+         return instances;
+      }
+
+      /**
+       * Get the {@link ExportedInstance} of the requested type from the first {@link Addon} providing one, or
+       * <code>null</code> if none does.
+       */
+      ExportedInstance<T> getExportedInstance()
+      {
+         if (!resolvedInstance)
+         {
+            ExportedInstance<T> result = null;
+            for (Services<T> addonServices : services.values())
+            {
+               if (type != null)
+                  result = addonServices.registry.getExportedInstance(type);
+               else
+                  result = addonServices.registry.getExportedInstance(typeName);
+
+               if (result != null)
+                  break;
+            }
+            instance = result;
+            resolvedInstance = true;
+         }
+         return instance;
+      }
+   }
+
+   private static class Services<T>
+   {
+      private final ServiceRegistry registry;
+      private final Collection<ExportedInstance<T>> instances;
+
+      public Services(ServiceRegistry registry, Collection<ExportedInstance<T>> instances)
+      {
+         this.registry = registry;
+         this.instances = instances;
+      }
+   }
+}
@@ -1,8 +1,8 @@
 package org.jboss.forge.furnace.impl.addons;
 
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.forge.furnace.Furnace;
@@ -16,21 +16,21 @@ public class StartEnabledAddonCallable implements Callable<Void>
    private Furnace furnace;
    private AddonLifecycleManager lifecycleManager;
    private AddonStateManager stateManager;
-   private ExecutorService executor;
+   private AddonStartScheduler scheduler;
    private AtomicInteger starting;
    private Addon addon;
 
    public StartEnabledAddonCallable(Furnace furnace,
             AddonLifecycleManager lifecycleManager,
             AddonStateManager stateManager,
-            ExecutorService executor,
+            AddonStartScheduler scheduler,
             AtomicInteger starting,
             Addon toStart)
    {
       this.furnace = furnace;
       this.lifecycleManager = lifecycleManager;
       this.stateManager = stateManager;
-      this.executor = executor;
+      this.scheduler = scheduler;
       this.starting = starting;
       this.addon = toStart;
    }
@@ -40,7 +40,7 @@ public class StartEnabledAddonCallable implements Callable<Void>
    {
       if (stateManager.canBeStarted(addon))
       {
-         if (executor.isShutdown())
+         if (scheduler.isShutdown())
          {
             throw new IllegalStateException("Cannot start additional addons once Shutdown has been initiated.");
          }
@@ -50,8 +50,18 @@ public class StartEnabledAddonCallable implements Callable<Void>
          {
             starting.incrementAndGet();
             AddonRunnable runnable = new AddonRunnable(furnace, lifecycleManager, stateManager, addon);
-            result = executor.submit(runnable, null);
+            FutureTask<Void> task = new FutureTask<Void>(runnable, null)
+            {
+               @Override
+               protected void done()
+               {
+                  lifecycleManager.addonStatusChanged(addon);
+                  stateManager.statusChanged();
+               }
+            };
+            result = task;
             stateManager.setHandles(addon, result, runnable);
+            scheduler.execute(task);
          }
       }
       return null;
@@ -1,10 +1,14 @@
 package org.jboss.forge.furnace.impl.graph;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.jboss.forge.furnace.addons.AddonId;
@@ -12,41 +16,175 @@ import org.jboss.forge.furnace.impl.addons.AddonRepositoryImpl;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
 import org.jboss.forge.furnace.repositories.AddonRepository;
 import org.jboss.forge.furnace.versions.EmptyVersion;
+import org.jboss.forge.furnace.versions.SingleVersion;
+import org.jboss.forge.furnace.versions.Version;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.alg.CycleDetector;
 import org.jgrapht.graph.SimpleDirectedGraph;
 
+/**
+ * The dependency graph of all enabled addons in a set of {@link AddonRepository} instances.
+ * <p>
+ * Calling {@link #update()} patches the graph in place when the repositories change. Only addons that were enabled or
+ * disabled, whose dependencies changed, or that depend on an addon with the same name as one of those, are re-linked.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
 public class CompleteAddonGraph extends AddonGraph<CompleteAddonGraph>
 {
    DirectedGraph<AddonVertex, AddonDependencyEdge> graph = new SimpleDirectedGraph<AddonVertex, AddonDependencyEdge>(
             AddonDependencyEdge.class);
 
+   private final Collection<AddonRepository> repositories;
+   private final Map<AddonRepository, Integer> repositoryVersions = new HashMap<AddonRepository, Integer>();
+
+   private final Map<AddonId, Set<AddonDependencyEntry>> dependencyMap =
+            new LinkedHashMap<AddonId, Set<AddonDependencyEntry>>();
+   private final Map<String, Set<AddonId>> enabledByName = new HashMap<String, Set<AddonId>>();
+   private final Map<String, Set<AddonId>> dependentsByName = new HashMap<String, Set<AddonId>>();
+   private final Map<String, List<AddonVertex>> verticesByName = new HashMap<String, List<AddonVertex>>();
+
    public CompleteAddonGraph(Collection<AddonRepository> repositories)
    {
+      this.repositories = repositories;
+      update();
+   }
+
+   /**
+    * Bring this graph up to date with the addons currently enabled in its {@link AddonRepository} instances. Return
+    * <code>true</code> if the graph changed.
+    */
+   public boolean update()
+   {
+      Set<AddonRepository> changedRepositories = new HashSet<AddonRepository>();
+      for (AddonRepository repository : repositories)
+      {
+         Integer version = repository.getVersion();
+         if (!version.equals(repositoryVersions.put(repository, version)))
+            changedRepositories.add(repository);
+      }
+
       Set<AddonId> enabled = getAllEnabledAddonsInAllRepositories(repositories);
-      Map<AddonId, Set<AddonDependencyEntry>> dependencyMap = new LinkedHashMap<AddonId, Set<AddonDependencyEntry>>();
+      Set<AddonId> added = new LinkedHashSet<AddonId>();
+      Set<AddonId> removed = new LinkedHashSet<AddonId>();
+      Set<AddonId> relink = new LinkedHashSet<AddonId>();
+
+      for (AddonId id : dependencyMap.keySet())
+      {
+         if (!enabled.contains(id))
+            removed.add(id);
+      }
+
       for (AddonId id : enabled)
       {
-         for (AddonRepository repository : repositories)
+         Set<AddonDependencyEntry> previous = dependencyMap.get(id);
+         if (previous == null)
+         {
+            added.add(id);
+         }
+         else if (isEnabledInAny(changedRepositories, id))
+         {
+            Set<AddonDependencyEntry> dependencies = getDependencies(id);
+            if (!isSameDependencies(previous, dependencies))
+            {
+               unregister(id);
+               register(id, dependencies);
+               relink.add(id);
+            }
+         }
+      }
+
+      if (added.isEmpty() && removed.isEmpty() && relink.isEmpty())
+         return false;
+
+      for (AddonId id : removed)
+      {
+         unregister(id);
+      }
+
+      for (AddonId id : added)
+      {
+         register(id, getDependencies(id));
+         getOrCreateVertex(id.getName(), id.getVersion());
+         relink.add(id);
+      }
+
+      Set<String> changedNames = new HashSet<String>();
+      for (AddonId id : added)
+      {
+         changedNames.add(id.getName());
+      }
+      for (AddonId id : removed)
+      {
+         changedNames.add(id.getName());
+      }
+      for (String name : changedNames)
+      {
+         Set<AddonId> dependents = dependentsByName.get(name);
+         if (dependents != null)
+            relink.addAll(dependents);
+      }
+
+      Set<AddonVertex> orphanCandidates = new HashSet<AddonVertex>();
+      for (AddonId id : relink)
+      {
+         AddonVertex vertex = getVertex(id.getName(), id.getVersion());
+         for (AddonDependencyEdge edge : new ArrayList<AddonDependencyEdge>(graph.outgoingEdgesOf(vertex)))
          {
-            if (repository.isEnabled(id))
+            AddonVertex target = graph.getEdgeTarget(edge);
+            if (target.getVersion() instanceof EmptyVersion)
+               orphanCandidates.add(target);
+            graph.removeEdge(edge);
+         }
+      }
+
+      for (AddonId id : removed)
+      {
+         AddonVertex vertex = getVertex(id.getName(), id.getVersion());
+         if (vertex != null && !isEnabledVertex(vertex))
+         {
+            for (AddonDependencyEdge edge : graph.outgoingEdgesOf(vertex))
             {
-               Set<AddonDependencyEntry> dependencies = repository.getAddonDependencies(id);
-               dependencyMap.put(id, dependencies);
+               AddonVertex target = graph.getEdgeTarget(edge);
+               if (target.getVersion() instanceof EmptyVersion)
+                  orphanCandidates.add(target);
             }
+            removeLocalVertex(vertex);
          }
       }
 
-      for (Entry<AddonId, Set<AddonDependencyEntry>> entry : dependencyMap.entrySet())
+      for (AddonId id : relink)
       {
-         AddonVertex vertex = getOrCreateVertex(entry.getKey().getName(), entry.getKey().getVersion());
+         link(id);
+      }
 
-         for (AddonDependencyEntry dependency : entry.getValue())
+      for (AddonVertex vertex : orphanCandidates)
+      {
+         if (graph.containsVertex(vertex) && graph.inDegreeOf(vertex) == 0)
+            graph.removeVertex(vertex);
+      }
+
+      CycleDetector<AddonVertex, AddonDependencyEdge> detector = new CycleDetector<AddonVertex, AddonDependencyEdge>(
+               graph);
+      if (detector.detectCycles())
+      {
+         throw new IllegalStateException("Cycle detected in Addon graph: " + detector.findCycles());
+      }
+      return true;
+   }
+
+   private void link(AddonId addon)
+   {
+      AddonVertex vertex = getVertex(addon.getName(), addon.getVersion());
+      for (AddonDependencyEntry dependency : dependencyMap.get(addon))
+      {
+         boolean satisfied = false;
+         Set<AddonId> candidates = enabledByName.get(dependency.getName());
+         if (candidates != null)
          {
-            boolean satisfied = false;
-            for (AddonId id : enabled)
+            for (AddonId id : candidates)
             {
-               if (dependency.getName().equals(id.getName()) && dependency.getVersionRange().includes(id.getVersion()))
+               if (dependency.getVersionRange().includes(id.getVersion()))
                {
                   AddonVertex dependencyVertex = getOrCreateVertex(id.getName(), id.getVersion());
                   graph.addEdge(vertex, dependencyVertex, new AddonDependencyEdge(dependency.getVersionRange(),
@@ -54,22 +192,118 @@ public class CompleteAddonGraph extends AddonGraph<CompleteAddonGraph>
                   satisfied = true;
                }
             }
+         }
 
-            if (!satisfied && !dependency.isOptional())
-            {
-               AddonVertex missingVertex = new AddonVertex(dependency.getName(), EmptyVersion.getInstance());
-               graph.addVertex(missingVertex);
-               graph.addEdge(vertex, missingVertex,
-                        new AddonDependencyEdge(dependency.getVersionRange(), dependency.isExported()));
-            }
+         if (!satisfied && !dependency.isOptional())
+         {
+            AddonVertex missingVertex = new AddonVertex(dependency.getName(), EmptyVersion.getInstance());
+            graph.addVertex(missingVertex);
+            graph.addEdge(vertex, missingVertex,
+                     new AddonDependencyEdge(dependency.getVersionRange(), dependency.isExported()));
          }
       }
+   }
 
-      CycleDetector<AddonVertex, AddonDependencyEdge> detector = new CycleDetector<AddonVertex, AddonDependencyEdge>(
-               graph);
-      if (detector.detectCycles())
+   private void register(AddonId id, Set<AddonDependencyEntry> dependencies)
+   {
+      dependencyMap.put(id, dependencies);
+      getOrCreate(enabledByName, id.getName()).add(id);
+      for (AddonDependencyEntry dependency : dependencies)
       {
-         throw new IllegalStateException("Cycle detected in Addon graph: " + detector.findCycles());
+         getOrCreate(dependentsByName, dependency.getName()).add(id);
+      }
+   }
+
+   private void unregister(AddonId id)
+   {
+      Set<AddonDependencyEntry> dependencies = dependencyMap.remove(id);
+      remove(enabledByName, id.getName(), id);
+      if (dependencies != null)
+      {
+         for (AddonDependencyEntry dependency : dependencies)
+         {
+            remove(dependentsByName, dependency.getName(), id);
+         }
+      }
+   }
+
+   private boolean isEnabledVertex(AddonVertex vertex)
+   {
+      Set<AddonId> ids = enabledByName.get(vertex.getName());
+      if (ids != null)
+      {
+         for (AddonId id : ids)
+         {
+            if (getVertex(id.getName(), id.getVersion()) == vertex)
+               return true;
+         }
+      }
+      return false;
+   }
+
+   private Set<AddonDependencyEntry> getDependencies(AddonId id)
+   {
+      Set<AddonDependencyEntry> result = Collections.emptySet();
+      for (AddonRepository repository : repositories)
+      {
+         if (repository.isEnabled(id))
+         {
+            result = repository.getAddonDependencies(id);
+         }
+      }
+      return result;
+   }
+
+   private static boolean isEnabledInAny(Set<AddonRepository> repositories, AddonId id)
+   {
+      for (AddonRepository repository : repositories)
+      {
+         if (repository.isEnabled(id))
+            return true;
+      }
+      return false;
+   }
+
+   /*
+    * AddonDependencyEntry equality only considers the dependency name.
+    */
+   private static boolean isSameDependencies(Set<AddonDependencyEntry> left, Set<AddonDependencyEntry> right)
+   {
+      if (left.size() != right.size())
+         return false;
+
+      Set<String> descriptions = new HashSet<String>();
+      for (AddonDependencyEntry entry : left)
+      {
+         descriptions.add(entry.toString());
+      }
+      for (AddonDependencyEntry entry : right)
+      {
+         if (!descriptions.contains(entry.toString()))
+            return false;
+      }
+      return true;
+   }
+
+   private static <K, V> Set<V> getOrCreate(Map<K, Set<V>> map, K key)
+   {
+      Set<V> result = map.get(key);
+      if (result == null)
+      {
+         result = new LinkedHashSet<V>();
+         map.put(key, result);
+      }
+      return result;
+   }
+
+   private static <K, V> void remove(Map<K, Set<V>> map, K key, V value)
+   {
+      Set<V> values = map.get(key);
+      if (values != null)
+      {
+         values.remove(value);
+         if (values.isEmpty())
+            map.remove(key);
       }
    }
 
@@ -86,6 +320,47 @@ public class CompleteAddonGraph extends AddonGraph<CompleteAddonGraph>
       return result;
    }
 
+   @Override
+   protected AddonVertex getVertex(String name, Version version)
+   {
+      List<AddonVertex> candidates = verticesByName.get(name);
+      if (candidates != null)
+      {
+         SingleVersion expected = new SingleVersion(version.toString());
+         for (AddonVertex vertex : candidates)
+         {
+            if (expected.compareTo(new SingleVersion(vertex.getVersion().toString())) == 0)
+               return vertex;
+         }
+      }
+      return null;
+   }
+
+   @Override
+   protected void addLocalVertex(AddonVertex vertex)
+   {
+      super.addLocalVertex(vertex);
+      List<AddonVertex> candidates = verticesByName.get(vertex.getName());
+      if (candidates == null)
+      {
+         candidates = new ArrayList<AddonVertex>(1);
+         verticesByName.put(vertex.getName(), candidates);
+      }
+      candidates.add(vertex);
+   }
+
+   private void removeLocalVertex(AddonVertex vertex)
+   {
+      graph.removeVertex(vertex);
+      List<AddonVertex> candidates = verticesByName.get(vertex.getName());
+      if (candidates != null)
+      {
+         candidates.remove(vertex);
+         if (candidates.isEmpty())
+            verticesByName.remove(vertex.getName());
+      }
+   }
+
    @Override
    public DirectedGraph<AddonVertex, AddonDependencyEdge> getGraph()
    {
@@ -3,7 +3,12 @@ package org.jboss.forge.furnace.impl.graph;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.jboss.forge.furnace.addons.AddonView;
@@ -23,6 +28,17 @@ public class MasterGraph
    private DirectedGraph<AddonVertex, AddonDependencyEdge> graph = new SimpleDirectedGraph<AddonVertex, AddonDependencyEdge>(
             AddonDependencyEdge.class);
 
+   /*
+    * Vertices by name, then by normalized version. Kept in sync by addVertex(), replaceVertex() and removeVertex().
+    */
+   private final Map<String, Map<SingleVersion, List<AddonVertex>>> vertices =
+            new HashMap<String, Map<SingleVersion, List<AddonVertex>>>();
+
+   /*
+    * Results of isSubtreeEquivalent(), only kept while a merge is in progress, and cleared whenever this graph changes.
+    */
+   private Map<EquivalenceKey, Boolean> equivalence;
+
    public DirectedGraph<AddonVertex, AddonDependencyEdge> getGraph()
    {
       return graph;
@@ -33,29 +49,37 @@ public class MasterGraph
       if (other.getGraph().vertexSet().isEmpty())
          return;
 
-      if (graph.vertexSet().isEmpty())
+      equivalence = new HashMap<EquivalenceKey, Boolean>();
+      try
       {
-         for (AddonVertex vertex : other.getGraph().vertexSet())
+         if (graph.vertexSet().isEmpty())
          {
-            mergeVertex(other, vertex);
+            for (AddonVertex vertex : other.getGraph().vertexSet())
+            {
+               mergeVertex(other, vertex);
+            }
          }
-      }
-      else
-      {
-         DepthFirstIterator<AddonVertex, AddonDependencyEdge> iterator = new DepthFirstIterator<AddonVertex, AddonDependencyEdge>(
-                  other.getGraph());
-
-         iterator.addTraversalListener(new TraversalListenerAdapter<AddonVertex, AddonDependencyEdge>()
+         else
          {
-            @Override
-            public void vertexTraversed(VertexTraversalEvent<AddonVertex> event)
+            DepthFirstIterator<AddonVertex, AddonDependencyEdge> iterator = new DepthFirstIterator<AddonVertex, AddonDependencyEdge>(
+                     other.getGraph());
+
+            iterator.addTraversalListener(new TraversalListenerAdapter<AddonVertex, AddonDependencyEdge>()
             {
-               mergeVertex(other, event.getVertex());
-            };
-         });
+               @Override
+               public void vertexTraversed(VertexTraversalEvent<AddonVertex> event)
+               {
+                  mergeVertex(other, event.getVertex());
+               };
+            });
 
-         while (iterator.hasNext())
-            iterator.next();
+            while (iterator.hasNext())
+               iterator.next();
+         }
+      }
+      finally
+      {
+         equivalence = null;
       }
    }
 
@@ -67,7 +91,7 @@ public class MasterGraph
       if (localVertices.isEmpty())
       {
          result = new AddonVertex(otherVertex, view);
-         graph.addVertex(result);
+         addVertex(result);
          copySubtree(result, other, otherVertex);
       }
       else
@@ -93,7 +117,7 @@ public class MasterGraph
          if (!exists)
          {
             result = new AddonVertex(otherVertex, view);
-            graph.addVertex(result);
+            addVertex(result);
             copySubtree(result, other, otherVertex);
          }
       }
@@ -103,16 +127,28 @@ public class MasterGraph
    public Set<AddonVertex> getVertices(String name, Version version)
    {
       Set<AddonVertex> result = new HashSet<AddonVertex>();
-      for (AddonVertex vertex : getGraph().vertexSet())
-      {
-         String vertexName = vertex.getName();
-         // FIXME some weird CLAC javassist issue requiring this unwrapping?
-         Version vertexVersion = new SingleVersion(vertex.getVersion().toString());
-         if (vertexName.equals(name)
-                  && new SingleVersion(version.toString())
-                           .compareTo(new SingleVersion(vertexVersion.toString())) == 0)
+      Map<SingleVersion, List<AddonVertex>> versions = vertices.get(name);
+      if (versions != null)
+      {
+         List<AddonVertex> candidates = versions.get(normalize(version));
+         if (candidates != null)
+            result.addAll(candidates);
+      }
+      return result;
+   }
+
+   /**
+    * Get all vertices with the given name, regardless of version.
+    */
+   public Set<AddonVertex> getVertices(String name)
+   {
+      Set<AddonVertex> result = new HashSet<AddonVertex>();
+      Map<SingleVersion, List<AddonVertex>> versions = vertices.get(name);
+      if (versions != null)
+      {
+         for (List<AddonVertex> candidates : versions.values())
          {
-            result.add(vertex);
+            result.addAll(candidates);
          }
       }
       return result;
@@ -120,6 +156,30 @@ public class MasterGraph
 
    public boolean isSubtreeEquivalent(AddonVertex localVertex,
             DirectedGraph<AddonVertex, AddonDependencyEdge> otherGraph, AddonVertex otherVertex)
+   {
+      Map<EquivalenceKey, Boolean> cache = equivalence;
+      if (cache == null)
+         cache = new HashMap<EquivalenceKey, Boolean>();
+      return isSubtreeEquivalent(localVertex, otherGraph, otherVertex, cache);
+   }
+
+   private boolean isSubtreeEquivalent(AddonVertex localVertex,
+            DirectedGraph<AddonVertex, AddonDependencyEdge> otherGraph, AddonVertex otherVertex,
+            Map<EquivalenceKey, Boolean> cache)
+   {
+      EquivalenceKey key = new EquivalenceKey(localVertex, otherGraph, otherVertex);
+      Boolean cached = cache.get(key);
+      if (cached == null)
+      {
+         cached = computeSubtreeEquivalent(localVertex, otherGraph, otherVertex, cache);
+         cache.put(key, cached);
+      }
+      return cached;
+   }
+
+   private boolean computeSubtreeEquivalent(AddonVertex localVertex,
+            DirectedGraph<AddonVertex, AddonDependencyEdge> otherGraph, AddonVertex otherVertex,
+            Map<EquivalenceKey, Boolean> cache)
    {
       Set<AddonDependencyEdge> otherOutgoing = otherGraph.outgoingEdgesOf(otherVertex);
       Set<AddonDependencyEdge> localOutgoing = graph.outgoingEdgesOf(localVertex);
@@ -137,7 +197,7 @@ public class MasterGraph
                for (AddonVertex candidate : localCandidates)
                {
                   AddonDependencyEdge localEdge = graph.getEdge(localVertex, candidate);
-                  if (localEdge != null && isSubtreeEquivalent(candidate, otherGraph, otherTarget))
+                  if (localEdge != null && isSubtreeEquivalent(candidate, otherGraph, otherTarget, cache))
                   {
                      found = true;
                      break;
@@ -153,26 +213,95 @@ public class MasterGraph
       return false;
    }
 
+   /**
+    * Add the given vertex to this graph.
+    */
+   public boolean addVertex(AddonVertex vertex)
+   {
+      boolean added = graph.addVertex(vertex);
+      if (added)
+      {
+         changed();
+         Map<SingleVersion, List<AddonVertex>> versions = vertices.get(vertex.getName());
+         if (versions == null)
+         {
+            versions = new LinkedHashMap<SingleVersion, List<AddonVertex>>();
+            vertices.put(vertex.getName(), versions);
+         }
+         SingleVersion version = normalize(vertex.getVersion());
+         List<AddonVertex> candidates = versions.get(version);
+         if (candidates == null)
+         {
+            candidates = new ArrayList<AddonVertex>(1);
+            versions.put(version, candidates);
+         }
+         candidates.add(vertex);
+      }
+      return added;
+   }
+
+   private void removeVertex(AddonVertex vertex)
+   {
+      if (graph.removeVertex(vertex))
+      {
+         changed();
+         Map<SingleVersion, List<AddonVertex>> versions = vertices.get(vertex.getName());
+         if (versions != null)
+         {
+            SingleVersion version = normalize(vertex.getVersion());
+            List<AddonVertex> candidates = versions.get(version);
+            if (candidates != null)
+            {
+               candidates.remove(vertex);
+               if (candidates.isEmpty())
+                  versions.remove(version);
+            }
+            if (versions.isEmpty())
+               vertices.remove(vertex.getName());
+         }
+      }
+   }
+
+   private void addEdge(AddonVertex source, AddonVertex target, AddonDependencyEdge edge)
+   {
+      graph.addEdge(source, target, edge);
+      changed();
+   }
+
+   private void changed()
+   {
+      if (equivalence != null)
+         equivalence.clear();
+   }
+
+   /*
+    * FIXME some weird CLAC javassist issue requiring this unwrapping?
+    */
+   private static SingleVersion normalize(Version version)
+   {
+      return new SingleVersion(version.toString());
+   }
+
    private void replaceVertex(AddonVertex original, AddonVertex replacement)
    {
       Set<AddonDependencyEdge> incoming = graph.incomingEdgesOf(original);
       Set<AddonDependencyEdge> outgoing = graph.outgoingEdgesOf(original);
 
-      graph.addVertex(replacement);
+      addVertex(replacement);
 
       for (AddonDependencyEdge edge : incoming)
       {
-         graph.addEdge(graph.getEdgeSource(edge), replacement,
+         addEdge(graph.getEdgeSource(edge), replacement,
                   new AddonDependencyEdge(edge.getVersionRange(), edge.isExported()));
       }
 
       for (AddonDependencyEdge edge : outgoing)
       {
-         graph.addEdge(replacement, graph.getEdgeTarget(edge),
+         addEdge(replacement, graph.getEdgeTarget(edge),
                   new AddonDependencyEdge(edge.getVersionRange(), edge.isExported()));
       }
 
-      graph.removeVertex(original);
+      removeVertex(original);
    }
 
    private void copySubtree(AddonVertex localVertex, OptimizedAddonGraph other, AddonVertex vertex)
@@ -182,7 +311,7 @@ public class MasterGraph
       {
          AddonVertex target = other.getGraph().getEdgeTarget(edge);
          AddonVertex localTarget = mergeVertex(other, target);
-         graph.addEdge(localVertex, localTarget, new AddonDependencyEdge(edge.getVersionRange(), edge.isExported()));
+         addEdge(localVertex, localTarget, new AddonDependencyEdge(edge.getVersionRange(), edge.isExported()));
       }
    }
 
@@ -201,6 +330,43 @@ public class MasterGraph
       return builder.toString();
    }
 
+   private static class EquivalenceKey
+   {
+      private final AddonVertex localVertex;
+      private final Object otherGraph;
+      private final AddonVertex otherVertex;
+
+      public EquivalenceKey(AddonVertex localVertex, Object otherGraph, AddonVertex otherVertex)
+      {
+         this.localVertex = localVertex;
+         this.otherGraph = otherGraph;
+         this.otherVertex = otherVertex;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         final int prime = 31;
+         int result = 1;
+         result = prime * result + System.identityHashCode(localVertex);
+         result = prime * result + System.identityHashCode(otherGraph);
+         result = prime * result + System.identityHashCode(otherVertex);
+         return result;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof EquivalenceKey))
+            return false;
+         EquivalenceKey other = (EquivalenceKey) obj;
+         return localVertex == other.localVertex && otherGraph == other.otherGraph
+                  && otherVertex == other.otherVertex;
+      }
+   }
+
    public void toDOT(File file)
    {
       FileWriter fw = null;
@@ -1,11 +1,21 @@
 package org.jboss.forge.furnace.impl.graph;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.jboss.forge.furnace.addons.Addon;
 import org.jboss.forge.furnace.addons.AddonId;
 import org.jboss.forge.furnace.addons.AddonView;
 import org.jboss.forge.furnace.impl.addons.AddonLifecycleManager;
+import org.jboss.forge.furnace.impl.addons.AddonStateManager;
+import org.jgrapht.DirectedGraph;
 import org.jgrapht.event.TraversalListenerAdapter;
 import org.jgrapht.event.VertexTraversalEvent;
 import org.jgrapht.traverse.BreadthFirstIterator;
@@ -13,14 +23,18 @@ import org.jgrapht.traverse.DepthFirstIterator;
 
 public class MasterGraphChangeHandler
 {
+   private static final Logger logger = Logger.getLogger(MasterGraphChangeHandler.class.getName());
+
    private AddonLifecycleManager lifecycleManager;
+   private AddonStateManager stateManager;
    private MasterGraph lastMasterGraph;
    private MasterGraph graph;
 
-   public MasterGraphChangeHandler(AddonLifecycleManager lifefycleManager,
+   public MasterGraphChangeHandler(AddonLifecycleManager lifefycleManager, AddonStateManager stateManager,
             MasterGraph currentGraph, MasterGraph graph)
    {
       this.lifecycleManager = lifefycleManager;
+      this.stateManager = stateManager;
       this.lastMasterGraph = currentGraph;
       this.graph = graph;
    }
@@ -28,6 +42,7 @@ public class MasterGraphChangeHandler
    public void hotSwapChanges()
    {
       initGraph();
+      stateManager.publishIndex();
       markDirty();
       markRemovedDirty();
       stopDirty();
@@ -48,18 +63,15 @@ public class MasterGraphChangeHandler
          for (AddonVertex last : lastMasterGraph.getGraph().vertexSet())
          {
             boolean found = false;
-            Set<AddonVertex> vertices = graph.getGraph().vertexSet();
+            Set<AddonVertex> vertices = graph.getVertices(last.getName());
             for (AddonVertex vertex : vertices)
             {
-               if (last.getName().equals(vertex.getName()))
+               for (AddonView view : vertex.getViews())
                {
-                  for (AddonView view : vertex.getViews())
+                  if (last.getViews().contains(view))
                   {
-                     if (last.getViews().contains(view))
-                     {
-                        found = true;
-                        break;
-                     }
+                     found = true;
+                     break;
                   }
                }
 
@@ -69,7 +81,8 @@ public class MasterGraphChangeHandler
 
             if (!found && !last.getAddon().getStatus().isMissing())
             {
-               graph.getGraph().addVertex(last);
+               graph.addVertex(last);
+               stateManager.indexVertex(last);
                last.setDirty(true);
             }
          }
@@ -91,7 +104,7 @@ public class MasterGraphChangeHandler
                Addon addon = null;
                if (lastMasterGraph != null)
                {
-                  for (AddonVertex last : lastMasterGraph.getGraph().vertexSet())
+                  for (AddonVertex last : lastMasterGraph.getVertices(vertex.getName(), vertex.getVersion()))
                   {
                      if (last.getAddon().getId().equals(addonId) && last.getViews().contains(view))
                      {
@@ -102,6 +115,7 @@ public class MasterGraphChangeHandler
                }
 
                vertex.setAddon(addon);
+               stateManager.indexVertex(vertex);
             }
          };
       });
@@ -130,6 +144,7 @@ public class MasterGraphChangeHandler
                   addon = lifecycleManager.getAddon(view, addonId);
 
                vertex.setAddon(addon);
+               stateManager.indexVertex(vertex);
             }
          };
       });
@@ -277,22 +292,77 @@ public class MasterGraphChangeHandler
 
    private void loadAddons()
    {
-      DepthFirstIterator<AddonVertex, AddonDependencyEdge> iterator = new DepthFirstIterator<AddonVertex, AddonDependencyEdge>(
-               graph.getGraph());
-
-      iterator.addTraversalListener(new TraversalListenerAdapter<AddonVertex, AddonDependencyEdge>()
+      List<Set<AddonVertex>> waves = getLoadWaves(graph.getGraph());
+      for (int i = 0; i < waves.size(); i++)
       {
-         @Override
-         public void vertexFinished(VertexTraversalEvent<AddonVertex> event)
+         Set<Addon> addons = new LinkedHashSet<Addon>();
+         for (AddonVertex vertex : waves.get(i))
          {
-            Addon addon = event.getVertex().getAddon();
+            Addon addon = vertex.getAddon();
             if (addon.getStatus().isMissing())
-               lifecycleManager.loadAddon(addon);
-         };
-      });
+               addons.add(addon);
+         }
 
-      while (iterator.hasNext())
-         iterator.next();
+         if (!addons.isEmpty())
+         {
+            long start = System.currentTimeMillis();
+            lifecycleManager.loadAddons(addons);
+            logger.log(Level.FINE, "Loaded wave [" + (i + 1) + "/" + waves.size() + "] of [" + addons.size()
+                     + "] addons in [" + (System.currentTimeMillis() - start) + "ms]");
+         }
+      }
+   }
+
+   /**
+    * Partition the graph into waves, each containing only vertices whose dependencies are all in previous waves.
+    * Vertices of the same wave do not depend on each other, and may be loaded concurrently. Any vertices left over
+    * because of a dependency cycle are returned one per wave, so that they are loaded sequentially.
+    */
+   public static List<Set<AddonVertex>> getLoadWaves(DirectedGraph<AddonVertex, AddonDependencyEdge> g)
+   {
+      List<Set<AddonVertex>> result = new ArrayList<Set<AddonVertex>>();
+
+      Map<AddonVertex, Integer> remaining = new HashMap<AddonVertex, Integer>();
+      Set<AddonVertex> wave = new LinkedHashSet<AddonVertex>();
+      for (AddonVertex vertex : g.vertexSet())
+      {
+         int dependencies = g.outDegreeOf(vertex);
+         if (dependencies == 0)
+            wave.add(vertex);
+         else
+            remaining.put(vertex, dependencies);
+      }
+
+      while (!wave.isEmpty())
+      {
+         result.add(wave);
+         Set<AddonVertex> next = new LinkedHashSet<AddonVertex>();
+         for (AddonVertex vertex : wave)
+         {
+            for (AddonDependencyEdge edge : g.incomingEdgesOf(vertex))
+            {
+               AddonVertex dependent = g.getEdgeSource(edge);
+               Integer count = remaining.get(dependent);
+               if (count != null)
+               {
+                  if (count == 1)
+                  {
+                     remaining.remove(dependent);
+                     next.add(dependent);
+                  }
+                  else
+                     remaining.put(dependent, count - 1);
+               }
+            }
+         }
+         wave = next;
+      }
+
+      for (AddonVertex vertex : remaining.keySet())
+      {
+         result.add(Collections.singleton(vertex));
+      }
+      return result;
    }
 
    private void startupIncremental()
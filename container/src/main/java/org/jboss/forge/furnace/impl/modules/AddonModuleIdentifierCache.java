@@ -24,12 +24,12 @@ class AddonModuleIdentifierCache
 {
    private Map<Addon, ModuleIdentifier> map = new HashMap<Addon, ModuleIdentifier>();
 
-   public void clear(Addon addon)
+   public synchronized void clear(Addon addon)
    {
       map.remove(addon);
    }
 
-   public ModuleIdentifier getModuleId(Addon addon)
+   public synchronized ModuleIdentifier getModuleId(Addon addon)
    {
       if (!map.containsKey(addon))
          map.put(addon, ModuleIdentifier.fromString(toModuleId(addon.getId()) + "_" + UUID.randomUUID().toString()));
@@ -42,7 +42,7 @@ class AddonModuleIdentifierCache
    }
 
    @Override
-   public String toString()
+   public synchronized String toString()
    {
       StringBuilder builder = new StringBuilder();
       Iterator<Entry<Addon, ModuleIdentifier>> iterator = map.entrySet().iterator();
@@ -56,7 +56,7 @@ class AddonModuleIdentifierCache
       return builder.toString();
    }
 
-   public Addon getAddon(ModuleIdentifier id)
+   public synchronized Addon getAddon(ModuleIdentifier id)
    {
       for (Entry<Addon, ModuleIdentifier> entry : map.entrySet())
       {
@@ -9,6 +9,8 @@ package org.jboss.forge.furnace.impl.modules;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.Set;
@@ -27,8 +29,10 @@ import org.jboss.forge.furnace.impl.modules.providers.FurnaceContainerSpec;
 import org.jboss.forge.furnace.impl.modules.providers.SystemClasspathSpec;
 import org.jboss.forge.furnace.impl.modules.providers.XATransactionJDKClasspathSpec;
 import org.jboss.forge.furnace.impl.modules.providers.XPathJDKClasspathSpec;
+import org.jboss.forge.furnace.proxy.Proxies;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
 import org.jboss.forge.furnace.repositories.AddonRepository;
+import org.jboss.forge.furnace.util.ClassLoaders;
 import org.jboss.forge.furnace.versions.Version;
 import org.jboss.modules.DependencySpec;
 import org.jboss.modules.Module;
@@ -50,7 +54,7 @@ public class AddonModuleLoader extends ModuleLoader
 
    private static final Logger logger = Logger.getLogger(AddonModuleLoader.class.getName());
 
-   private Iterable<ModuleSpecProvider> moduleProviders;
+   private List<ModuleSpecProvider> moduleProviders;
 
    private AddonModuleIdentifierCache moduleCache;
    private AddonModuleJarFileCache moduleJarFileCache;
@@ -124,10 +128,22 @@ public class AddonModuleLoader extends ModuleLoader
       return result;
    }
 
-   private Iterable<ModuleSpecProvider> getModuleProviders()
+   /*
+    * ServiceLoader is not thread-safe, and addon modules may be loaded concurrently, so the providers are loaded once
+    * into an immutable list.
+    */
+   private synchronized List<ModuleSpecProvider> getModuleProviders()
    {
       if (moduleProviders == null)
-         moduleProviders = ServiceLoader.load(ModuleSpecProvider.class, furnace.getRuntimeClassLoader());
+      {
+         List<ModuleSpecProvider> result = new ArrayList<ModuleSpecProvider>();
+         for (ModuleSpecProvider provider : ServiceLoader.load(ModuleSpecProvider.class,
+                  furnace.getRuntimeClassLoader()))
+         {
+            result.add(provider);
+         }
+         moduleProviders = Collections.unmodifiableList(result);
+      }
       return moduleProviders;
    }
 
@@ -304,7 +320,11 @@ public class AddonModuleLoader extends ModuleLoader
       moduleJarFileCache.closeJarFileReferences(id);
       Module loadedModule = findLoadedModuleLocal(id);
       if (loadedModule != null)
+      {
+         Proxies.releaseClassLoader(loadedModule.getClassLoader());
+         ClassLoaders.releaseClassLoader(loadedModule.getClassLoader());
          unloadModuleLocal(loadedModule);
+      }
       moduleCache.clear(addon);
    }
 
@@ -6,6 +6,8 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
@@ -41,6 +43,39 @@ public final class Files
     */
    public static final long ONE_GB = ONE_KB * ONE_MB;
 
+   /*
+    * Set "furnace.files.links" to false to always copy files instead of creating hard links.
+    */
+   private static final boolean LINKS_ENABLED = !"false".equalsIgnoreCase(System.getProperty("furnace.files.links"));
+
+   /*
+    * File.toPath() and java.nio.file.Files.createLink(Path, Path), if running on Java 7 or later.
+    */
+   private static final Method TO_PATH;
+   private static final Method CREATE_LINK;
+
+   static
+   {
+      Method toPath = null;
+      Method createLink = null;
+      if (LINKS_ENABLED)
+      {
+         try
+         {
+            toPath = File.class.getMethod("toPath");
+            Class<?> pathType = toPath.getReturnType();
+            createLink = Class.forName("java.nio.file.Files").getMethod("createLink", pathType, pathType);
+         }
+         catch (Exception e)
+         {
+            toPath = null;
+            createLink = null;
+         }
+      }
+      TO_PATH = toPath;
+      CREATE_LINK = createLink;
+   }
+
    public static boolean delete(File file)
    {
       Assert.notNull(file, "File to delete must not be null.");
@@ -221,6 +256,103 @@ public final class Files
       doCopyFile(srcFile, destFile);
    }
 
+   /**
+    * Creates a hard link to a file at a new location, or copies the file if a hard link cannot be created (for
+    * instance, if the source and destination are on different file systems, or the JVM does not support hard links.)
+    * The directory holding the destination file is created if it does not exist. The destination file must not exist.
+    * 
+    * @param srcFile an existing file to link or copy, must not be <code>null</code>
+    * @param destFile the new file, must not be <code>null</code>
+    * 
+    * @throws IOException if source or destination is invalid, or if an IO error occurs during copying
+    * @see #copyFile(File, File)
+    */
+   public static void linkOrCopyFile(File srcFile, File destFile) throws IOException
+   {
+      if (CREATE_LINK != null && srcFile != null && srcFile.isFile() && destFile != null && !destFile.exists())
+      {
+         File parent = destFile.getParentFile();
+         if (parent == null || parent.isDirectory() || parent.mkdirs())
+         {
+            try
+            {
+               CREATE_LINK.invoke(null, TO_PATH.invoke(destFile), TO_PATH.invoke(srcFile));
+               return;
+            }
+            catch (InvocationTargetException e)
+            {
+               // Not supported by this file system, fall back to copying
+            }
+            catch (IllegalAccessException e)
+            {
+               // Fall back to copying
+            }
+         }
+      }
+      copyFile(srcFile, destFile);
+   }
+
+   /**
+    * Links or copies a whole directory to a new location, using {@link #linkOrCopyFile(File, File)} for each file. The
+    * destination directory is created if it does not exist, and must not contain any of the files in the source
+    * directory.
+    * 
+    * @param srcDir an existing directory to link or copy, must not be {@code null}
+    * @param destDir the new directory, must not be {@code null}
+    * 
+    * @throws IOException if source or destination is invalid, or if an IO error occurs during copying
+    */
+   public static void linkOrCopyDirectory(File srcDir, File destDir) throws IOException
+   {
+      File[] srcFiles = srcDir.listFiles();
+      if (srcFiles == null)
+      {
+         throw new IOException("Failed to list contents of " + srcDir);
+      }
+      if (!destDir.mkdirs() && !destDir.isDirectory())
+      {
+         throw new IOException("Destination '" + destDir + "' directory cannot be created");
+      }
+      for (File srcFile : srcFiles)
+      {
+         File dstFile = new File(destDir, srcFile.getName());
+         if (srcFile.isDirectory())
+         {
+            linkOrCopyDirectory(srcFile, dstFile);
+         }
+         else
+         {
+            linkOrCopyFile(srcFile, dstFile);
+         }
+      }
+   }
+
+   /**
+    * Moves a file or directory, as a whole, to a new location that must not exist yet, using a single
+    * {@link File#renameTo(File)}. The move is atomic where the file system supports it, which is normally the case
+    * within a single file system. Nothing is copied, so the move fails if the rename does.
+    * 
+    * @param src an existing file or directory to move, must not be {@code null}
+    * @param dest the new location, must not be {@code null} and must not exist
+    * 
+    * @throws IOException if the destination exists, or if the source could not be renamed
+    */
+   public static void move(File src, File dest) throws IOException
+   {
+      if (!src.exists())
+      {
+         throw new FileNotFoundException("Source '" + src + "' does not exist");
+      }
+      if (dest.exists())
+      {
+         throw new IOException("Destination '" + dest + "' already exists");
+      }
+      if (!src.renameTo(dest))
+      {
+         throw new IOException("Could not rename '" + src + "' to '" + dest + "'");
+      }
+   }
+
    /**
     * Internal copy file method.
     * 
@@ -251,7 +383,7 @@ public final class Files
          while (pos < size)
          {
             count = (size - pos) > FIFTY_MB ? FIFTY_MB : (size - pos);
-            pos += output.transferFrom(input, pos, count);
+            pos += input.transferTo(pos, count, output);
          }
       }
       finally
@@ -7,15 +7,21 @@
 
 package org.jboss.forge.furnace;
 
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 import org.jboss.forge.furnace.addons.AddonId;
 import org.jboss.forge.furnace.impl.FurnaceImpl;
 import org.jboss.forge.furnace.impl.addons.AddonRepositoryImpl;
+import org.jboss.forge.furnace.impl.addons.RepositoryChangeNotifier;
+import org.jboss.forge.furnace.impl.util.Files;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
 import org.jboss.forge.furnace.repositories.MutableAddonRepository;
+import org.jboss.forge.furnace.util.Streams;
 import org.jboss.forge.furnace.versions.SingleVersion;
 import org.junit.Assert;
 import org.junit.Test;
@@ -149,4 +155,264 @@ public class AddonRepositoryImplTest
       Assert.assertTrue(repository.getAddonDependencies(addon).contains(dependency0));
       Assert.assertTrue(repository.getAddonDependencies(addon).contains(dependency1));
    }
+
+   @Test
+   public void testEnableSignalsChangeNotifier() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      RepositoryChangeNotifier notifier = new RepositoryChangeNotifier();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp, notifier);
+
+      AddonId addon = AddonId.from("1", "2");
+      repository.deploy(addon, new ArrayList<AddonDependencyEntry>(), new ArrayList<File>());
+      Assert.assertFalse(notifier.await(0, 0));
+
+      int version = repository.getVersion();
+      repository.enable(addon);
+      Assert.assertTrue(notifier.await(0, 0));
+      Assert.assertTrue(repository.getVersion() > version);
+   }
+
+   @Test
+   public void testVersionDetectsModificationByOtherRepositoryInstance() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+      MutableAddonRepository external = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      AddonId addon = AddonId.from("1", "2");
+      external.deploy(addon, new ArrayList<AddonDependencyEntry>(), new ArrayList<File>());
+
+      int version = repository.getVersion();
+      Assert.assertEquals(version, repository.getVersion());
+
+      external.enable(addon);
+      Assert.assertTrue(repository.getVersion() > version);
+   }
+
+   @Test
+   public void testCreatingEmptyRegistryIsNotAChange() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      int version = repository.getVersion();
+      Assert.assertTrue(repository.listEnabled().isEmpty());
+      Assert.assertEquals(version, repository.getVersion());
+   }
+
+   @Test
+   public void testRegistryAndDescriptorParsedOnlyWhenModified() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      AddonRepositoryImpl repository = (AddonRepositoryImpl) AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      AddonId addon = AddonId.from("1", "2");
+      AddonDependencyEntry dependency = AddonDependencyEntry.create("nm", "ver");
+      repository.deploy(addon, Arrays.asList(dependency), new ArrayList<File>());
+      repository.enable(addon);
+
+      Assert.assertTrue(repository.isEnabled(addon));
+      Assert.assertTrue(repository.getAddonDependencies(addon).contains(dependency));
+
+      long registryParses = repository.getRegistryParseCount();
+      long descriptorParses = repository.getDescriptorParseCount();
+      for (int i = 0; i < 10; i++)
+      {
+         Assert.assertTrue(repository.isEnabled(addon));
+         Assert.assertEquals(1, repository.listEnabled().size());
+         Assert.assertTrue(repository.getAddonDependencies(addon).contains(dependency));
+      }
+      Assert.assertEquals(registryParses, repository.getRegistryParseCount());
+      Assert.assertEquals(descriptorParses, repository.getDescriptorParseCount());
+
+      repository.disable(addon);
+      Assert.assertFalse(repository.isEnabled(addon));
+      Assert.assertEquals(registryParses + 1, repository.getRegistryParseCount());
+
+      AddonDependencyEntry other = AddonDependencyEntry.create("other", "ver");
+      repository.deploy(addon, Arrays.asList(other), new ArrayList<File>());
+      Assert.assertTrue(repository.getAddonDependencies(addon).contains(other));
+      Assert.assertEquals(descriptorParses + 1, repository.getDescriptorParseCount());
+   }
+
+   @Test
+   public void testIndexReadInsteadOfDescriptors() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      AddonId addon = AddonId.from("1", "2");
+      AddonDependencyEntry dependency = AddonDependencyEntry.create("nm", "[1.0,2.0)", true, false);
+      File tempJar = File.createTempFile("addon" + addon.getName(), ".jar");
+      tempJar.deleteOnExit();
+      repository.deploy(addon, Arrays.asList(dependency), Arrays.asList(tempJar));
+      repository.enable(addon);
+
+      AddonRepositoryImpl restarted = (AddonRepositoryImpl) AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+      Assert.assertTrue(restarted.isEnabled(addon));
+      Assert.assertEquals(repository.getAddonDependencies(addon), restarted.getAddonDependencies(addon));
+      Assert.assertEquals(repository.getAddonResources(addon), restarted.getAddonResources(addon));
+      Assert.assertEquals(0, restarted.getRegistryParseCount());
+      Assert.assertEquals(0, restarted.getDescriptorParseCount());
+   }
+
+   @Test
+   public void testCorruptIndexIsIgnored() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      AddonId addon = AddonId.from("1", "2");
+      AddonDependencyEntry dependency = AddonDependencyEntry.create("nm", "[1.0,2.0)", true, false);
+      repository.deploy(addon, Arrays.asList(dependency), new ArrayList<File>());
+      repository.enable(addon);
+
+      /*
+       * A valid header followed by an entry count far larger than the file
+       */
+      File index = new File(repository.getRootDirectory(), "installed.index");
+      DataOutputStream out = new DataOutputStream(new FileOutputStream(index));
+      try
+      {
+         out.writeInt(0x46524E43);
+         out.writeInt(1);
+         out.writeLong(0);
+         out.writeLong(0);
+         out.writeInt(Integer.MAX_VALUE);
+      }
+      finally
+      {
+         Streams.closeQuietly(out);
+      }
+
+      AddonRepositoryImpl restarted = (AddonRepositoryImpl) AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+      Assert.assertTrue(restarted.isEnabled(addon));
+      Assert.assertEquals(repository.getAddonDependencies(addon), restarted.getAddonDependencies(addon));
+      Assert.assertEquals(1, restarted.getRegistryParseCount());
+   }
+
+   @Test
+   public void testDeployStagesResourcesIntoSlot() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      AddonId addon = AddonId.from("1", "2");
+      File first = File.createTempFile("addon" + addon.getName(), ".jar");
+      first.deleteOnExit();
+      write(first, "first");
+      repository.deploy(addon, new ArrayList<AddonDependencyEntry>(), Arrays.asList(first));
+
+      File second = File.createTempFile("addon" + addon.getName(), ".jar");
+      second.deleteOnExit();
+      write(second, "second");
+      repository.deploy(addon, new ArrayList<AddonDependencyEntry>(), Arrays.asList(first, second));
+
+      File slot = repository.getAddonBaseDir(addon);
+      Assert.assertEquals("first", read(new File(slot, first.getName())));
+      Assert.assertEquals("second", read(new File(slot, second.getName())));
+      Assert.assertEquals(2, repository.getAddonResources(addon).size());
+      assertNothingStaged(repository);
+   }
+
+   @Test
+   public void testRedeployReplacesResourcesAndKeepsDescriptor() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      AddonId addon = AddonId.from("1", "2");
+      AddonDependencyEntry dependency = AddonDependencyEntry.create("nm", "ver");
+      File first = File.createTempFile("addon" + addon.getName(), ".jar");
+      first.deleteOnExit();
+      write(first, "first");
+      repository.deploy(addon, Arrays.asList(dependency), Arrays.asList(first));
+
+      File second = File.createTempFile("addon" + addon.getName(), ".jar");
+      second.deleteOnExit();
+      write(second, "second");
+      Assert.assertTrue(repository.deploy(addon, new ArrayList<AddonDependencyEntry>(), Arrays.asList(second)));
+
+      File slot = repository.getAddonBaseDir(addon);
+      Assert.assertFalse(new File(slot, first.getName()).exists());
+      Assert.assertEquals("second", read(new File(slot, second.getName())));
+      Assert.assertTrue(repository.getAddonDependencies(addon).contains(dependency));
+      assertNothingStaged(repository);
+   }
+
+   @Test
+   public void testSnapshotResourcesAreCopied() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+
+      AddonId addon = AddonId.from("1", "2.0.0-SNAPSHOT");
+      File jar = File.createTempFile("addon" + addon.getName(), ".jar");
+      jar.deleteOnExit();
+      write(jar, "built");
+      repository.deploy(addon, new ArrayList<AddonDependencyEntry>(), Arrays.asList(jar));
+
+      /*
+       * Rebuilding a SNAPSHOT overwrites the same file, which must not change the deployed copy
+       */
+      write(jar, "rebuilt");
+      Assert.assertEquals("built", read(new File(repository.getAddonBaseDir(addon), jar.getName())));
+   }
+
+   @Test
+   public void testLeftoverStagingIsPurgedOnStartup() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.delete();
+      File leftover = new File(new File(temp, ".staging"), "1-2-123");
+      Assert.assertTrue(leftover.mkdirs());
+      write(new File(leftover, "addon1.jar"), "partial");
+
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+      Assert.assertFalse(leftover.exists());
+      Assert.assertTrue(repository.listEnabled().isEmpty());
+      Files.delete(temp, true);
+   }
+
+   private static void assertNothingStaged(MutableAddonRepository repository)
+   {
+      String[] staged = new File(repository.getRootDirectory(), ".staging").list();
+      Assert.assertTrue(staged == null || staged.length == 0);
+   }
+
+   private static void write(File file, String contents) throws Exception
+   {
+      FileOutputStream stream = new FileOutputStream(file);
+      try
+      {
+         Streams.write(Streams.fromString(contents), stream);
+      }
+      finally
+      {
+         Streams.closeQuietly(stream);
+      }
+   }
+
+   private static String read(File file) throws Exception
+   {
+      FileInputStream stream = new FileInputStream(file);
+      try
+      {
+         return Streams.toString(stream);
+      }
+      finally
+      {
+         Streams.closeQuietly(stream);
+      }
+   }
 }
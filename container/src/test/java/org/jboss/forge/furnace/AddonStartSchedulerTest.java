@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.impl.addons.AddonStartScheduler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AddonStartSchedulerTest
+{
+   @Test(timeout = 10000)
+   public void testBlockedTaskDoesNotStarveQueuedTask() throws Exception
+   {
+      final AddonStartScheduler scheduler = new AddonStartScheduler(1, false);
+      final CountDownLatch dependencyStarted = new CountDownLatch(1);
+      final CountDownLatch dependentStarted = new CountDownLatch(1);
+      try
+      {
+         scheduler.execute(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               scheduler.beginBlocking();
+               try
+               {
+                  dependencyStarted.await();
+                  dependentStarted.countDown();
+               }
+               catch (InterruptedException e)
+               {
+                  Thread.currentThread().interrupt();
+               }
+               finally
+               {
+                  scheduler.endBlocking();
+               }
+            }
+         });
+
+         scheduler.execute(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               dependencyStarted.countDown();
+            }
+         });
+
+         Assert.assertTrue(dependentStarted.await(5, TimeUnit.SECONDS));
+      }
+      finally
+      {
+         scheduler.shutdownNow();
+      }
+   }
+
+   @Test(timeout = 10000)
+   public void testQueueDepth() throws Exception
+   {
+      AddonStartScheduler scheduler = new AddonStartScheduler(1, false);
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch running = new CountDownLatch(1);
+      try
+      {
+         Runnable task = new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               running.countDown();
+               try
+               {
+                  release.await();
+               }
+               catch (InterruptedException e)
+               {
+                  Thread.currentThread().interrupt();
+               }
+            }
+         };
+         scheduler.execute(task);
+         scheduler.execute(task);
+         scheduler.execute(task);
+
+         running.await();
+         Assert.assertEquals(1, scheduler.getRunningCount());
+         Assert.assertEquals(2, scheduler.getQueueDepth());
+      }
+      finally
+      {
+         release.countDown();
+         scheduler.shutdownNow();
+      }
+   }
+}
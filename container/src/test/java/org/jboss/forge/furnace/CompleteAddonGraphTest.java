@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.impl.FurnaceImpl;
+import org.jboss.forge.furnace.impl.addons.AddonRepositoryImpl;
+import org.jboss.forge.furnace.impl.graph.AddonDependencyEdge;
+import org.jboss.forge.furnace.impl.graph.AddonVertex;
+import org.jboss.forge.furnace.impl.graph.CompleteAddonGraph;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.repositories.AddonRepository;
+import org.jboss.forge.furnace.repositories.MutableAddonRepository;
+import org.jgrapht.DirectedGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompleteAddonGraphTest
+{
+   @Test
+   public void testUpdateMatchesRebuiltGraph() throws Exception
+   {
+      File temp = File.createTempFile("addonDir", "test");
+      temp.deleteOnExit();
+      MutableAddonRepository repository = AddonRepositoryImpl.forDirectory(new FurnaceImpl(), temp);
+      Collection<AddonRepository> repositories = Collections.<AddonRepository> singletonList(repository);
+
+      AddonId a = AddonId.from("a", "1.0.0.Final");
+      AddonId b = AddonId.from("b", "1.0.0.Final");
+      AddonId c = AddonId.from("c", "1.0.0.Final");
+      repository.deploy(a, Arrays.asList(AddonDependencyEntry.create("b", "[1.0,2.0)")), new ArrayList<File>());
+      repository.deploy(b, new ArrayList<AddonDependencyEntry>(), new ArrayList<File>());
+      repository.deploy(c, Arrays.asList(AddonDependencyEntry.create("x")), new ArrayList<File>());
+      repository.enable(a);
+      repository.enable(c);
+
+      CompleteAddonGraph graph = new CompleteAddonGraph(repositories);
+      Assert.assertFalse(graph.update());
+      Assert.assertEquals(describe(new CompleteAddonGraph(repositories).getGraph()), describe(graph.getGraph()));
+
+      repository.enable(b);
+      Assert.assertTrue(graph.update());
+      Assert.assertEquals(describe(new CompleteAddonGraph(repositories).getGraph()), describe(graph.getGraph()));
+      Assert.assertTrue(describe(graph.getGraph()).toString().contains("a:1.0.0.Final -> b:1.0.0.Final"));
+
+      repository.disable(c);
+      Assert.assertTrue(graph.update());
+      Assert.assertEquals(describe(new CompleteAddonGraph(repositories).getGraph()), describe(graph.getGraph()));
+      Assert.assertFalse(describe(graph.getGraph()).toString().contains("x:"));
+
+      repository.disable(b);
+      Assert.assertTrue(graph.update());
+      Assert.assertEquals(describe(new CompleteAddonGraph(repositories).getGraph()), describe(graph.getGraph()));
+   }
+
+   private Set<String> describe(DirectedGraph<AddonVertex, AddonDependencyEdge> graph)
+   {
+      Set<String> result = new TreeSet<String>();
+      for (AddonVertex vertex : graph.vertexSet())
+      {
+         result.add(vertex.getName() + ":" + vertex.getVersion());
+      }
+      for (AddonDependencyEdge edge : graph.edgeSet())
+      {
+         AddonVertex source = graph.getEdgeSource(edge);
+         AddonVertex target = graph.getEdgeTarget(edge);
+         result.add(source.getName() + ":" + source.getVersion() + " -> " + target.getName() + ":"
+                  + target.getVersion() + " " + edge.isExported());
+      }
+      return result;
+   }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.impl.LockManagerImpl;
+import org.jboss.forge.furnace.lock.LockMode;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LockManagerImplTest
+{
+   @Test(timeout = 10000)
+   public void testDelegatedTaskRunsUnderOwnersWriteLock() throws Exception
+   {
+      final LockManagerImpl lock = new LockManagerImpl();
+      final ExecutorService executor = Executors.newSingleThreadExecutor();
+      try
+      {
+         Boolean result = lock.performLocked(LockMode.WRITE, new Callable<Boolean>()
+         {
+            @Override
+            public Boolean call() throws Exception
+            {
+               return executor.submit(lock.delegate(new Callable<Boolean>()
+               {
+                  @Override
+                  public Boolean call() throws Exception
+                  {
+                     return lock.isWriteLockedByCurrentThread() && lock.performLocked(LockMode.WRITE, TRUE);
+                  }
+               })).get();
+            }
+         });
+         Assert.assertTrue(result);
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test(timeout = 10000)
+   public void testDelegatedTaskDoesNotSkipLockAfterOwnerReleasedIt() throws Exception
+   {
+      final LockManagerImpl lock = new LockManagerImpl();
+      final Callable<Boolean> delegated = lock.performLocked(LockMode.WRITE, new Callable<Callable<Boolean>>()
+      {
+         @Override
+         public Callable<Boolean> call() throws Exception
+         {
+            return lock.delegate(new Callable<Boolean>()
+            {
+               @Override
+               public Boolean call() throws Exception
+               {
+                  return lock.isWriteLockedByCurrentThread();
+               }
+            });
+         }
+      });
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try
+      {
+         Assert.assertFalse(executor.submit(delegated).get());
+      }
+      finally
+      {
+         executor.shutdownNow();
+         executor.awaitTermination(5, TimeUnit.SECONDS);
+      }
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testOnlyWriteLockOwnerMayDelegate() throws Exception
+   {
+      new LockManagerImpl().delegate(TRUE);
+   }
+
+   private static final Callable<Boolean> TRUE = new Callable<Boolean>()
+   {
+      @Override
+      public Boolean call() throws Exception
+      {
+         return Boolean.TRUE;
+      }
+   };
+}
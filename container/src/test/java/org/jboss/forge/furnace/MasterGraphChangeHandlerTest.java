@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.forge.furnace.impl.graph.AddonDependencyEdge;
+import org.jboss.forge.furnace.impl.graph.AddonVertex;
+import org.jboss.forge.furnace.impl.graph.MasterGraphChangeHandler;
+import org.jboss.forge.furnace.versions.EmptyVersionRange;
+import org.jboss.forge.furnace.versions.SingleVersion;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MasterGraphChangeHandlerTest
+{
+   @Test
+   public void testLoadWavesFollowDependencies() throws Exception
+   {
+      DirectedGraph<AddonVertex, AddonDependencyEdge> graph = newGraph();
+      AddonVertex a = addVertex(graph, "a");
+      AddonVertex b = addVertex(graph, "b");
+      AddonVertex c = addVertex(graph, "c");
+      AddonVertex d = addVertex(graph, "d");
+      AddonVertex e = addVertex(graph, "e");
+      addDependency(graph, a, b);
+      addDependency(graph, a, c);
+      addDependency(graph, b, d);
+      addDependency(graph, c, d);
+
+      List<Set<AddonVertex>> waves = MasterGraphChangeHandler.getLoadWaves(graph);
+      Assert.assertEquals(3, waves.size());
+      Assert.assertEquals(new HashSet<AddonVertex>(Arrays.asList(d, e)), waves.get(0));
+      Assert.assertEquals(new HashSet<AddonVertex>(Arrays.asList(b, c)), waves.get(1));
+      Assert.assertEquals(Collections.singleton(a), waves.get(2));
+   }
+
+   @Test
+   public void testLoadWavesOfEmptyGraph() throws Exception
+   {
+      Assert.assertTrue(MasterGraphChangeHandler.getLoadWaves(newGraph()).isEmpty());
+   }
+
+   @Test
+   public void testCyclicVerticesAreLoadedOnePerWave() throws Exception
+   {
+      DirectedGraph<AddonVertex, AddonDependencyEdge> graph = newGraph();
+      AddonVertex a = addVertex(graph, "a");
+      AddonVertex b = addVertex(graph, "b");
+      AddonVertex c = addVertex(graph, "c");
+      AddonVertex d = addVertex(graph, "d");
+      addDependency(graph, a, b);
+      addDependency(graph, b, c);
+      addDependency(graph, c, b);
+      addDependency(graph, c, d);
+
+      List<Set<AddonVertex>> waves = MasterGraphChangeHandler.getLoadWaves(graph);
+      Assert.assertEquals(4, waves.size());
+      Assert.assertEquals(Collections.singleton(d), waves.get(0));
+      Set<AddonVertex> rest = new HashSet<AddonVertex>();
+      for (Set<AddonVertex> wave : waves.subList(1, waves.size()))
+      {
+         Assert.assertEquals(1, wave.size());
+         rest.addAll(wave);
+      }
+      Assert.assertEquals(new HashSet<AddonVertex>(Arrays.asList(a, b, c)), rest);
+   }
+
+   private DirectedGraph<AddonVertex, AddonDependencyEdge> newGraph()
+   {
+      return new DefaultDirectedGraph<AddonVertex, AddonDependencyEdge>(AddonDependencyEdge.class);
+   }
+
+   private AddonVertex addVertex(DirectedGraph<AddonVertex, AddonDependencyEdge> graph, String name)
+   {
+      AddonVertex vertex = new AddonVertex(name, new SingleVersion("1.0.0.Final"));
+      graph.addVertex(vertex);
+      return vertex;
+   }
+
+   private void addDependency(DirectedGraph<AddonVertex, AddonDependencyEdge> graph, AddonVertex dependent,
+            AddonVertex dependency)
+   {
+      graph.addEdge(dependent, dependency, new AddonDependencyEdge(new EmptyVersionRange(), false));
+   }
+}
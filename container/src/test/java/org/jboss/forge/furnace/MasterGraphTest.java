@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.impl.graph.AddonDependencyEdge;
+import org.jboss.forge.furnace.impl.graph.AddonVertex;
+import org.jboss.forge.furnace.impl.graph.MasterGraph;
+import org.jboss.forge.furnace.impl.graph.OptimizedAddonGraph;
+import org.jboss.forge.furnace.mock.MockAddonView;
+import org.jboss.forge.furnace.versions.EmptyVersionRange;
+import org.jboss.forge.furnace.versions.SingleVersion;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MasterGraphTest
+{
+   @Test
+   public void testGetVerticesByNameAndVersion() throws Exception
+   {
+      MasterGraph graph = new MasterGraph();
+      AddonVertex a1 = new AddonVertex("a", new SingleVersion("1.0.0.Final"));
+      AddonVertex a2 = new AddonVertex("a", new SingleVersion("2.0.0.Final"));
+      AddonVertex b1 = new AddonVertex("b", new SingleVersion("1.0.0.Final"));
+      Assert.assertTrue(graph.addVertex(a1));
+      Assert.assertTrue(graph.addVertex(a2));
+      Assert.assertTrue(graph.addVertex(b1));
+      Assert.assertFalse(graph.addVertex(a1));
+
+      Assert.assertEquals(set(a1), graph.getVertices("a", new SingleVersion("1.0.0.Final")));
+      Assert.assertEquals(set(a2), graph.getVertices("a", new SingleVersion("2.0.0.Final")));
+      Assert.assertEquals(set(b1), graph.getVertices("b", new SingleVersion("1.0.0.Final")));
+      Assert.assertEquals(set(a1, a2), graph.getVertices("a"));
+
+      Assert.assertTrue(graph.getVertices("a", new SingleVersion("3.0.0.Final")).isEmpty());
+      Assert.assertTrue(graph.getVertices("c", new SingleVersion("1.0.0.Final")).isEmpty());
+      Assert.assertTrue(graph.getVertices("c").isEmpty());
+   }
+
+   @Test
+   public void testGetVerticesReturnsSeveralVerticesOfSameVersion() throws Exception
+   {
+      MasterGraph graph = new MasterGraph();
+      AddonVertex a1 = new AddonVertex(new AddonVertex("a", new SingleVersion("1.0.0.Final")),
+               new MockAddonView("view1"));
+      AddonVertex a1Other = new AddonVertex(new AddonVertex("a", new SingleVersion("1.0.0.Final")),
+               new MockAddonView("view2"));
+      graph.addVertex(a1);
+      graph.addVertex(a1Other);
+      Assert.assertEquals(set(a1, a1Other), graph.getVertices("a", new SingleVersion("1.0.0.Final")));
+   }
+
+   @Test
+   public void testIndexFollowsMergedAndReplacedVertices() throws Exception
+   {
+      DirectedGraph<AddonVertex, AddonDependencyEdge> complete = newGraph();
+      AddonVertex a = addVertex(complete, "a");
+      AddonVertex b = addVertex(complete, "b");
+      complete.addEdge(a, b, new AddonDependencyEdge(new EmptyVersionRange(), false));
+
+      AddonView view1 = new MockAddonView("view1");
+      AddonView view2 = new MockAddonView("view2");
+      MasterGraph graph = new MasterGraph();
+      graph.merge(new OptimizedAddonGraph(view1, complete));
+      graph.merge(new OptimizedAddonGraph(view2, complete));
+
+      Assert.assertEquals(2, graph.getGraph().vertexSet().size());
+      for (AddonVertex vertex : graph.getGraph().vertexSet())
+      {
+         Assert.assertEquals(set(vertex), graph.getVertices(vertex.getName(), vertex.getVersion()));
+         Assert.assertEquals(new HashSet<AddonView>(Arrays.asList(view1, view2)), vertex.getViews());
+      }
+   }
+
+   @Test
+   public void testMergeOfUnequalSubtreeAddsVertex() throws Exception
+   {
+      DirectedGraph<AddonVertex, AddonDependencyEdge> first = newGraph();
+      AddonVertex a = addVertex(first, "a");
+      first.addEdge(a, addVertex(first, "b"), new AddonDependencyEdge(new EmptyVersionRange(), false));
+
+      DirectedGraph<AddonVertex, AddonDependencyEdge> second = newGraph();
+      a = addVertex(second, "a");
+      second.addEdge(a, addVertex(second, "c"), new AddonDependencyEdge(new EmptyVersionRange(), false));
+
+      MasterGraph graph = new MasterGraph();
+      graph.merge(new OptimizedAddonGraph(new MockAddonView("view1"), first));
+      graph.merge(new OptimizedAddonGraph(new MockAddonView("view2"), second));
+
+      Assert.assertEquals(2, graph.getVertices("a", new SingleVersion("1.0.0.Final")).size());
+      Assert.assertEquals(1, graph.getVertices("b").size());
+      Assert.assertEquals(1, graph.getVertices("c").size());
+   }
+
+   /*
+    * Each level of this graph has two vertices that both depend on both vertices of the next level. Without memoizing
+    * subtree equivalence, comparing the roots visits every path, which is exponential in the number of levels.
+    */
+   @Test(timeout = 10000)
+   public void testSubtreeEquivalenceIsMemoized() throws Exception
+   {
+      int levels = 24;
+      MasterGraph local = new MasterGraph();
+      CountingGraph other = new CountingGraph();
+      AddonVertex[] localLevel = null;
+      AddonVertex[] otherLevel = null;
+      for (int i = levels - 1; i >= 0; i--)
+      {
+         AddonVertex[] localNext = new AddonVertex[2];
+         AddonVertex[] otherNext = new AddonVertex[2];
+         for (int j = 0; j < 2; j++)
+         {
+            String name = "addon" + i + "-" + j;
+            localNext[j] = new AddonVertex(name, new SingleVersion("1.0.0.Final"));
+            otherNext[j] = new AddonVertex(name, new SingleVersion("1.0.0.Final"));
+            local.addVertex(localNext[j]);
+            other.addVertex(otherNext[j]);
+            if (localLevel != null)
+            {
+               for (int k = 0; k < 2; k++)
+               {
+                  local.getGraph().addEdge(localNext[j], localLevel[k],
+                           new AddonDependencyEdge(new EmptyVersionRange(), false));
+                  other.addEdge(otherNext[j], otherLevel[k], new AddonDependencyEdge(new EmptyVersionRange(), false));
+               }
+            }
+         }
+         localLevel = localNext;
+         otherLevel = otherNext;
+      }
+
+      Assert.assertTrue(local.isSubtreeEquivalent(localLevel[0], other, otherLevel[0]));
+      Assert.assertTrue("Compared [" + other.outgoing + "] subtrees", other.outgoing <= levels * 2);
+   }
+
+   private static class CountingGraph extends SimpleDirectedGraph<AddonVertex, AddonDependencyEdge>
+   {
+      private static final long serialVersionUID = 1L;
+      private int outgoing = 0;
+
+      public CountingGraph()
+      {
+         super(AddonDependencyEdge.class);
+      }
+
+      @Override
+      public Set<AddonDependencyEdge> outgoingEdgesOf(AddonVertex vertex)
+      {
+         outgoing++;
+         return super.outgoingEdgesOf(vertex);
+      }
+   }
+
+   private DirectedGraph<AddonVertex, AddonDependencyEdge> newGraph()
+   {
+      return new SimpleDirectedGraph<AddonVertex, AddonDependencyEdge>(AddonDependencyEdge.class);
+   }
+
+   private AddonVertex addVertex(DirectedGraph<AddonVertex, AddonDependencyEdge> graph, String name)
+   {
+      AddonVertex vertex = new AddonVertex(name, new SingleVersion("1.0.0.Final"));
+      graph.addVertex(vertex);
+      return vertex;
+   }
+
+   private Set<AddonVertex> set(AddonVertex... vertices)
+   {
+      return new HashSet<AddonVertex>(Arrays.asList(vertices));
+   }
+}
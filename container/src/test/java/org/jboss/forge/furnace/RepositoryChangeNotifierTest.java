@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace;
+
+import org.jboss.forge.furnace.impl.addons.RepositoryChangeNotifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RepositoryChangeNotifierTest
+{
+   @Test
+   public void testPollIntervalIsNeverBelowMinimum() throws Exception
+   {
+      Assert.assertEquals(RepositoryChangeNotifier.MIN_POLL_INTERVAL, RepositoryChangeNotifier.getPollInterval(0));
+      Assert.assertEquals(RepositoryChangeNotifier.MIN_POLL_INTERVAL, RepositoryChangeNotifier.getPollInterval(-1));
+      Assert.assertEquals(RepositoryChangeNotifier.MIN_POLL_INTERVAL, RepositoryChangeNotifier.getPollInterval(1));
+      Assert.assertEquals(5000, RepositoryChangeNotifier.getPollInterval(5000));
+   }
+
+   @Test(timeout = 10000)
+   public void testAwaitWithZeroPollIntervalBlocks() throws Exception
+   {
+      RepositoryChangeNotifier notifier = new RepositoryChangeNotifier();
+      long start = System.nanoTime();
+      Assert.assertFalse(notifier.await(RepositoryChangeNotifier.getPollInterval(0), 0));
+      long elapsed = (System.nanoTime() - start) / 1000000;
+      Assert.assertTrue("Returned after " + elapsed + "ms", elapsed >= RepositoryChangeNotifier.MIN_POLL_INTERVAL / 2);
+   }
+
+   @Test(timeout = 10000)
+   public void testChangeWakesWaiter() throws Exception
+   {
+      final RepositoryChangeNotifier notifier = new RepositoryChangeNotifier();
+      Thread thread = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            notifier.changed();
+         }
+      };
+      thread.start();
+      Assert.assertTrue(notifier.await(60000, 10));
+      thread.join();
+   }
+}
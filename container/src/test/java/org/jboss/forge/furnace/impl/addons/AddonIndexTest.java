@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.impl.LockManagerImpl;
+import org.jboss.forge.furnace.impl.graph.AddonVertex;
+import org.jboss.forge.furnace.impl.graph.MasterGraph;
+import org.jboss.forge.furnace.mock.MockAddonView;
+import org.jboss.forge.furnace.versions.SingleVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AddonIndexTest
+{
+   private final AddonStateManager manager = new AddonStateManager(new LockManagerImpl());
+   private final AddonView view1 = new MockAddonView("view1");
+   private final AddonView view2 = new MockAddonView("view2");
+
+   @Test
+   public void testAddIndexesAddonByViewAndId() throws Exception
+   {
+      Addon a = createAddon("a");
+      AddonIndex index = new AddonIndex();
+      index.add(createVertex(a, view1, view2));
+
+      Assert.assertEquals(new HashSet<AddonView>(Arrays.asList(view1, view2)), index.getViewsOf(a));
+      Assert.assertEquals(new HashSet<Addon>(Arrays.asList(a)), index.getAddonsOf(view1));
+      Assert.assertEquals(new HashSet<Addon>(Arrays.asList(a)), index.getAddonsOf(view2));
+      Assert.assertSame(a, index.getAddon(view1, a.getId()));
+      Assert.assertSame(a, index.getAddon(view2, a.getId()));
+   }
+
+   @Test
+   public void testLookupOfUnknownAddonOrView() throws Exception
+   {
+      Addon a = createAddon("a");
+      AddonIndex index = new AddonIndex();
+      index.add(createVertex(a, view1));
+
+      Assert.assertTrue(index.getViewsOf(createAddon("b")).isEmpty());
+      Assert.assertTrue(index.getAddonsOf(view2).isEmpty());
+      Assert.assertNull(index.getAddon(view2, a.getId()));
+      Assert.assertNull(index.getAddon(view1, AddonId.from("b", "1.0.0.Final")));
+   }
+
+   @Test
+   public void testUnassignedVertexIsNotIndexed() throws Exception
+   {
+      AddonIndex index = new AddonIndex();
+      index.add(new AddonVertex(new AddonVertex("a", new SingleVersion("1.0.0.Final")), view1));
+      Assert.assertTrue(index.getAddonsOf(view1).isEmpty());
+   }
+
+   @Test
+   public void testAddonIsIndexedWithViewsOfFirstVertex() throws Exception
+   {
+      Addon a = createAddon("a");
+      AddonIndex index = new AddonIndex();
+      index.add(createVertex(a, view1));
+      index.add(createVertex(a, view2));
+
+      Assert.assertEquals(new HashSet<AddonView>(Arrays.asList(view1)), index.getViewsOf(a));
+      Assert.assertTrue(index.getAddonsOf(view2).isEmpty());
+      Assert.assertNull(index.getAddon(view2, a.getId()));
+   }
+
+   @Test
+   public void testRemovedAddonIsNotInRebuiltIndex() throws Exception
+   {
+      Addon a = createAddon("a");
+      Addon b = createAddon("b");
+      MasterGraph graph = new MasterGraph();
+      graph.addVertex(createVertex(a, view1));
+      graph.addVertex(createVertex(b, view1));
+      AddonIndex before = AddonIndex.of(graph);
+
+      MasterGraph removed = new MasterGraph();
+      removed.addVertex(createVertex(a, view1));
+      AddonIndex after = AddonIndex.of(removed);
+
+      Assert.assertEquals(new HashSet<Addon>(Arrays.asList(a)), after.getAddonsOf(view1));
+      Assert.assertNull(after.getAddon(view1, b.getId()));
+      Assert.assertTrue(after.getViewsOf(b).isEmpty());
+
+      /*
+       * Published indexes are never changed by later ones.
+       */
+      Assert.assertEquals(new HashSet<Addon>(Arrays.asList(a, b)), before.getAddonsOf(view1));
+      Assert.assertSame(b, before.getAddon(view1, b.getId()));
+   }
+
+   @Test
+   public void testLookupsAreConsistent() throws Exception
+   {
+      MasterGraph graph = new MasterGraph();
+      for (int i = 0; i < 20; i++)
+      {
+         Addon addon = createAddon("addon" + i);
+         if (i % 3 == 0)
+            graph.addVertex(createVertex(addon, view1, view2));
+         else if (i % 3 == 1)
+            graph.addVertex(createVertex(addon, view1));
+         else
+            graph.addVertex(createVertex(addon, view2));
+      }
+      AddonIndex index = AddonIndex.of(graph);
+
+      Assert.assertEquals(14, index.getAddonsOf(view1).size());
+      Assert.assertEquals(13, index.getAddonsOf(view2).size());
+      for (AddonView view : Arrays.asList(view1, view2))
+      {
+         for (Addon addon : index.getAddonsOf(view))
+         {
+            Assert.assertSame(addon, index.getAddon(view, addon.getId()));
+            Assert.assertTrue(index.getViewsOf(addon).contains(view));
+         }
+      }
+      for (AddonVertex vertex : graph.getGraph().vertexSet())
+      {
+         Addon addon = vertex.getAddon();
+         Assert.assertEquals(vertex.getViews(), index.getViewsOf(addon));
+         for (AddonView view : vertex.getViews())
+         {
+            Assert.assertTrue(index.getAddonsOf(view).contains(addon));
+         }
+      }
+   }
+
+   @Test(expected = UnsupportedOperationException.class)
+   public void testAddonsOfViewAreUnmodifiable() throws Exception
+   {
+      Addon a = createAddon("a");
+      AddonIndex index = new AddonIndex();
+      index.add(createVertex(a, view1));
+      index.getAddonsOf(view1).clear();
+   }
+
+   @Test(expected = UnsupportedOperationException.class)
+   public void testViewsOfAddonAreUnmodifiable() throws Exception
+   {
+      Addon a = createAddon("a");
+      AddonIndex index = new AddonIndex();
+      index.add(createVertex(a, view1));
+      index.getViewsOf(a).clear();
+   }
+
+   private Addon createAddon(String name)
+   {
+      return new AddonImpl(manager, AddonId.from(name, "1.0.0.Final"));
+   }
+
+   private AddonVertex createVertex(Addon addon, AddonView... views)
+   {
+      AddonVertex result = new AddonVertex(addon.getId().getName(), new SingleVersion(addon.getId().getVersion()
+               .toString()));
+      for (AddonView view : views)
+      {
+         result = new AddonVertex(result, view);
+      }
+      result.setAddon(addon);
+      return result;
+   }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.addons.AddonStatus;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.impl.LockManagerImpl;
+import org.jboss.forge.furnace.impl.graph.AddonVertex;
+import org.jboss.forge.furnace.impl.graph.MasterGraph;
+import org.jboss.forge.furnace.lock.LockMode;
+import org.jboss.forge.furnace.mock.MockAddonView;
+import org.jboss.forge.furnace.versions.SingleVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AddonStateManagerTest
+{
+   private static final int READERS = 4;
+
+   private final LockManagerImpl lock = new LockManagerImpl();
+   private final AddonStateManager manager = new AddonStateManager(lock);
+   private final AddonView view = new MockAddonView("test");
+
+   @Test(timeout = 30000)
+   public void testReadersSeeWholeSnapshotsWhileStateChanges() throws Exception
+   {
+      final List<Addon> before = createAddons("a", "b");
+      final List<Addon> after = new ArrayList<Addon>(before);
+      after.addAll(createAddons("c", "d"));
+      publish(before);
+      manager.setState(before.get(0), new AddonState());
+
+      final AtomicBoolean done = new AtomicBoolean();
+      final AtomicInteger progress = new AtomicInteger();
+      final CountDownLatch reading = new CountDownLatch(READERS);
+      ExecutorService executor = Executors.newFixedThreadPool(READERS);
+      List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+      for (int i = 0; i < READERS; i++)
+      {
+         readers.add(executor.submit(new Callable<Integer>()
+         {
+            @Override
+            public Integer call() throws Exception
+            {
+               int reads = 0;
+               boolean started = false;
+               reading.countDown();
+               while (!done.get() || reads == 0)
+               {
+                  Set<Addon> addons = manager.getAddonsOf(view);
+                  Assert.assertTrue("Saw a partial snapshot: " + addons,
+                           addons.size() == before.size() || addons.size() == after.size());
+                  for (Addon addon : addons)
+                  {
+                     Assert.assertSame(addon, manager.getAddon(view, addon.getId()));
+                     Assert.assertTrue(manager.getViewsOf(addon).contains(view));
+                  }
+
+                  AddonStatus status = before.get(0).getStatus();
+                  if (started)
+                     Assert.assertEquals(AddonStatus.STARTED, status);
+                  started = status.isStarted();
+                  reads++;
+                  progress.incrementAndGet();
+               }
+               return reads;
+            }
+         }));
+      }
+
+      try
+      {
+         Assert.assertTrue(reading.await(10, TimeUnit.SECONDS));
+         lock.performLocked(LockMode.WRITE, new Callable<Void>()
+         {
+            @Override
+            public Void call() throws Exception
+            {
+               MasterGraph graph = createGraph(after);
+               manager.setCurrentGraph(graph);
+               Assert.assertEquals(after.size(), manager.getAddonsOf(view).size());
+
+               FutureTask<Void> future = new FutureTask<Void>(new Runnable()
+               {
+                  @Override
+                  public void run()
+                  {
+                  }
+               }, null);
+               future.run();
+               manager.setHandles(before.get(0), future, null);
+
+               /*
+                * Readers must make progress while the write lock is held.
+                */
+               int seen = progress.get();
+               long deadline = System.currentTimeMillis() + 10000;
+               while (progress.get() < seen + READERS && System.currentTimeMillis() < deadline)
+                  Thread.sleep(10);
+               Assert.assertTrue(progress.get() >= seen + READERS);
+
+               manager.publishIndex();
+               return null;
+            }
+         });
+         Assert.assertTrue(before.get(0).getStatus().isStarted());
+         Assert.assertEquals(after.size(), manager.getAddonsOf(view).size());
+      }
+      finally
+      {
+         done.set(true);
+         executor.shutdown();
+      }
+
+      for (Future<Integer> reader : readers)
+      {
+         Assert.assertTrue(reader.get(10, TimeUnit.SECONDS) > 0);
+      }
+   }
+
+   @Test(timeout = 30000)
+   public void testReadersAreNotBlockedByWriteLock() throws Exception
+   {
+      final List<Addon> addons = createAddons("a", "b");
+      publish(addons);
+
+      lock.performLocked(LockMode.WRITE, new Callable<Void>()
+      {
+         @Override
+         public Void call() throws Exception
+         {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try
+            {
+               Future<Set<Addon>> result = executor.submit(new Callable<Set<Addon>>()
+               {
+                  @Override
+                  public Set<Addon> call() throws Exception
+                  {
+                     return manager.getAddonsOf(view);
+                  }
+               });
+               Assert.assertEquals(addons.size(), result.get(10, TimeUnit.SECONDS).size());
+            }
+            finally
+            {
+               executor.shutdownNow();
+            }
+            return null;
+         }
+      });
+   }
+
+   private List<Addon> createAddons(String... names)
+   {
+      List<Addon> result = new ArrayList<Addon>();
+      for (String name : names)
+      {
+         result.add(new AddonImpl(manager, AddonId.from(name, "1.0.0.Final")));
+      }
+      return result;
+   }
+
+   private void publish(List<Addon> addons)
+   {
+      manager.setCurrentGraph(createGraph(addons));
+      manager.publishIndex();
+   }
+
+   private MasterGraph createGraph(List<Addon> addons)
+   {
+      MasterGraph graph = new MasterGraph();
+      for (Addon addon : addons)
+      {
+         AddonVertex vertex = new AddonVertex(new AddonVertex(addon.getId().getName(), new SingleVersion(addon.getId()
+                  .getVersion().toString())), view);
+         vertex.setAddon(addon);
+         graph.addVertex(vertex);
+      }
+      return graph;
+   }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.exception.ContainerException;
+import org.jboss.forge.furnace.mock.MockAddonView;
+import org.jboss.forge.furnace.mock.MockExportedInstance;
+import org.jboss.forge.furnace.mock.MockServiceRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImportedImplTest
+{
+   private final MockAddons addons = new MockAddons();
+   private final AddonView view = new MockAddonView("view");
+   private final ServiceIndex index = new ServiceIndex(view, addons.getStateManager());
+
+   @Test
+   public void testGetSingleService() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      start(a, "a");
+
+      ImportedImpl<String> imported = new ImportedImpl<String>(index, String.class);
+      Assert.assertFalse(imported.isUnsatisfied());
+      Assert.assertFalse(imported.isAmbiguous());
+      Assert.assertEquals("a", imported.get());
+      Assert.assertEquals("a", imported.selectExact(String.class));
+   }
+
+   @Test(expected = ContainerException.class)
+   public void testGetUnsatisfiedService() throws Exception
+   {
+      ImportedImpl<String> imported = new ImportedImpl<String>(index, String.class);
+      Assert.assertTrue(imported.isUnsatisfied());
+      Assert.assertFalse(imported.iterator().hasNext());
+      imported.get();
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testGetAmbiguousService() throws Exception
+   {
+      start(addons.create("a", view), "a");
+      start(addons.create("b", view), "b");
+
+      ImportedImpl<String> imported = new ImportedImpl<String>(index, String.class);
+      Assert.assertTrue(imported.isAmbiguous());
+      Assert.assertEquals(new HashSet<String>(Arrays.asList("a", "b")), collect(imported));
+      Assert.assertTrue(imported.toString().contains("from addon"));
+      imported.get();
+   }
+
+   @Test
+   public void testHandleFollowsAddonStartAndStop() throws Exception
+   {
+      ImportedImpl<String> imported = new ImportedImpl<String>(index, String.class);
+      Assert.assertTrue(imported.isUnsatisfied());
+
+      Addon a = addons.create("a", view);
+      start(a, "a");
+      Assert.assertFalse(imported.isUnsatisfied());
+      Assert.assertEquals("a", imported.get());
+
+      Addon b = addons.create("b", view);
+      start(b, "b");
+      Assert.assertTrue(imported.isAmbiguous());
+
+      addons.stop(a);
+      index.update(a);
+      Assert.assertFalse(imported.isAmbiguous());
+      Assert.assertEquals("b", imported.get());
+
+      addons.stop(b);
+      index.update(b);
+      Assert.assertTrue(imported.isUnsatisfied());
+   }
+
+   @Test
+   public void testLookupByTypeName() throws Exception
+   {
+      start(addons.create("a", view), "a");
+      ImportedImpl<Object> imported = new ImportedImpl<Object>(index, String.class.getName());
+      Assert.assertEquals("a", imported.get());
+   }
+
+   @Test
+   public void testReleaseDelegatesToExportedInstance() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      MockExportedInstance<String> exported = new MockExportedInstance<String>("a", a);
+      addons.start(a, new MockServiceRegistry().export(String.class, exported));
+      index.update(a);
+
+      ImportedImpl<String> imported = new ImportedImpl<String>(index, String.class);
+      String instance = imported.get();
+      imported.release(instance);
+      Assert.assertEquals(1, exported.getReleased());
+
+      imported.release(instance);
+      Assert.assertEquals(1, exported.getReleased());
+   }
+
+   private void start(Addon addon, String value)
+   {
+      addons.start(addon, new MockServiceRegistry().export(String.class,
+               new MockExportedInstance<String>(value, addon)));
+      index.update(addon);
+   }
+
+   private <T> HashSet<T> collect(Iterable<T> iterable)
+   {
+      List<T> result = new ArrayList<T>();
+      for (T value : iterable)
+      {
+         result.add(value);
+      }
+      return new HashSet<T>(result);
+   }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.concurrent.FutureTask;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.impl.LockManagerImpl;
+import org.jboss.forge.furnace.impl.graph.AddonVertex;
+import org.jboss.forge.furnace.impl.graph.MasterGraph;
+import org.jboss.forge.furnace.spi.ServiceRegistry;
+import org.jboss.forge.furnace.versions.SingleVersion;
+
+/**
+ * Creates {@link Addon} instances in {@link AddonView} instances of an {@link AddonStateManager}, and starts and stops
+ * them without loading any modules.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+class MockAddons
+{
+   private final AddonStateManager stateManager = new AddonStateManager(new LockManagerImpl());
+   private final MasterGraph graph = new MasterGraph();
+
+   public AddonStateManager getStateManager()
+   {
+      return stateManager;
+   }
+
+   /**
+    * Create an {@link Addon} with the given name in the given {@link AddonView} instances, and publish it.
+    */
+   public Addon create(String name, AddonView... views)
+   {
+      Addon addon = new AddonImpl(stateManager, AddonId.from(name, "1.0.0.Final"));
+      AddonVertex vertex = new AddonVertex(name, new SingleVersion("1.0.0.Final"));
+      for (AddonView view : views)
+      {
+         vertex = new AddonVertex(vertex, view);
+      }
+      vertex.setAddon(addon);
+      graph.addVertex(vertex);
+      stateManager.setCurrentGraph(graph);
+      stateManager.publishIndex();
+      return addon;
+   }
+
+   /**
+    * Mark the given {@link Addon} as started with the given {@link ServiceRegistry}.
+    */
+   public void start(Addon addon, ServiceRegistry registry)
+   {
+      FutureTask<Void> future = new FutureTask<Void>(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+         }
+      }, null);
+      future.run();
+
+      stateManager.setState(addon, new AddonState());
+      stateManager.setServiceRegistry(addon, registry);
+      stateManager.setHandles(addon, future, null);
+   }
+
+   /**
+    * Mark the given {@link Addon} as stopped.
+    */
+   public void stop(Addon addon)
+   {
+      stateManager.setState(addon, new AddonState());
+   }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.impl.addons;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.impl.addons.ServiceIndex.Resolution;
+import org.jboss.forge.furnace.mock.MockAddonView;
+import org.jboss.forge.furnace.mock.MockExportedInstance;
+import org.jboss.forge.furnace.mock.MockServiceRegistry;
+import org.jboss.forge.furnace.spi.ExportedInstance;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServiceIndexTest
+{
+   private final MockAddons addons = new MockAddons();
+   private final AddonView view = new MockAddonView("view");
+   private final ServiceIndex index = new ServiceIndex(view, addons.getStateManager());
+
+   @Test
+   public void testStartedAddonIsIndexed() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      MockExportedInstance<String> exported = new MockExportedInstance<String>("a", a);
+      addons.start(a, new MockServiceRegistry().export(String.class, exported));
+      Assert.assertTrue(index.resolve(String.class, String.class.getName()).getExportedInstances().isEmpty());
+
+      index.update(a);
+      Assert.assertEquals(new HashSet<Addon>(Arrays.asList(a)), index.getIndexedAddons());
+      Resolution<String> resolution = index.resolve(String.class, String.class.getName());
+      Assert.assertEquals(new HashSet<ExportedInstance<String>>(Arrays.<ExportedInstance<String>> asList(exported)),
+               resolution.getExportedInstances());
+      Assert.assertSame(exported, resolution.getExportedInstance());
+   }
+
+   @Test
+   public void testStoppedAddonIsRemoved() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      addons.start(a, new MockServiceRegistry().export(String.class, new MockExportedInstance<String>("a", a)));
+      index.update(a);
+      Resolution<String> resolution = index.resolve(String.class, null);
+      Assert.assertEquals(1, resolution.getExportedInstances().size());
+
+      addons.stop(a);
+      index.update(a);
+      Assert.assertFalse(index.isCurrent(resolution));
+      Assert.assertTrue(index.getIndexedAddons().isEmpty());
+      Assert.assertTrue(index.resolve(String.class, null).getExportedInstances().isEmpty());
+      Assert.assertNull(index.resolve(String.class, null).getExportedInstance());
+   }
+
+   @Test
+   public void testUpdateQueriesOnlyChangedAddon() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      Addon b = addons.create("b", view);
+      MockServiceRegistry registryA = new MockServiceRegistry().export(String.class,
+               new MockExportedInstance<String>("a", a));
+      MockServiceRegistry registryB = new MockServiceRegistry();
+      addons.start(a, registryA);
+      addons.start(b, registryB);
+      index.update(a);
+      index.update(b);
+
+      Resolution<String> resolution = index.resolve(String.class, null);
+      Assert.assertSame(resolution, index.resolve(String.class, null));
+      Assert.assertTrue(index.isCurrent(resolution));
+      Assert.assertEquals(1, registryA.getQueries());
+      Assert.assertEquals(1, registryB.getQueries());
+
+      Addon c = addons.create("c", view);
+      MockServiceRegistry registryC = new MockServiceRegistry().export(String.class,
+               new MockExportedInstance<String>("c", c));
+      addons.start(c, registryC);
+      index.update(c);
+      Assert.assertFalse(index.isCurrent(resolution));
+
+      Assert.assertEquals(2, index.resolve(String.class, null).getExportedInstances().size());
+      Assert.assertEquals(1, registryA.getQueries());
+      Assert.assertEquals(1, registryB.getQueries());
+      Assert.assertEquals(1, registryC.getQueries());
+   }
+
+   @Test
+   public void testResolutionsAreReusedAcrossUpdatesWithoutLookups() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      MockServiceRegistry registryA = new MockServiceRegistry();
+      addons.start(a, registryA);
+      index.update(a);
+      index.resolve(String.class, null);
+
+      Addon b = addons.create("b", view);
+      Addon c = addons.create("c", view);
+      addons.start(b, new MockServiceRegistry());
+      addons.start(c, new MockServiceRegistry());
+      index.update(b);
+      index.update(c);
+
+      index.resolve(String.class, null);
+      Assert.assertEquals(1, registryA.getQueries());
+   }
+
+   @Test
+   public void testUnchangedAddonKeepsResolutionCurrent() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      addons.start(a, new MockServiceRegistry());
+      index.update(a);
+      Resolution<String> resolution = index.resolve(String.class, null);
+
+      index.update(a);
+      Assert.assertTrue(index.isCurrent(resolution));
+   }
+
+   @Test
+   public void testRestartedAddonIsQueriedAgain() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      MockServiceRegistry first = new MockServiceRegistry();
+      addons.start(a, first);
+      index.update(a);
+      index.resolve(String.class, null);
+
+      MockServiceRegistry second = new MockServiceRegistry().export(String.class,
+               new MockExportedInstance<String>("a", a));
+      addons.start(a, second);
+      index.update(a);
+      Assert.assertEquals(1, index.resolve(String.class, null).getExportedInstances().size());
+      Assert.assertEquals(1, first.getQueries());
+      Assert.assertEquals(1, second.getQueries());
+   }
+
+   @Test
+   public void testAddonOfOtherViewIsNotIndexed() throws Exception
+   {
+      Addon a = addons.create("a", new MockAddonView("other"));
+      addons.start(a, new MockServiceRegistry());
+      index.update(a);
+      Assert.assertTrue(index.getIndexedAddons().isEmpty());
+   }
+
+   @Test
+   public void testSyncIndexesStartedAddonsOfView() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      Addon b = addons.create("b", view);
+      Addon c = addons.create("c", view);
+      addons.start(a, new MockServiceRegistry());
+      addons.start(b, new MockServiceRegistry());
+      index.update(a);
+
+      addons.stop(a);
+      index.sync();
+      Assert.assertEquals(new HashSet<Addon>(Arrays.asList(b)), index.getIndexedAddons());
+
+      addons.start(c, new MockServiceRegistry());
+      index.sync();
+      Assert.assertEquals(new HashSet<Addon>(Arrays.asList(b, c)), index.getIndexedAddons());
+   }
+
+   @Test
+   public void testLookupByTypeName() throws Exception
+   {
+      Addon a = addons.create("a", view);
+      MockExportedInstance<String> exported = new MockExportedInstance<String>("a", a);
+      addons.start(a, new MockServiceRegistry().export(String.class, exported));
+      index.update(a);
+
+      Resolution<Object> resolution = index.resolve(null, String.class.getName());
+      Assert.assertEquals(1, resolution.getExportedInstances().size());
+      Assert.assertSame(exported, resolution.getExportedInstance());
+      Assert.assertNotSame(resolution, index.resolve(String.class, null));
+   }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class FilesTest
+{
+   private File root;
+
+   @Before
+   public void setUp() throws IOException
+   {
+      root = File.createTempFile("furnace-files", ".tmp");
+      root.delete();
+      root.mkdir();
+   }
+
+   @After
+   public void tearDown()
+   {
+      Files.delete(root, true);
+   }
+
+   @Test
+   public void testMoveRenamesWholeDirectory() throws Exception
+   {
+      File src = new File(root, "src");
+      File child = new File(new File(src, "nested"), "file.jar");
+      Assert.assertTrue(child.getParentFile().mkdirs());
+      Assert.assertTrue(child.createNewFile());
+
+      File dest = new File(root, "dest");
+      Files.move(src, dest);
+
+      Assert.assertFalse(src.exists());
+      Assert.assertTrue(new File(new File(dest, "nested"), "file.jar").isFile());
+   }
+
+   @Test
+   public void testMoveFailsIfDestinationExists() throws Exception
+   {
+      File src = new File(root, "src");
+      Assert.assertTrue(new File(src, "new.jar").getParentFile().mkdirs());
+      Assert.assertTrue(new File(src, "new.jar").createNewFile());
+      File dest = new File(root, "dest");
+      Assert.assertTrue(dest.mkdir());
+      Assert.assertTrue(new File(dest, "old.jar").createNewFile());
+
+      try
+      {
+         Files.move(src, dest);
+         Assert.fail("Should not move over an existing destination");
+      }
+      catch (IOException e)
+      {
+         // expected
+      }
+      Assert.assertTrue(new File(src, "new.jar").isFile());
+      Assert.assertTrue(new File(dest, "old.jar").isFile());
+      Assert.assertFalse(new File(dest, "new.jar").exists());
+   }
+
+   @Test(expected = IOException.class)
+   public void testMoveFailsIfSourceIsMissing() throws Exception
+   {
+      Files.move(new File(root, "missing"), new File(root, "dest"));
+   }
+}
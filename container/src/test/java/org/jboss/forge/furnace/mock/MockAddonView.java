@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.mock;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonFilter;
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.addons.AddonView;
+import org.jboss.forge.furnace.repositories.AddonRepository;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class MockAddonView implements AddonView
+{
+   private final String name;
+
+   public MockAddonView(String name)
+   {
+      this.name = name;
+   }
+
+   @Override
+   public String getName()
+   {
+      return name;
+   }
+
+   @Override
+   public void dispose()
+   {
+   }
+
+   @Override
+   public Addon getAddon(AddonId id)
+   {
+      return null;
+   }
+
+   @Override
+   public Set<Addon> getAddons()
+   {
+      return Collections.emptySet();
+   }
+
+   @Override
+   public Set<Addon> getAddons(AddonFilter filter)
+   {
+      return Collections.emptySet();
+   }
+
+   @Override
+   public Set<AddonRepository> getRepositories()
+   {
+      return Collections.emptySet();
+   }
+
+   @Override
+   public String toString()
+   {
+      return name;
+   }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.mock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.spi.ExportedInstance;
+
+/**
+ * An {@link ExportedInstance} of a fixed value, counting how often it is released.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class MockExportedInstance<T> implements ExportedInstance<T>
+{
+   private final T value;
+   private final Addon source;
+   private final AtomicInteger released = new AtomicInteger();
+
+   public MockExportedInstance(T value, Addon source)
+   {
+      this.value = value;
+      this.source = source;
+   }
+
+   public int getReleased()
+   {
+      return released.get();
+   }
+
+   @Override
+   public T get()
+   {
+      return value;
+   }
+
+   @Override
+   public void release(T instance)
+   {
+      released.incrementAndGet();
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public Class<? extends T> getActualType()
+   {
+      return (Class<? extends T>) value.getClass();
+   }
+
+   @Override
+   public Addon getSourceAddon()
+   {
+      return source;
+   }
+}
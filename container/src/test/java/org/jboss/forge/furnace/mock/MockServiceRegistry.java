@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.mock;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.forge.furnace.spi.ExportedInstance;
+import org.jboss.forge.furnace.spi.ServiceRegistry;
+
+/**
+ * A {@link ServiceRegistry} exporting fixed {@link ExportedInstance} instances, and counting how often it is queried.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class MockServiceRegistry implements ServiceRegistry
+{
+   private final Map<String, Set<ExportedInstance<?>>> instances = new HashMap<String, Set<ExportedInstance<?>>>();
+   private final AtomicInteger queries = new AtomicInteger();
+
+   public MockServiceRegistry export(Class<?> type, ExportedInstance<?> instance)
+   {
+      Set<ExportedInstance<?>> exported = instances.get(type.getName());
+      if (exported == null)
+      {
+         exported = new LinkedHashSet<ExportedInstance<?>>();
+         instances.put(type.getName(), exported);
+      }
+      exported.add(instance);
+      return this;
+   }
+
+   /**
+    * Get the number of times the exported instances of any type have been queried.
+    */
+   public int getQueries()
+   {
+      return queries.get();
+   }
+
+   @Override
+   public <T> Set<ExportedInstance<T>> getExportedInstances(Class<T> clazz)
+   {
+      return getExportedInstances(clazz.getName());
+   }
+
+   @Override
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   public <T> Set<ExportedInstance<T>> getExportedInstances(String clazz)
+   {
+      queries.incrementAndGet();
+      Set<ExportedInstance<?>> result = instances.get(clazz);
+      if (result == null)
+         return Collections.emptySet();
+      return (Set) Collections.unmodifiableSet(result);
+   }
+
+   @Override
+   public <T> ExportedInstance<T> getExportedInstance(Class<T> type)
+   {
+      return getExportedInstance(type.getName());
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> ExportedInstance<T> getExportedInstance(String type)
+   {
+      Set<ExportedInstance<?>> result = instances.get(type);
+      if (result == null || result.isEmpty())
+         return null;
+      return (ExportedInstance<T>) result.iterator().next();
+   }
+
+   @Override
+   public Set<Class<?>> getExportedTypes()
+   {
+      Set<Class<?>> result = new HashSet<Class<?>>();
+      for (Set<ExportedInstance<?>> exported : instances.values())
+      {
+         for (ExportedInstance<?> instance : exported)
+         {
+            result.add(instance.getActualType());
+         }
+      }
+      return result;
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> Set<Class<T>> getExportedTypes(Class<T> type)
+   {
+      Set<Class<T>> result = new HashSet<Class<T>>();
+      for (Class<?> exported : getExportedTypes())
+      {
+         if (type.isAssignableFrom(exported))
+            result.add((Class<T>) exported);
+      }
+      return result;
+   }
+
+   @Override
+   public boolean hasService(Class<?> clazz)
+   {
+      return hasService(clazz.getName());
+   }
+
+   @Override
+   public boolean hasService(String clazz)
+   {
+      return instances.containsKey(clazz);
+   }
+}
@@ -18,4 +18,10 @@ import java.util.List;
 public interface InstallRequest extends AddonActionRequest
 {
    public List<AddonActionRequest> getActions();
+
+   /**
+    * Resolve the resources of all addons to be deployed by this request, concurrently. Called by {@link #perform()} if
+    * not called before.
+    */
+   public void prefetch();
 }
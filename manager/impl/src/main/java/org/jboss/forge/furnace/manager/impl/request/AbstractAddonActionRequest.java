@@ -7,9 +7,11 @@
 
 package org.jboss.forge.furnace.manager.impl.request;
 
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import org.jboss.forge.furnace.Furnace;
+import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.manager.request.AddonActionRequest;
 import org.jboss.forge.furnace.manager.spi.AddonInfo;
 import org.jboss.forge.furnace.repositories.MutableAddonRepository;
@@ -50,34 +52,67 @@ public abstract class AbstractAddonActionRequest implements AddonActionRequest
    @Override
    public final void perform()
    {
-      ConfigurationScanListener listener = new ConfigurationScanListener();
+      final ConfigurationScanListener listener = new ConfigurationScanListener();
       ListenerRegistration<ContainerLifecycleListener> reg = furnace.addContainerLifecycleListener(listener);
       try
       {
-         execute();
-         if (!furnace.getStatus().isStopped())
+         prepare();
+         int mark = furnace.getLockManager().performLocked(LockMode.WRITE, new Callable<Integer>()
          {
-            while (furnace.getStatus().isStarting() || !listener.isConfigurationScanned())
+            @Override
+            public Integer call() throws Exception
             {
-               try
-               {
-                  Thread.sleep(100);
-               }
-               catch (InterruptedException e)
-               {
-                  throw new RuntimeException(e);
-               }
+               execute();
+               return listener.mark();
             }
-         }
+         });
+         awaitConfigurationScanned(furnace, listener, mark);
       }
       finally
       {
+         cleanup();
          reg.removeListener();
       }
    }
 
+   /**
+    * Wait until the given {@link Furnace} has scanned and started the changes made to its repositories since the given
+    * {@link ConfigurationScanListener#mark()}, unless it is stopped.
+    */
+   static void awaitConfigurationScanned(Furnace furnace, ConfigurationScanListener listener, int mark)
+   {
+      if (!furnace.getStatus().isStopped())
+      {
+         try
+         {
+            listener.awaitConfigurationScanned(furnace, mark);
+         }
+         catch (InterruptedException e)
+         {
+            throw new RuntimeException(e);
+         }
+      }
+   }
+
+   /**
+    * Prepare this request to be executed, before the write lock is taken. Does nothing by default.
+    */
+   public void prepare()
+   {
+   }
+
+   /**
+    * Execute this request. Called while holding the write lock, after {@link #prepare()}.
+    */
    public abstract void execute();
 
+   /**
+    * Release anything {@link #prepare()} acquired and {@link #execute()} did not consume. Does nothing by default.
+    */
+   public void cleanup()
+   {
+   }
+
    @Override
    public String toString()
    {
@@ -9,6 +9,7 @@ package org.jboss.forge.furnace.manager.impl.request;
 import org.jboss.forge.furnace.Furnace;
 import org.jboss.forge.furnace.exception.ContainerException;
 import org.jboss.forge.furnace.spi.ContainerLifecycleListener;
+import org.jboss.forge.furnace.spi.ContainerStatusSignal;
 
 /**
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
@@ -16,6 +17,9 @@ import org.jboss.forge.furnace.spi.ContainerLifecycleListener;
 public class ConfigurationScanListener implements ContainerLifecycleListener
 {
    private boolean configurationScanned = false;
+   private boolean stopped = false;
+   private int scansBegun = 0;
+   private int scansCompleted = 0;
 
    @Override
    public void beforeStart(Furnace furnace) throws ContainerException
@@ -23,14 +27,17 @@ public class ConfigurationScanListener implements ContainerLifecycleListener
    }
 
    @Override
-   public void beforeConfigurationScan(Furnace furnace) throws ContainerException
+   public synchronized void beforeConfigurationScan(Furnace furnace) throws ContainerException
    {
+      scansBegun++;
    }
 
    @Override
-   public void afterConfigurationScan(Furnace furnace) throws ContainerException
+   public synchronized void afterConfigurationScan(Furnace furnace) throws ContainerException
    {
       configurationScanned = true;
+      scansCompleted = scansBegun;
+      notifyAll();
    }
 
    @Override
@@ -39,13 +46,53 @@ public class ConfigurationScanListener implements ContainerLifecycleListener
    }
 
    @Override
-   public void afterStop(Furnace furnace) throws ContainerException
+   public synchronized void afterStop(Furnace furnace) throws ContainerException
    {
+      stopped = true;
+      notifyAll();
    }
 
-   public boolean isConfigurationScanned()
+   public synchronized boolean isConfigurationScanned()
    {
       return configurationScanned;
    }
 
+   /**
+    * Return a mark identifying the configuration scans begun so far, for use with
+    * {@link #awaitConfigurationScanned(Furnace, int)}. Should be taken while holding the write lock, after making the
+    * changes to be scanned. The container begins a scan before taking the write lock to scan its configuration, so any
+    * scan begun after the mark sees the changes.
+    */
+   public synchronized int mark()
+   {
+      return scansBegun;
+   }
+
+   /**
+    * Block until a configuration scan begun after the given {@link #mark()} has completed, and the given
+    * {@link Furnace} has finished starting the addons affected by it. Returns immediately if the {@link Furnace} is
+    * stopped.
+    */
+   public void awaitConfigurationScanned(Furnace furnace, int mark) throws InterruptedException
+   {
+      synchronized (this)
+      {
+         while (scansCompleted <= mark && !stopped && !furnace.getStatus().isStopped())
+         {
+            wait(1000);
+         }
+      }
+
+      if (furnace instanceof ContainerStatusSignal)
+      {
+         ((ContainerStatusSignal) furnace).awaitStarted();
+      }
+      else
+      {
+         while (furnace.getStatus().isStarting())
+         {
+            Thread.sleep(100);
+         }
+      }
+   }
 }
@@ -12,12 +12,12 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.jboss.forge.furnace.Furnace;
-import org.jboss.forge.furnace.addons.AddonId;
 import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.manager.request.DeployRequest;
 import org.jboss.forge.furnace.manager.spi.AddonInfo;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
 import org.jboss.forge.furnace.repositories.MutableAddonRepository;
+import org.jboss.forge.furnace.repositories.StagingAddonRepository;
 
 /**
  * When an addon is installed, another addons could be required. This object returns the necessary information for the
@@ -28,6 +28,9 @@ import org.jboss.forge.furnace.repositories.MutableAddonRepository;
  */
 class DeployRequestImpl extends AbstractAddonActionRequest implements DeployRequest
 {
+   private boolean staged;
+   private File stagingDir;
+
    /**
     * Package-access constructor. Only AddonManager should be allowed to call this constructor.
     * 
@@ -38,6 +41,21 @@ class DeployRequestImpl extends AbstractAddonActionRequest implements DeployRequ
       super(info, repository, forge);
    }
 
+   /**
+    * Resolve and stage resources before the write lock is taken, if the repository is a
+    * {@link StagingAddonRepository}, so that only moving them into place and writing the addon descriptor is done while
+    * locked.
+    */
+   @Override
+   public void prepare()
+   {
+      if (repository instanceof StagingAddonRepository)
+      {
+         stagingDir = ((StagingAddonRepository) repository).stage(addonInfo.getAddon(), getResourceJars());
+         staged = true;
+      }
+   }
+
    @Override
    public void execute()
    {
@@ -46,30 +64,55 @@ class DeployRequestImpl extends AbstractAddonActionRequest implements DeployRequ
          @Override
          public Object call() throws Exception
          {
-            deploy(repository);
+            log.info("Deploying addon " + addonInfo.getAddon());
+            if (staged)
+            {
+               ((StagingAddonRepository) repository).deployStaged(addonInfo.getAddon(), getDependencies(),
+                        stagingDir);
+               stagingDir = null;
+            }
+            else
+            {
+               deploy(repository);
+            }
             repository.enable(addonInfo.getAddon());
             return null;
          }
       });
    }
 
+   @Override
+   public void cleanup()
+   {
+      if (staged)
+         ((StagingAddonRepository) repository).unstage(stagingDir);
+      stagingDir = null;
+      staged = false;
+   }
+
    protected void deploy(MutableAddonRepository repository)
    {
-      AddonId addon = addonInfo.getAddon();
-      Set<File> resourceJars = addonInfo.getResources();
+      repository.deploy(addonInfo.getAddon(), getDependencies(), getResourceJars());
+   }
 
+   private Set<File> getResourceJars()
+   {
+      Set<File> resourceJars = addonInfo.getResources();
       if (resourceJars.isEmpty())
       {
-         log.fine("No resource JARs found for " + addon);
+         log.fine("No resource JARs found for " + addonInfo.getAddon());
       }
+      return resourceJars;
+   }
 
+   private Set<AddonDependencyEntry> getDependencies()
+   {
       Set<AddonDependencyEntry> addonDependencies = addonInfo.getDependencyEntries();
       if (addonDependencies.isEmpty())
       {
-         log.fine("No dependencies found for addon " + addon);
+         log.fine("No dependencies found for addon " + addonInfo.getAddon());
       }
-      log.info("Deploying addon " + addon);
-      repository.deploy(addon, addonDependencies, resourceJars);
+      return addonDependencies;
    }
 
    @Override
@@ -7,12 +7,28 @@
 
 package org.jboss.forge.furnace.manager.impl.request;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.jboss.forge.furnace.Furnace;
+import org.jboss.forge.furnace.lock.LockMode;
 import org.jboss.forge.furnace.manager.request.AddonActionRequest;
+import org.jboss.forge.furnace.manager.request.DeployRequest;
 import org.jboss.forge.furnace.manager.request.InstallRequest;
+import org.jboss.forge.furnace.manager.request.UpdateRequest;
 import org.jboss.forge.furnace.manager.spi.AddonInfo;
+import org.jboss.forge.furnace.spi.ContainerLifecycleListener;
+import org.jboss.forge.furnace.spi.ListenerRegistration;
 
 /**
  * Implementation of the {@link InstallRequest} interface
@@ -22,8 +38,15 @@ import org.jboss.forge.furnace.manager.spi.AddonInfo;
  */
 class InstallRequestImpl implements InstallRequest
 {
+   /*
+    * The maximum number of addons whose resources are resolved concurrently by prefetch().
+    */
+   private static final int PREFETCH_THREADS = Integer.getInteger("furnace.prefetch.threads", Runtime.getRuntime()
+            .availableProcessors());
+
    private final AddonInfo addonInfo;
    private final List<AddonActionRequest> actions;
+   private boolean prefetched = false;
 
    public InstallRequestImpl(AddonInfo addonInfo, List<AddonActionRequest> actions)
    {
@@ -34,12 +57,193 @@ class InstallRequestImpl implements InstallRequest
    @Override
    public void perform()
    {
-      for (AddonActionRequest action : actions)
+      prefetch();
+      if (actions.isEmpty())
+         return;
+
+      final List<AddonActionRequest> remaining = new ArrayList<AddonActionRequest>();
+      final Furnace furnace = getFurnace();
+      if (furnace == null)
+      {
+         remaining.addAll(actions);
+      }
+      else
+      {
+         /*
+          * Apply all repository changes under a single write lock, so that the container rescans its configuration
+          * once for the whole request instead of once per action.
+          */
+         final List<AbstractAddonActionRequest> batch = new ArrayList<AbstractAddonActionRequest>();
+         for (AddonActionRequest action : actions)
+         {
+            if (action instanceof AbstractAddonActionRequest)
+            {
+               batch.add((AbstractAddonActionRequest) action);
+            }
+            else if (action instanceof UpdateRequestImpl)
+            {
+               UpdateRequest update = (UpdateRequest) action;
+               batch.add((AbstractAddonActionRequest) update.getRemoveRequest());
+               batch.add((AbstractAddonActionRequest) update.getDeployRequest());
+            }
+            else
+            {
+               remaining.add(action);
+            }
+         }
+
+         final ConfigurationScanListener listener = new ConfigurationScanListener();
+         ListenerRegistration<ContainerLifecycleListener> reg = furnace.addContainerLifecycleListener(listener);
+         try
+         {
+            for (AbstractAddonActionRequest action : batch)
+            {
+               action.prepare();
+            }
+
+            int mark = furnace.getLockManager().performLocked(LockMode.WRITE, new Callable<Integer>()
+            {
+               @Override
+               public Integer call() throws Exception
+               {
+                  for (AbstractAddonActionRequest action : batch)
+                  {
+                     action.execute();
+                  }
+                  return listener.mark();
+               }
+            });
+            if (!batch.isEmpty())
+               AbstractAddonActionRequest.awaitConfigurationScanned(furnace, listener, mark);
+         }
+         finally
+         {
+            for (AbstractAddonActionRequest action : batch)
+            {
+               action.cleanup();
+            }
+            reg.removeListener();
+         }
+      }
+
+      for (AddonActionRequest action : remaining)
       {
          action.perform();
       }
    }
 
+   /*
+    * Get the Furnace instance shared by all actions of this request, or null if they do not share one.
+    */
+   private Furnace getFurnace()
+   {
+      Furnace result = null;
+      for (AddonActionRequest action : actions)
+      {
+         Furnace furnace = null;
+         if (action instanceof AbstractAddonActionRequest)
+            furnace = ((AbstractAddonActionRequest) action).furnace;
+         else if (action instanceof UpdateRequestImpl)
+         {
+            UpdateRequest update = (UpdateRequest) action;
+            if (update.getRemoveRequest() instanceof AbstractAddonActionRequest
+                     && update.getDeployRequest() instanceof AbstractAddonActionRequest)
+            {
+               furnace = ((AbstractAddonActionRequest) update.getRemoveRequest()).furnace;
+               if (furnace != ((AbstractAddonActionRequest) update.getDeployRequest()).furnace)
+                  return null;
+            }
+         }
+         else
+            continue;
+
+         if (furnace == null || (result != null && result != furnace))
+            return null;
+         result = furnace;
+      }
+      return result;
+   }
+
+   @Override
+   public synchronized void prefetch()
+   {
+      if (prefetched)
+         return;
+
+      Set<AddonInfo> deployed = new LinkedHashSet<AddonInfo>();
+      for (AddonActionRequest action : actions)
+      {
+         if (action instanceof DeployRequest)
+            deployed.add(action.getRequestedAddonInfo());
+         else if (action instanceof UpdateRequest)
+            deployed.add(((UpdateRequest) action).getDeployRequest().getRequestedAddonInfo());
+      }
+
+      int threads = Math.min(deployed.size(), PREFETCH_THREADS);
+      if (threads < 2)
+      {
+         for (AddonInfo info : deployed)
+         {
+            info.getResources();
+         }
+      }
+      else
+      {
+         ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+         {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+               Thread thread = new Thread(runnable, "Furnace Addon Prefetch " + count.incrementAndGet());
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+         try
+         {
+            final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (final AddonInfo info : deployed)
+            {
+               tasks.add(new Callable<Void>()
+               {
+                  @Override
+                  public Void call() throws Exception
+                  {
+                     Thread.currentThread().setContextClassLoader(loader);
+                     info.getResources();
+                     return null;
+                  }
+               });
+            }
+
+            for (Future<Void> future : executor.invokeAll(tasks))
+            {
+               future.get();
+            }
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while resolving addon resources", e);
+         }
+         catch (ExecutionException e)
+         {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+               throw (RuntimeException) cause;
+            throw new RuntimeException("Failed to resolve addon resources", cause);
+         }
+         finally
+         {
+            executor.shutdownNow();
+         }
+      }
+      prefetched = true;
+   }
+
    @Override
    public List<AddonActionRequest> getActions()
    {
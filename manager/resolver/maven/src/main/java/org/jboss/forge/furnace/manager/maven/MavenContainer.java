@@ -62,6 +62,10 @@ public class MavenContainer
     */
    public static final String ALT_LOCAL_REPOSITORY_LOCATION = "maven.repo.local";
 
+   private volatile RepositorySystem repositorySystem;
+   private Settings settings;
+   private String settingsKey;
+
    public List<RemoteRepository> getEnabledRepositoriesFromProfile(Settings settings)
    {
       List<RemoteRepository> settingsRepos = new ArrayList<RemoteRepository>();
@@ -85,32 +89,74 @@ public class MavenContainer
       return settingsRepos;
    }
 
+   /**
+    * Get the effective Maven {@link Settings}. The settings files are only re-read if one of them, or one of the
+    * system properties overriding their location, has changed since the last call. The returned {@link Settings} are
+    * shared, and must not be modified.
+    */
    public Settings getSettings()
    {
-      try
+      File userSettings;
+      String userSettingsLocation = System.getProperty(ALT_USER_SETTINGS_XML_LOCATION);
+      if (userSettingsLocation != null)
       {
-         SettingsBuilder settingsBuilder = new DefaultSettingsBuilderFactory().newInstance();
-         SettingsBuildingRequest settingsRequest = new DefaultSettingsBuildingRequest();
-         String userSettingsLocation = System.getProperty(ALT_USER_SETTINGS_XML_LOCATION);
-         if (userSettingsLocation != null)
-         {
-            settingsRequest.setUserSettingsFile(new File(userSettingsLocation));
-         }
-         else
+         userSettings = new File(userSettingsLocation);
+      }
+      else
+      {
+         userSettings = new File(getUserHomeDir(), "/.m2/settings.xml");
+      }
+
+      File globalSettings = null;
+      String globalSettingsLocation = System.getProperty(ALT_GLOBAL_SETTINGS_XML_LOCATION);
+      if (globalSettingsLocation != null)
+      {
+         globalSettings = new File(globalSettingsLocation);
+      }
+      else
+      {
+         if (M2_HOME != null)
          {
-            settingsRequest.setUserSettingsFile(new File(getUserHomeDir(), "/.m2/settings.xml"));
+            globalSettings = new File(M2_HOME, "/conf/settings.xml");
          }
-         String globalSettingsLocation = System.getProperty(ALT_GLOBAL_SETTINGS_XML_LOCATION);
-         if (globalSettingsLocation != null)
+      }
+
+      String key = getSettingsKey(userSettings, globalSettings, System.getProperty(ALT_LOCAL_REPOSITORY_LOCATION));
+      synchronized (this)
+      {
+         if (settings == null || !key.equals(settingsKey))
          {
-            settingsRequest.setGlobalSettingsFile(new File(globalSettingsLocation));
+            settings = buildSettings(userSettings, globalSettings);
+            settingsKey = key;
          }
-         else
+         return settings;
+      }
+   }
+
+   private String getSettingsKey(File userSettings, File globalSettings, String localRepository)
+   {
+      StringBuilder builder = new StringBuilder();
+      for (File file : new File[] { userSettings, globalSettings })
+      {
+         if (file != null)
+            builder.append(file.getAbsolutePath()).append('@').append(file.lastModified()).append(':')
+                     .append(file.length());
+         builder.append('|');
+      }
+      builder.append(localRepository).append('|').append(getUserHomePath());
+      return builder.toString();
+   }
+
+   private Settings buildSettings(File userSettings, File globalSettings)
+   {
+      try
+      {
+         SettingsBuilder settingsBuilder = new DefaultSettingsBuilderFactory().newInstance();
+         SettingsBuildingRequest settingsRequest = new DefaultSettingsBuildingRequest();
+         settingsRequest.setUserSettingsFile(userSettings);
+         if (globalSettings != null)
          {
-            if (M2_HOME != null)
-            {
-               settingsRequest.setGlobalSettingsFile(new File(M2_HOME, "/conf/settings.xml"));
-            }
+            settingsRequest.setGlobalSettingsFile(globalSettings);
          }
          SettingsBuildingResult settingsBuildingResult = settingsBuilder.build(settingsRequest);
          Settings effectiveSettings = settingsBuildingResult.getEffectiveSettings();
@@ -136,16 +182,31 @@ public class MavenContainer
       }
    }
 
+   /**
+    * Get the {@link RepositorySystem}, creating it on first use. The {@link RepositorySystem} is thread-safe, and
+    * shared by all callers.
+    */
    public RepositorySystem getRepositorySystem()
    {
-
-      final DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
-      locator.setServices(ModelBuilder.class, new DefaultModelBuilderFactory().newInstance());
-      // Installing Wagon to fetch from HTTP repositories
-      locator.setServices(WagonProvider.class, new ManualWagonProvider());
-      locator.addService(RepositoryConnectorFactory.class, WagonRepositoryConnectorFactory.class);
-      final RepositorySystem repositorySystem = locator.getService(RepositorySystem.class);
-      return repositorySystem;
+      RepositorySystem result = repositorySystem;
+      if (result == null)
+      {
+         synchronized (this)
+         {
+            result = repositorySystem;
+            if (result == null)
+            {
+               final DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+               locator.setServices(ModelBuilder.class, new DefaultModelBuilderFactory().newInstance());
+               // Installing Wagon to fetch from HTTP repositories
+               locator.setServices(WagonProvider.class, new ManualWagonProvider());
+               locator.addService(RepositoryConnectorFactory.class, WagonRepositoryConnectorFactory.class);
+               result = locator.getService(RepositorySystem.class);
+               repositorySystem = result;
+            }
+         }
+      }
+      return result;
    }
 
    public static org.eclipse.aether.repository.Proxy convertFromMavenProxy(org.apache.maven.settings.Proxy proxy)
@@ -170,6 +231,9 @@ public class MavenContainer
       return getUserHomeDir().getAbsolutePath();
    }
 
+   /**
+    * Create a new session with its own repository cache. A session may be shared by concurrent requests.
+    */
    public DefaultRepositorySystemSession setupRepoSession(final RepositorySystem repoSystem, final Settings settings)
    {
       DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
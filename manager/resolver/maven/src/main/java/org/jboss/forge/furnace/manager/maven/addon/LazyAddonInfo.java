@@ -11,31 +11,44 @@ import java.io.File;
 import java.util.Set;
 
 import org.jboss.forge.furnace.addons.AddonId;
-import org.jboss.forge.furnace.manager.spi.AddonDependencyResolver;
+import org.jboss.forge.furnace.manager.maven.addon.MavenAddonDependencyResolver.ResolutionContext;
 import org.jboss.forge.furnace.manager.spi.AddonInfo;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
 
 /**
- * Makes {@link AddonInfo#getResources()} lazy
+ * Makes {@link AddonInfo#getResources()} lazy. Resources are resolved only once, on first access.
  * 
  * @author <a href="mailto:ggastald@redhat.com">George Gastaldi</a>
  * 
  */
 class LazyAddonInfo implements AddonInfo
 {
-   private final AddonDependencyResolver resolver;
+   private final MavenAddonDependencyResolver resolver;
+   private final ResolutionContext context;
    private AddonInfoBuilder builder;
+   private volatile boolean resourcesResolved = false;
 
-   public LazyAddonInfo(AddonDependencyResolver resolver, AddonInfoBuilder builder)
+   public LazyAddonInfo(MavenAddonDependencyResolver resolver, ResolutionContext context, AddonInfoBuilder builder)
    {
       this.resolver = resolver;
+      this.context = context;
       this.builder = builder;
    }
 
    @Override
    public Set<File> getResources()
    {
-      resolveResources(builder);
+      if (!resourcesResolved)
+      {
+         synchronized (this)
+         {
+            if (!resourcesResolved)
+            {
+               resolveResources(builder);
+               resourcesResolved = true;
+            }
+         }
+      }
       return builder.getResources();
    }
 
@@ -84,7 +97,7 @@ class LazyAddonInfo implements AddonInfo
    public void resolveResources(AddonInfoBuilder addonInfo)
    {
       AddonId addon = addonInfo.getAddon();
-      File[] resources = resolver.resolveResources(addon);
+      File[] resources = resolver.resolveResources(addon, context);
       for (File resource : resources)
       {
          addonInfo.addResource(resource);
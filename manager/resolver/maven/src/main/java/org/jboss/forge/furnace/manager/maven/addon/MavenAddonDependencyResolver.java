@@ -8,9 +8,22 @@
 package org.jboss.forge.furnace.manager.maven.addon;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.maven.settings.Settings;
 import org.eclipse.aether.DefaultRepositorySystemSession;
@@ -36,6 +49,7 @@ import org.jboss.forge.furnace.manager.maven.util.MavenRepositories;
 import org.jboss.forge.furnace.manager.spi.AddonDependencyResolver;
 import org.jboss.forge.furnace.manager.spi.AddonInfo;
 import org.jboss.forge.furnace.util.Assert;
+import org.jboss.forge.furnace.util.ClassLoaders;
 
 /**
  * Maven implementation of the {@link AddonDependencyResolver} used by the AddonManager
@@ -46,8 +60,17 @@ import org.jboss.forge.furnace.util.Assert;
 public class MavenAddonDependencyResolver implements AddonDependencyResolver
 {
    private static final String FORGE_ADDON_CLASSIFIER = "forge-addon";
+
+   /*
+    * The maximum number of addon dependency hierarchies collected concurrently. Set "furnace.resolver.threads" to 1 to
+    * collect them sequentially.
+    */
+   private static final int RESOLVER_THREADS = Integer.getInteger("furnace.resolver.threads", Runtime.getRuntime()
+            .availableProcessors());
+
    private final String classifier;
    private final MavenContainer container = new MavenContainer();
+   private ThreadPoolExecutor executor;
 
    public MavenAddonDependencyResolver()
    {
@@ -63,34 +86,30 @@ public class MavenAddonDependencyResolver implements AddonDependencyResolver
    @Override
    public AddonInfo resolveAddonDependencyHierarchy(AddonId addonId)
    {
-      String coords = toMavenCoords(addonId);
-      RepositorySystem system = container.getRepositorySystem();
-      Settings settings = container.getSettings();
-      DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
-
-      DependencyNode dependencyNode = traverseAddonGraph(coords, system, settings, session);
-      return fromNode(addonId, dependencyNode, system, settings, session);
+      ResolutionContext context = newContext();
+      return context.await(null, addonId, context.schedule(addonId));
    }
 
    @Override
    public File[] resolveResources(final AddonId addonId)
    {
-      RepositorySystem system = container.getRepositorySystem();
-      Settings settings = container.getSettings();
-      DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
+      return resolveResources(addonId, newContext());
+   }
+
+   /**
+    * Resolve the resources of the given {@link AddonId} using the session of the given {@link ResolutionContext}.
+    */
+   File[] resolveResources(final AddonId addonId, ResolutionContext context)
+   {
       final String mavenCoords = toMavenCoords(addonId);
       Artifact queryArtifact = new DefaultArtifact(mavenCoords);
-      session.setDependencyTraverser(new AddonDependencyTraverser(classifier));
-      session.setDependencySelector(new AddonDependencySelector(classifier));
       Dependency dependency = new Dependency(queryArtifact, null);
 
-      List<RemoteRepository> repositories = MavenRepositories.getRemoteRepositories(container, settings);
-
-      CollectRequest collectRequest = new CollectRequest(dependency, repositories);
+      CollectRequest collectRequest = new CollectRequest(dependency, context.repositories);
       DependencyResult result;
       try
       {
-         result = system.resolveDependencies(session, new DependencyRequest(collectRequest, null));
+         result = context.system.resolveDependencies(context.session, new DependencyRequest(collectRequest, null));
       }
       catch (DependencyResolutionException e)
       {
@@ -177,57 +196,74 @@ public class MavenAddonDependencyResolver implements AddonDependencyResolver
       }
    }
 
-   private AddonInfo fromNode(AddonId id, DependencyNode dependencyNode, RepositorySystem system, Settings settings,
-            DefaultRepositorySystemSession session)
+   private ResolutionContext newContext()
+   {
+      RepositorySystem system = container.getRepositorySystem();
+      Settings settings = container.getSettings();
+      DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
+      session.setDependencyTraverser(new AddonDependencyTraverser(this.classifier));
+      session.setDependencySelector(new AddonDependencySelector(this.classifier));
+      List<RemoteRepository> repositories = MavenRepositories.getRemoteRepositories(container, settings);
+      return new ResolutionContext(system, session, repositories);
+   }
+
+   private AddonInfo fromNode(AddonId id, DependencyNode dependencyNode, ResolutionContext context)
    {
       AddonInfoBuilder builder = AddonInfoBuilder.from(id);
       List<DependencyNode> children = dependencyNode.getChildren();
+      List<Dependency> dependencies = new ArrayList<Dependency>();
+      List<AddonId> addonIds = new ArrayList<AddonId>();
+      List<FutureTask<AddonInfo>> hierarchies = new ArrayList<FutureTask<AddonInfo>>();
       for (DependencyNode child : children)
       {
          Dependency dependency = child.getDependency();
          Artifact artifact = dependency.getArtifact();
          if (isAddon(artifact))
          {
-            AddonId childId = toAddonId(artifact);
-            boolean exported = false;
-            boolean optional = dependency.isOptional();
-            String scope = dependency.getScope();
-            if (scope != null && !optional)
-            {
-               if ("compile".equalsIgnoreCase(scope) || "runtime".equalsIgnoreCase(scope))
-                  exported = true;
-               else if ("provided".equalsIgnoreCase(scope))
-                  exported = false;
-            }
-            DependencyNode node = traverseAddonGraph(toMavenCoords(childId), system, settings, session);
-            AddonInfo addonInfo = fromNode(childId, node, system, settings, session);
-            if (optional)
-            {
-               builder.addOptionalDependency(addonInfo, exported);
-            }
-            else
-            {
-               builder.addRequiredDependency(addonInfo, exported);
-            }
+            AddonId addonId = toAddonId(artifact);
+            dependencies.add(dependency);
+            addonIds.add(addonId);
+            hierarchies.add(context.schedule(addonId));
          }
       }
-      return new LazyAddonInfo(this, builder);
+
+      for (int i = 0; i < dependencies.size(); i++)
+      {
+         Dependency dependency = dependencies.get(i);
+         boolean exported = false;
+         boolean optional = dependency.isOptional();
+         String scope = dependency.getScope();
+         if (scope != null && !optional)
+         {
+            if ("compile".equalsIgnoreCase(scope) || "runtime".equalsIgnoreCase(scope))
+               exported = true;
+            else if ("provided".equalsIgnoreCase(scope))
+               exported = false;
+         }
+         AddonInfo addonInfo = context.await(id, addonIds.get(i), hierarchies.get(i));
+         if (optional)
+         {
+            builder.addOptionalDependency(addonInfo, exported);
+         }
+         else
+         {
+            builder.addRequiredDependency(addonInfo, exported);
+         }
+      }
+      return new LazyAddonInfo(this, context, builder);
    }
 
-   private DependencyNode traverseAddonGraph(String coords, RepositorySystem system, Settings settings,
-            DefaultRepositorySystemSession session)
+   private DependencyNode traverseAddonGraph(String coords, ResolutionContext context)
    {
-      session.setDependencyTraverser(new AddonDependencyTraverser(this.classifier));
-      session.setDependencySelector(new AddonDependencySelector(this.classifier));
       Artifact queryArtifact = new DefaultArtifact(coords);
 
-      List<RemoteRepository> repositories = MavenRepositories.getRemoteRepositories(container, settings);
-      CollectRequest collectRequest = new CollectRequest(new Dependency(queryArtifact, null), repositories);
+      CollectRequest collectRequest = new CollectRequest(new Dependency(queryArtifact, null),
+               context.repositories);
 
       CollectResult result;
       try
       {
-         result = system.collectDependencies(session, collectRequest);
+         result = context.system.collectDependencies(context.session, collectRequest);
       }
       catch (DependencyCollectionException e)
       {
@@ -236,6 +272,163 @@ public class MavenAddonDependencyResolver implements AddonDependencyResolver
       return result.getRoot();
    }
 
+   private synchronized ThreadPoolExecutor getExecutor()
+   {
+      if (executor == null)
+      {
+         executor = new ThreadPoolExecutor(RESOLVER_THREADS, RESOLVER_THREADS, 60L, TimeUnit.SECONDS,
+                  new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+                  {
+                     private final AtomicInteger count = new AtomicInteger();
+
+                     @Override
+                     public Thread newThread(Runnable runnable)
+                     {
+                        Thread thread = new Thread(runnable, "Furnace Addon Resolver " + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                     }
+                  });
+         executor.allowCoreThreadTimeOut(true);
+      }
+      return executor;
+   }
+
+   /**
+    * The repository session of a single {@link #resolveAddonDependencyHierarchy(AddonId)} call, also used to resolve
+    * the resources of every {@link AddonInfo} it returns, so that all requests of one install share a single
+    * repository cache. The dependency hierarchy of each {@link AddonId} is collected only once, however many paths lead
+    * to it, and sibling hierarchies are collected concurrently. Cyclic dependencies between addons are reported as an
+    * {@link IllegalStateException} instead of waiting forever.
+    */
+   class ResolutionContext
+   {
+      private final RepositorySystem system;
+      private final DefaultRepositorySystemSession session;
+      private final List<RemoteRepository> repositories;
+      private final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      private final ConcurrentMap<AddonId, FutureTask<AddonInfo>> addons =
+               new ConcurrentHashMap<AddonId, FutureTask<AddonInfo>>();
+      private final Map<AddonId, AddonId> waiting = new HashMap<AddonId, AddonId>();
+
+      public ResolutionContext(RepositorySystem system, DefaultRepositorySystemSession session,
+               List<RemoteRepository> repositories)
+      {
+         this.system = system;
+         this.session = session;
+         this.repositories = repositories;
+      }
+
+      /**
+       * Get the pending or completed dependency hierarchy of the given {@link AddonId}, scheduling its collection if
+       * this is the first request for it.
+       */
+      public FutureTask<AddonInfo> schedule(final AddonId id)
+      {
+         FutureTask<AddonInfo> result = addons.get(id);
+         if (result == null)
+         {
+            FutureTask<AddonInfo> task = new FutureTask<AddonInfo>(new Callable<AddonInfo>()
+            {
+               @Override
+               public AddonInfo call() throws Exception
+               {
+                  return ClassLoaders.executeIn(loader, new Callable<AddonInfo>()
+                  {
+                     @Override
+                     public AddonInfo call() throws Exception
+                     {
+                        DependencyNode node = traverseAddonGraph(toMavenCoords(id), ResolutionContext.this);
+                        return fromNode(id, node, ResolutionContext.this);
+                     }
+                  });
+               }
+            });
+
+            result = addons.putIfAbsent(id, task);
+            if (result == null)
+            {
+               result = task;
+               if (RESOLVER_THREADS > 1)
+                  getExecutor().execute(task);
+            }
+         }
+         return result;
+      }
+
+      /**
+       * Wait for the given dependency hierarchy of the given dependency, required by the given dependent
+       * {@link AddonId}, or by no addon if <code>null</code>. If no thread has started collecting it yet, it is
+       * collected by the calling thread, so that waiting threads never starve the pool.
+       *
+       * @throws IllegalStateException if the dependency already waits, directly or transitively, for the dependent
+       */
+      public AddonInfo await(AddonId dependent, AddonId dependency, FutureTask<AddonInfo> task)
+      {
+         if (dependent != null)
+            beginWait(dependent, dependency);
+         try
+         {
+            task.run();
+            return task.get();
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while resolving addon dependency hierarchy", e);
+         }
+         catch (ExecutionException e)
+         {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+               throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+         }
+         finally
+         {
+            if (dependent != null)
+               endWait(dependent);
+         }
+      }
+
+      /**
+       * Record that the given dependent waits for the given dependency, unless the addons already waiting for one
+       * another lead from the dependency back to the dependent.
+       */
+      private void beginWait(AddonId dependent, AddonId dependency)
+      {
+         synchronized (waiting)
+         {
+            List<AddonId> path = new ArrayList<AddonId>();
+            path.add(dependent);
+            for (AddonId next = dependency; next != null; next = waiting.get(next))
+            {
+               path.add(next);
+               if (next.equals(dependent))
+               {
+                  StringBuilder cycle = new StringBuilder();
+                  for (AddonId addonId : path)
+                  {
+                     if (cycle.length() > 0)
+                        cycle.append(" -> ");
+                     cycle.append(addonId);
+                  }
+                  throw new IllegalStateException("Cyclic addon dependency: " + cycle);
+               }
+            }
+            waiting.put(dependent, dependency);
+         }
+      }
+
+      private void endWait(AddonId dependent)
+      {
+         synchronized (waiting)
+         {
+            waiting.remove(dependent);
+         }
+      }
+   }
+
    private String toMavenCoords(AddonId addonId)
    {
       String coords = addonId.getName() + ":jar:" + this.classifier + ":" + addonId.getVersion();
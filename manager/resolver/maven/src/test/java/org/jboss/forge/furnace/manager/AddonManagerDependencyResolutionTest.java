@@ -124,4 +124,73 @@ public class AddonManagerDependencyResolutionTest
       Assert.assertTrue(info.getRequiredAddons().isEmpty());
       Assert.assertEquals(2, info.getResources().size());
    }
+
+   /**
+    * TOP->A,B,C <br/>
+    * A,B,C->X,Y <br/>
+    * X->TWO_DEPS,ONE_DEP <br/>
+    * Y->TWO_DEPS,ONE_DEP_A
+    * 
+    * @throws Exception
+    */
+   @Test
+   public void testResolutionDiamondDependencies() throws Exception
+   {
+      AddonId addon = AddonId.from("test:diamond_top", "1.0.0.Final");
+      AddonInfo info = resolver.resolveAddonDependencyHierarchy(addon);
+      Assert.assertNotNull(info);
+      Set<AddonId> requiredAddons = new HashSet<AddonId>();
+      Set<AddonInfo> shared = new HashSet<AddonInfo>();
+      for (AddonInfo ai : info.getRequiredAddons())
+      {
+         requiredAddons.add(ai.getAddon());
+         Assert.assertEquals(2, ai.getRequiredAddons().size());
+         for (AddonInfo dependency : ai.getRequiredAddons())
+         {
+            for (AddonInfo existing : shared)
+            {
+               if (existing.equals(dependency))
+                  Assert.assertSame(existing, dependency);
+            }
+            shared.add(dependency);
+         }
+      }
+      AddonId[] expecteds = new AddonId[] {
+               AddonId.from("test:diamond_a", "1.0.0.Final"),
+               AddonId.from("test:diamond_b", "1.0.0.Final"),
+               AddonId.from("test:diamond_c", "1.0.0.Final")
+      };
+      Assert.assertEquals(expecteds.length, requiredAddons.size());
+      Assert.assertThat(requiredAddons, hasItems(expecteds));
+      Assert.assertEquals(2, shared.size());
+
+      for (AddonInfo ai : shared)
+      {
+         Set<AddonId> sharedRequiredAddons = new HashSet<AddonId>();
+         for (AddonInfo dependency : ai.getRequiredAddons())
+         {
+            sharedRequiredAddons.add(dependency.getAddon());
+         }
+         Assert.assertThat(sharedRequiredAddons, hasItems(AddonId.from("test:two_deps", "1.0.0.Final")));
+      }
+   }
+
+   /**
+    * CYCLE_A->CYCLE_B->CYCLE_A
+    */
+   @Test(timeout = 30000)
+   public void testResolutionCyclicDependencies() throws Exception
+   {
+      AddonId addon = AddonId.from("test:cycle_a", "1.0.0.Final");
+      try
+      {
+         resolver.resolveAddonDependencyHierarchy(addon);
+         Assert.fail("Should have detected the cyclic dependency");
+      }
+      catch (IllegalStateException e)
+      {
+         Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Cyclic addon dependency: "));
+         Assert.assertTrue(e.getMessage(), e.getMessage().contains("test:cycle_b"));
+      }
+   }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.manager.maven;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.apache.maven.settings.Settings;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class MavenContainerTest
+{
+   private MavenContainer container;
+   private File userSettings;
+
+   @Before
+   public void setUp() throws IOException
+   {
+      container = new MavenContainer();
+      userSettings = File.createTempFile("furnace-settings", ".xml");
+      writeSettings("target/first-repository");
+      System.setProperty(MavenContainer.ALT_USER_SETTINGS_XML_LOCATION, userSettings.getAbsolutePath());
+   }
+
+   @After
+   public void tearDown()
+   {
+      System.clearProperty(MavenContainer.ALT_USER_SETTINGS_XML_LOCATION);
+      System.clearProperty(MavenContainer.ALT_LOCAL_REPOSITORY_LOCATION);
+      userSettings.delete();
+   }
+
+   @Test
+   public void testRepositorySystemIsShared() throws Exception
+   {
+      Assert.assertNotNull(container.getRepositorySystem());
+      Assert.assertSame(container.getRepositorySystem(), container.getRepositorySystem());
+   }
+
+   @Test
+   public void testSettingsAreCachedWhileUnchanged() throws Exception
+   {
+      Settings settings = container.getSettings();
+      Assert.assertEquals("target/first-repository", settings.getLocalRepository());
+      Assert.assertSame(settings, container.getSettings());
+   }
+
+   @Test
+   public void testSettingsAreReloadedWhenFileChanges() throws Exception
+   {
+      Settings settings = container.getSettings();
+      writeSettings("target/second-repository");
+      userSettings.setLastModified(userSettings.lastModified() + 2000);
+
+      Settings reloaded = container.getSettings();
+      Assert.assertNotSame(settings, reloaded);
+      Assert.assertEquals("target/second-repository", reloaded.getLocalRepository());
+   }
+
+   @Test
+   public void testSettingsAreReloadedWhenLocalRepositoryPropertyChanges() throws Exception
+   {
+      userSettings.delete();
+      System.setProperty(MavenContainer.ALT_LOCAL_REPOSITORY_LOCATION, "target/first-repository");
+      Settings settings = container.getSettings();
+      Assert.assertEquals("target/first-repository", settings.getLocalRepository());
+
+      System.setProperty(MavenContainer.ALT_LOCAL_REPOSITORY_LOCATION, "target/second-repository");
+      Assert.assertEquals("target/second-repository", container.getSettings().getLocalRepository());
+   }
+
+   @Test
+   public void testEachSessionHasItsOwnCache() throws Exception
+   {
+      Settings settings = container.getSettings();
+      DefaultRepositorySystemSession first = container.setupRepoSession(container.getRepositorySystem(), settings);
+      DefaultRepositorySystemSession second = container.setupRepoSession(container.getRepositorySystem(), settings);
+      Assert.assertNotNull(first.getCache());
+      Assert.assertNotSame(first.getCache(), second.getCache());
+   }
+
+   private void writeSettings(String localRepository) throws IOException
+   {
+      FileWriter writer = new FileWriter(userSettings);
+      try
+      {
+         writer.write("<settings><localRepository>" + localRepository + "</localRepository></settings>");
+      }
+      finally
+      {
+         writer.close();
+      }
+   }
+}
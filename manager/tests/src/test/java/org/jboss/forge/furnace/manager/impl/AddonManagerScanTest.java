@@ -0,0 +1,232 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.manager.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.Furnace;
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.exception.ContainerException;
+import org.jboss.forge.furnace.impl.FurnaceImpl;
+import org.jboss.forge.furnace.impl.util.Files;
+import org.jboss.forge.furnace.manager.impl.request.AddonActionRequestFactory;
+import org.jboss.forge.furnace.manager.request.AddonActionRequest;
+import org.jboss.forge.furnace.manager.spi.AddonInfo;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.repositories.AddonRepositoryMode;
+import org.jboss.forge.furnace.repositories.MutableAddonRepository;
+import org.jboss.forge.furnace.spi.ContainerLifecycleListener;
+import org.jboss.forge.furnace.spi.ListenerRegistration;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the actions of an install request are picked up by a running {@link Furnace} in a single batch
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class AddonManagerScanTest
+{
+   private FurnaceImpl furnace;
+   private MutableAddonRepository repository;
+   private File resources;
+
+   @Before
+   public void setUp() throws Exception
+   {
+      furnace = new FurnaceImpl();
+      File root = File.createTempFile("furnace-repo", ".tmp");
+      root.delete();
+      root.mkdir();
+      repository = (MutableAddonRepository) furnace.addRepository(AddonRepositoryMode.MUTABLE, root);
+      resources = File.createTempFile("furnace-resources", ".tmp");
+      resources.delete();
+      resources.mkdir();
+
+      furnace.startAsync();
+      long deadline = System.currentTimeMillis() + 10000;
+      while (!furnace.getStatus().isStarted() && System.currentTimeMillis() < deadline)
+      {
+         Thread.sleep(10);
+      }
+      Assert.assertTrue("Furnace did not start", furnace.getStatus().isStarted());
+   }
+
+   @After
+   public void tearDown() throws Exception
+   {
+      furnace.stop();
+      long deadline = System.currentTimeMillis() + 10000;
+      while (!furnace.getStatus().isStopped() && System.currentTimeMillis() < deadline)
+      {
+         Thread.sleep(10);
+      }
+      Files.delete(repository.getRootDirectory(), true);
+      Files.delete(resources, true);
+   }
+
+   @Test(timeout = 30000)
+   public void testInstallRequestIsScannedInOneBatch() throws Exception
+   {
+      List<AddonId> addons = new ArrayList<AddonId>();
+      List<AddonActionRequest> actions = new ArrayList<AddonActionRequest>();
+      for (String name : new String[] { "test:first", "test:second", "test:third" })
+      {
+         AddonId addon = AddonId.from(name, "1.0.0.Final");
+         addons.add(addon);
+         actions.add(AddonActionRequestFactory.createDeployRequest(info(addon), repository, furnace));
+      }
+
+      ScanCountingListener scans = new ScanCountingListener();
+      ListenerRegistration<ContainerLifecycleListener> registration = furnace.addContainerLifecycleListener(scans);
+      try
+      {
+         AddonActionRequestFactory.createInstallRequest(info(addons.get(2)), actions).perform();
+      }
+      finally
+      {
+         registration.removeListener();
+      }
+
+      for (AddonId addon : addons)
+      {
+         Assert.assertTrue(repository.isDeployed(addon));
+         Assert.assertTrue(repository.isEnabled(addon));
+      }
+      Assert.assertFalse(furnace.getStatus().isStarting());
+
+      /*
+       * A scan may begin while the batch is being applied and pick it up, followed by a scan that changes nothing, but
+       * never one scan per action.
+       */
+      Assert.assertTrue(scans.getCompleted() >= 1);
+      Assert.assertTrue("Scanned " + scans.getCompleted() + " times", scans.getCompleted() < actions.size());
+      Assert.assertFalse("Scan events fired under the write lock", scans.isFiredUnderWriteLock());
+   }
+
+   @Test(timeout = 30000)
+   public void testAwaitStartedReturnsOnceStarted() throws Exception
+   {
+      Assert.assertTrue(furnace.awaitStarted(10, TimeUnit.SECONDS));
+      Assert.assertFalse(furnace.getStatus().isStarting());
+   }
+
+   private class ScanCountingListener implements ContainerLifecycleListener
+   {
+      private volatile int completed = 0;
+      private volatile boolean firedUnderWriteLock = false;
+
+      @Override
+      public void beforeStart(Furnace furnace) throws ContainerException
+      {
+      }
+
+      @Override
+      public void beforeConfigurationScan(Furnace furnace) throws ContainerException
+      {
+         if (AddonManagerScanTest.this.furnace.getLockManager().isWriteLockedByCurrentThread())
+            firedUnderWriteLock = true;
+      }
+
+      @Override
+      public void afterConfigurationScan(Furnace furnace) throws ContainerException
+      {
+         if (AddonManagerScanTest.this.furnace.getLockManager().isWriteLockedByCurrentThread())
+            firedUnderWriteLock = true;
+         completed++;
+      }
+
+      @Override
+      public void beforeStop(Furnace furnace) throws ContainerException
+      {
+      }
+
+      @Override
+      public void afterStop(Furnace furnace) throws ContainerException
+      {
+      }
+
+      public int getCompleted()
+      {
+         return completed;
+      }
+
+      public boolean isFiredUnderWriteLock()
+      {
+         return firedUnderWriteLock;
+      }
+   }
+
+   private static String jarName(AddonId addon)
+   {
+      return OperatingSystemUtils.getSafeFilename(addon.getName()) + ".jar";
+   }
+
+   private AddonInfo info(final AddonId addon) throws IOException
+   {
+      final File jar = new File(resources, jarName(addon));
+      FileOutputStream out = new FileOutputStream(jar);
+      try
+      {
+         out.write(addon.toCoordinates().getBytes());
+      }
+      finally
+      {
+         out.close();
+      }
+
+      return new AddonInfo()
+      {
+         @Override
+         public AddonId getAddon()
+         {
+            return addon;
+         }
+
+         @Override
+         public Set<AddonInfo> getRequiredAddons()
+         {
+            return Collections.emptySet();
+         }
+
+         @Override
+         public Set<AddonInfo> getOptionalAddons()
+         {
+            return Collections.emptySet();
+         }
+
+         @Override
+         public Set<File> getResources()
+         {
+            return Collections.singleton(jar);
+         }
+
+         @Override
+         public Set<AddonDependencyEntry> getDependencyEntries()
+         {
+            return Collections.emptySet();
+         }
+
+         @Override
+         public String toString()
+         {
+            return addon.toString();
+         }
+      };
+   }
+}
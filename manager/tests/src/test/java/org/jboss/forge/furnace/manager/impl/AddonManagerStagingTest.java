@@ -0,0 +1,220 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.manager.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.impl.FurnaceImpl;
+import org.jboss.forge.furnace.impl.util.Files;
+import org.jboss.forge.furnace.manager.impl.request.AddonActionRequestFactory;
+import org.jboss.forge.furnace.manager.request.AddonActionRequest;
+import org.jboss.forge.furnace.manager.request.DeployRequest;
+import org.jboss.forge.furnace.manager.spi.AddonInfo;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.repositories.AddonRepositoryMode;
+import org.jboss.forge.furnace.repositories.MutableAddonRepository;
+import org.jboss.forge.furnace.repositories.StagingAddonRepository;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link DeployRequest} resources are staged before the write lock is taken
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class AddonManagerStagingTest
+{
+   private FurnaceImpl furnace;
+   private MutableAddonRepository repository;
+   private List<String> events;
+   private File resources;
+
+   @Before
+   public void setUp() throws IOException
+   {
+      furnace = new FurnaceImpl();
+      File root = File.createTempFile("furnace-repo", ".tmp");
+      root.delete();
+      root.mkdir();
+      repository = (MutableAddonRepository) furnace.addRepository(AddonRepositoryMode.MUTABLE, root);
+      resources = File.createTempFile("furnace-resources", ".tmp");
+      resources.delete();
+      resources.mkdir();
+      events = new ArrayList<String>();
+   }
+
+   @After
+   public void tearDown()
+   {
+      Files.delete(repository.getRootDirectory(), true);
+      Files.delete(resources, true);
+   }
+
+   @Test
+   public void testDeployRequestStagesBeforeWriteLock() throws Exception
+   {
+      AddonId addon = AddonId.from("test:staged", "1.0.0.Final");
+      DeployRequest request = AddonActionRequestFactory.createDeployRequest(info(addon), recording(), furnace);
+      request.perform();
+
+      Assert.assertEquals(Arrays.asList("stage " + addon, "deployStaged " + addon), events);
+      assertDeployed(addon);
+   }
+
+   @Test
+   public void testInstallRequestStagesAllDeploysBeforeWriteLock() throws Exception
+   {
+      AddonId first = AddonId.from("test:first", "1.0.0.Final");
+      AddonId second = AddonId.from("test:second", "1.0.0.Final");
+      MutableAddonRepository recording = recording();
+      List<AddonActionRequest> actions = new ArrayList<AddonActionRequest>();
+      actions.add(AddonActionRequestFactory.createDeployRequest(info(first), recording, furnace));
+      actions.add(AddonActionRequestFactory.createDeployRequest(info(second), recording, furnace));
+      AddonActionRequestFactory.createInstallRequest(info(second), actions).perform();
+
+      Assert.assertEquals(Arrays.asList("stage " + first, "stage " + second, "deployStaged " + first,
+               "deployStaged " + second), events);
+      assertDeployed(first);
+      assertDeployed(second);
+   }
+
+   @Test
+   public void testDeployRequestFallsBackToDeployWithoutStaging() throws Exception
+   {
+      AddonId addon = AddonId.from("test:unstaged", "1.0.0.Final");
+      DeployRequest request = AddonActionRequestFactory.createDeployRequest(info(addon),
+               recording(MutableAddonRepository.class), furnace);
+      request.perform();
+
+      Assert.assertEquals(Arrays.asList("deploy " + addon), events);
+      assertDeployed(addon);
+   }
+
+   private void assertDeployed(AddonId addon)
+   {
+      Assert.assertTrue(repository.isDeployed(addon));
+      Assert.assertTrue(repository.isEnabled(addon));
+      Assert.assertTrue(new File(repository.getAddonBaseDir(addon), jarName(addon)).isFile());
+      String[] staged = new File(repository.getRootDirectory(), ".staging").list();
+      Assert.assertTrue(staged == null || staged.length == 0);
+   }
+
+   private MutableAddonRepository recording()
+   {
+      return recording(StagingAddonRepository.class);
+   }
+
+   /**
+    * Wrap the repository as the given interface, recording staging and deployment, and failing if staging is done
+    * under the write lock, or deployment is not.
+    */
+   private MutableAddonRepository recording(Class<? extends MutableAddonRepository> type)
+   {
+      return (MutableAddonRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+               new Class<?>[] { type }, new InvocationHandler()
+               {
+                  @Override
+                  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                  {
+                     String name = method.getName();
+                     if ("stage".equals(name))
+                     {
+                        Assert.assertFalse("Resources staged under the write lock",
+                                 furnace.getLockManager().isWriteLockedByCurrentThread());
+                        events.add(name + " " + args[0]);
+                     }
+                     else if ("deployStaged".equals(name) || "deploy".equals(name))
+                     {
+                        Assert.assertTrue(furnace.getLockManager().isWriteLockedByCurrentThread());
+                        events.add(name + " " + args[0]);
+                     }
+                     try
+                     {
+                        return method.invoke(repository, args);
+                     }
+                     catch (InvocationTargetException e)
+                     {
+                        throw e.getCause();
+                     }
+                  }
+               });
+   }
+
+   private static String jarName(AddonId addon)
+   {
+      return OperatingSystemUtils.getSafeFilename(addon.getName()) + ".jar";
+   }
+
+   private AddonInfo info(final AddonId addon) throws IOException
+   {
+      final File jar = new File(resources, jarName(addon));
+      FileOutputStream out = new FileOutputStream(jar);
+      try
+      {
+         out.write(addon.toCoordinates().getBytes());
+      }
+      finally
+      {
+         out.close();
+      }
+
+      return new AddonInfo()
+      {
+         @Override
+         public AddonId getAddon()
+         {
+            return addon;
+         }
+
+         @Override
+         public Set<AddonInfo> getRequiredAddons()
+         {
+            return Collections.emptySet();
+         }
+
+         @Override
+         public Set<AddonInfo> getOptionalAddons()
+         {
+            return Collections.emptySet();
+         }
+
+         @Override
+         public Set<File> getResources()
+         {
+            return Collections.singleton(jar);
+         }
+
+         @Override
+         public Set<AddonDependencyEntry> getDependencyEntries()
+         {
+            return Collections.emptySet();
+         }
+
+         @Override
+         public String toString()
+         {
+            return addon.toString();
+         }
+      };
+   }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.furnace.manager.impl.request;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.forge.furnace.ContainerStatus;
+import org.jboss.forge.furnace.Furnace;
+import org.jboss.forge.furnace.spi.ContainerStatusSignal;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class ConfigurationScanListenerTest
+{
+   private ConfigurationScanListener listener;
+   private Furnace furnace;
+   private AtomicInteger signalled;
+
+   @Before
+   public void setUp()
+   {
+      listener = new ConfigurationScanListener();
+      signalled = new AtomicInteger();
+      furnace = (Furnace) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Furnace.class,
+               ContainerStatusSignal.class }, new InvocationHandler()
+      {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+         {
+            if ("getStatus".equals(method.getName()))
+               return ContainerStatus.STARTED;
+            if ("awaitStarted".equals(method.getName()) && method.getParameterTypes().length == 0)
+            {
+               signalled.incrementAndGet();
+               return null;
+            }
+            throw new UnsupportedOperationException(method.toString());
+         }
+      });
+   }
+
+   @Test(timeout = 10000)
+   public void testScanBegunAfterMarkReleasesWaiterAndAwaitsStatusSignal() throws Exception
+   {
+      int mark = listener.mark();
+      CountDownLatch done = awaitInBackground(mark);
+      Assert.assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+
+      listener.beforeConfigurationScan(furnace);
+      listener.afterConfigurationScan(furnace);
+
+      Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(1, signalled.get());
+   }
+
+   @Test(timeout = 10000)
+   public void testScanBegunBeforeMarkDoesNotReleaseWaiter() throws Exception
+   {
+      listener.beforeConfigurationScan(furnace);
+      int mark = listener.mark();
+      CountDownLatch done = awaitInBackground(mark);
+
+      listener.afterConfigurationScan(furnace);
+      Assert.assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+      Assert.assertEquals(0, signalled.get());
+
+      listener.beforeConfigurationScan(furnace);
+      listener.afterConfigurationScan(furnace);
+      Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(1, signalled.get());
+   }
+
+   @Test(timeout = 10000)
+   public void testStopReleasesWaiter() throws Exception
+   {
+      CountDownLatch done = awaitInBackground(listener.mark());
+      Assert.assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+
+      listener.afterStop(furnace);
+      Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+   }
+
+   private CountDownLatch awaitInBackground(final int mark)
+   {
+      final CountDownLatch done = new CountDownLatch(1);
+      Thread waiter = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            try
+            {
+               listener.awaitConfigurationScanned(furnace, mark);
+               done.countDown();
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+         }
+      };
+      waiter.setDaemon(true);
+      waiter.start();
+      return done;
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.addons.Addon;
+import org.jboss.forge.furnace.addons.AddonId;
+import org.jboss.forge.furnace.impl.LockManagerImpl;
+import org.jboss.forge.furnace.impl.addons.AddonImpl;
+import org.jboss.forge.furnace.impl.addons.AddonState;
+import org.jboss.forge.furnace.impl.addons.AddonStateManager;
+import org.jboss.forge.furnace.lock.LockMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures concurrent {@link AddonStateManager} lookups, which read published snapshots without locking, against the
+ * same lookups performed under the read lock of the {@link LockManagerImpl}, as they were before snapshots were
+ * introduced. The <code>contended</code> groups add a thread that continuously replaces {@link AddonState} instances
+ * under the write lock.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AddonStateLookupBenchmark
+{
+   @Param({ "10", "100" })
+   private int addonCount;
+
+   private LockManagerImpl lock;
+   private AddonStateManager stateManager;
+   private Addon[] addons;
+
+   private Callable<Future<Void>> lookup;
+
+   @Setup
+   public void setup()
+   {
+      lock = new LockManagerImpl();
+      stateManager = new AddonStateManager(lock);
+      addons = new Addon[addonCount];
+      for (int i = 0; i < addonCount; i++)
+      {
+         addons[i] = new AddonImpl(stateManager, AddonId.from("org.example:addon-" + i, "1.0.0.Final"));
+         stateManager.setState(addons[i], new AddonState());
+      }
+
+      final Addon addon = addons[addonCount / 2];
+      lookup = new Callable<Future<Void>>()
+      {
+         @Override
+         public Future<Void> call() throws Exception
+         {
+            return stateManager.getFutureOf(addon);
+         }
+      };
+   }
+
+   @Benchmark
+   @Threads(4)
+   public Future<Void> snapshot() throws Exception
+   {
+      return lookup.call();
+   }
+
+   @Benchmark
+   @Threads(4)
+   public Future<Void> readLocked()
+   {
+      return lock.performLocked(LockMode.READ, lookup);
+   }
+
+   @Benchmark
+   @Group("contendedSnapshot")
+   @GroupThreads(3)
+   public Future<Void> contendedSnapshotRead() throws Exception
+   {
+      return lookup.call();
+   }
+
+   @Benchmark
+   @Group("contendedSnapshot")
+   @GroupThreads(1)
+   public void contendedSnapshotWrite()
+   {
+      stateManager.setState(addons[0], new AddonState());
+   }
+
+   @Benchmark
+   @Group("contendedReadLocked")
+   @GroupThreads(3)
+   public Future<Void> contendedReadLockedRead()
+   {
+      return lock.performLocked(LockMode.READ, lookup);
+   }
+
+   @Benchmark
+   @Group("contendedReadLocked")
+   @GroupThreads(1)
+   public void contendedReadLockedWrite()
+   {
+      stateManager.setState(addons[0], new AddonState());
+   }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.benchmarks;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.util.ClassLoaderTask;
+import org.jboss.forge.furnace.util.ClassLoaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the cost of {@link ClassLoaders#executeIn(ClassLoader, Callable)} and
+ * {@link ClassLoaders#executeIn(ClassLoader, ClassLoaderTask, Object, Object)} as used on every proxied invocation,
+ * both when the {@link Thread#getContextClassLoader()} is already the target {@link ClassLoader}, and when it must be
+ * switched. The unconditional swap performed before the fast path was introduced is measured as a baseline.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClassLoadersBenchmark
+{
+   private static final ClassLoaderTask<Integer, Integer, Integer> ADD =
+            new ClassLoaderTask<Integer, Integer, Integer>()
+   {
+      @Override
+      public Integer call(Integer first, Integer second) throws Exception
+      {
+         return first + second;
+      }
+   };
+
+   private ClassLoader original;
+   private ClassLoader current;
+   private ClassLoader other;
+   private Integer first = 1;
+   private Integer second = 2;
+
+   @Setup
+   public void setup()
+   {
+      original = Thread.currentThread().getContextClassLoader();
+      current = getClass().getClassLoader();
+      other = new URLClassLoader(new URL[0], current);
+      Thread.currentThread().setContextClassLoader(current);
+   }
+
+   @TearDown
+   public void tearDown()
+   {
+      Thread.currentThread().setContextClassLoader(original);
+   }
+
+   @Benchmark
+   public Integer alwaysSwapSameLoader() throws Exception
+   {
+      return alwaysSwap(current, newCallable());
+   }
+
+   @Benchmark
+   public Integer callableSameLoader() throws Exception
+   {
+      return ClassLoaders.executeIn(current, newCallable());
+   }
+
+   @Benchmark
+   public Integer taskSameLoader() throws Exception
+   {
+      return ClassLoaders.executeIn(current, ADD, first, second);
+   }
+
+   @Benchmark
+   public Integer alwaysSwapOtherLoader() throws Exception
+   {
+      return alwaysSwap(other, newCallable());
+   }
+
+   @Benchmark
+   public Integer callableOtherLoader() throws Exception
+   {
+      return ClassLoaders.executeIn(other, newCallable());
+   }
+
+   @Benchmark
+   public Integer taskOtherLoader() throws Exception
+   {
+      return ClassLoaders.executeIn(other, ADD, first, second);
+   }
+
+   private Callable<Integer> newCallable()
+   {
+      final Integer a = first;
+      final Integer b = second;
+      return new Callable<Integer>()
+      {
+         @Override
+         public Integer call() throws Exception
+         {
+            return a + b;
+         }
+      };
+   }
+
+   /**
+    * The previous {@link ClassLoaders#executeIn(ClassLoader, Callable)} behavior.
+    */
+   private static <T> T alwaysSwap(ClassLoader loader, Callable<T> task) throws Exception
+   {
+      Thread thread = Thread.currentThread();
+      ClassLoader original = thread.getContextClassLoader();
+      try
+      {
+         thread.setContextClassLoader(loader);
+         return task.call();
+      }
+      finally
+      {
+         thread.setContextClassLoader(original);
+      }
+   }
+}
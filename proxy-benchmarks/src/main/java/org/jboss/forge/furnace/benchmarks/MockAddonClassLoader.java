@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.benchmarks;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.jboss.forge.classloader.mock.MockService;
+
+/**
+ * Stands in for an addon {@link ClassLoader}. Defines its own copy of every mock type from the
+ * <code>furnace-proxy-tests</code> artifact, and delegates all other types to the parent {@link ClassLoader}, so that
+ * mock instances created by two {@link MockAddonClassLoader} instances are incompatible, as they are across addons.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class MockAddonClassLoader extends URLClassLoader
+{
+   private static final String MOCK_PACKAGE = "org.jboss.forge.classloader.mock.";
+
+   public MockAddonClassLoader(ClassLoader parent)
+   {
+      super(new URL[] { MockService.class.getProtectionDomain().getCodeSource().getLocation() }, parent);
+   }
+
+   @Override
+   protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+   {
+      if (!name.startsWith(MOCK_PACKAGE))
+         return super.loadClass(name, resolve);
+
+      synchronized (getClassLoadingLock(name))
+      {
+         Class<?> result = findLoadedClass(name);
+         if (result == null)
+            result = findClass(name);
+         if (resolve)
+            resolveClass(result);
+         return result;
+      }
+   }
+
+   /**
+    * Create a new instance of the mock type with the same name as the given type, as defined by this
+    * {@link ClassLoader}.
+    */
+   public Object newInstance(Class<?> type) throws Exception
+   {
+      return loadClass(type.getName()).newInstance();
+   }
+
+   @Override
+   public String toString()
+   {
+      return "MockAddonClassLoader@" + Integer.toHexString(hashCode());
+   }
+}
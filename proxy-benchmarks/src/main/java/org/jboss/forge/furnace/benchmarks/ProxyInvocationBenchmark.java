@@ -0,0 +1,227 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.classloader.mock.IterableFactory;
+import org.jboss.forge.classloader.mock.MockCalculator;
+import org.jboss.forge.classloader.mock.MockService;
+import org.jboss.forge.classloader.mock.SimpleEnum;
+import org.jboss.forge.classloader.mock.SimpleEnumFactory;
+import org.jboss.forge.classloader.mock.collisions.ClassImplementsInterfaceWithPassthroughMethod;
+import org.jboss.forge.classloader.mock.collisions.ClassWithClassAsParameter;
+import org.jboss.forge.classloader.mock.collisions.ClassWithJavaLangGetterAndSetter;
+import org.jboss.forge.classloader.mock.collisions.ClassWithListAsParameter;
+import org.jboss.forge.classloader.mock.collisions.ClassWithPassthroughMethod;
+import org.jboss.forge.classloader.mock.collisions.InterfaceWithPassthroughMethod;
+import org.jboss.forge.classloader.mock.exceptions.ExceptionFactory;
+import org.jboss.forge.classloader.mock.exceptions.MockException;
+import org.jboss.forge.classloader.mock.result.InstanceFactory;
+import org.jboss.forge.classloader.mock.result.InstanceFactoryImpl;
+import org.jboss.forge.classloader.mock.result.SuperInterface;
+import org.jboss.forge.classloader.mock.sidewaysproxy.Context;
+import org.jboss.forge.classloader.mock.sidewaysproxy.ContextImpl;
+import org.jboss.forge.classloader.mock.sidewaysproxy.ContextValue;
+import org.jboss.forge.classloader.mock.sidewaysproxy.ContextValueImpl;
+import org.jboss.forge.classloader.mock.sidewaysproxy.Payload;
+import org.jboss.forge.classloader.mock.system.ArrayListFactory;
+import org.jboss.forge.furnace.proxy.ClassLoaderAdapterBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures invocation latency through {@link ClassLoaderAdapterBuilder} proxies, from the benchmark
+ * {@link ClassLoader} into mock instances defined by a separate {@link MockAddonClassLoader}. Run with
+ * <code>-prof gc</code> to also report the allocation rate of each case.
+ * <p>
+ * The <code>colliding*</code> cases use the <code>collisions</code> mocks, whose argument and result types are defined
+ * by both {@link ClassLoader} instances, so that values must be proxied in both directions.
+ * <p>
+ * The <code>depth</code> parameter of {@link NestedProxy} controls how many proxies are stacked, each across another
+ * {@link MockAddonClassLoader}, in {@link #deeplyNestedProxy(NestedProxy)}.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProxyInvocationBenchmark
+{
+   private MockCalculator calculator;
+   private Context context;
+   private ContextValue<Payload> contextValue;
+   private ArrayListFactory listFactory;
+   private IterableFactory iterableFactory;
+   private SimpleEnumFactory enumFactory;
+   private ExceptionFactory exceptionFactory;
+   private InstanceFactory instanceFactory;
+   private ClassWithPassthroughMethod classPassthrough;
+   private InterfaceWithPassthroughMethod interfacePassthrough;
+   private ClassWithClassAsParameter classParameter;
+   private ClassWithListAsParameter listParameter;
+
+   private ClassWithJavaLangGetterAndSetter value = new ClassWithJavaLangGetterAndSetter();
+   private List<Object> list = new ArrayList<Object>();
+
+   private int left = 17;
+   private int right = 25;
+
+   @Setup
+   public void setup() throws Exception
+   {
+      ClassLoader callingLoader = getClass().getClassLoader();
+      MockAddonClassLoader delegateLoader = new MockAddonClassLoader(callingLoader);
+
+      calculator = enhance(callingLoader, delegateLoader, delegateLoader.newInstance(MockCalculator.class));
+      context = enhance(callingLoader, delegateLoader, delegateLoader.newInstance(ContextImpl.class));
+      contextValue = new ContextValueImpl<Payload>();
+      listFactory = enhance(callingLoader, delegateLoader, delegateLoader.newInstance(ArrayListFactory.class));
+      iterableFactory = enhance(callingLoader, delegateLoader, delegateLoader.newInstance(IterableFactory.class));
+      enumFactory = enhance(callingLoader, delegateLoader, delegateLoader.newInstance(SimpleEnumFactory.class));
+      exceptionFactory = enhance(callingLoader, delegateLoader, delegateLoader.newInstance(ExceptionFactory.class));
+      instanceFactory = enhance(callingLoader, delegateLoader, delegateLoader.newInstance(InstanceFactoryImpl.class));
+      classPassthrough = enhance(callingLoader, delegateLoader,
+               delegateLoader.newInstance(ClassWithPassthroughMethod.class));
+      interfacePassthrough = enhance(callingLoader, delegateLoader,
+               delegateLoader.newInstance(ClassImplementsInterfaceWithPassthroughMethod.class));
+      classParameter = enhance(callingLoader, delegateLoader,
+               delegateLoader.newInstance(ClassWithClassAsParameter.class));
+      listParameter = enhance(callingLoader, delegateLoader,
+               delegateLoader.newInstance(ClassWithListAsParameter.class));
+      value.setValue("value");
+   }
+
+   @SuppressWarnings("unchecked")
+   private static <T> T enhance(ClassLoader callingLoader, ClassLoader delegateLoader, Object delegate)
+   {
+      return (T) ClassLoaderAdapterBuilder.callingLoader(callingLoader).delegateLoader(delegateLoader)
+               .enhance(delegate);
+   }
+
+   @Benchmark
+   public int primitiveArguments()
+   {
+      return calculator.add(left, right);
+   }
+
+   @Benchmark
+   public Object interfaceArgument()
+   {
+      context.set(contextValue);
+      return context.get();
+   }
+
+   @Benchmark
+   public List<?> returnedList()
+   {
+      return listFactory.getArrayList();
+   }
+
+   @Benchmark
+   public Iterable<?> returnedIterable()
+   {
+      return iterableFactory.getIterable();
+   }
+
+   @Benchmark
+   public SimpleEnum returnedEnum()
+   {
+      return enumFactory.getEnum();
+   }
+
+   @Benchmark
+   public void enumArgument()
+   {
+      enumFactory.useEnum(SimpleEnum.STARTED);
+   }
+
+   @Benchmark
+   public Object thrownException()
+   {
+      try
+      {
+         exceptionFactory.throwException();
+         return null;
+      }
+      catch (MockException e)
+      {
+         return e;
+      }
+   }
+
+   @Benchmark
+   public SuperInterface nestedResultProxy()
+   {
+      return instanceFactory.getInstance();
+   }
+
+   @Benchmark
+   public ClassWithJavaLangGetterAndSetter collidingClassArgument()
+   {
+      return classPassthrough.passthrough(value);
+   }
+
+   @Benchmark
+   public ClassWithJavaLangGetterAndSetter collidingInterfaceArgument()
+   {
+      return interfacePassthrough.passthrough(value);
+   }
+
+   @Benchmark
+   public boolean collidingClassLiteralArgument()
+   {
+      return classParameter.isProxyType(ClassWithJavaLangGetterAndSetter.class);
+   }
+
+   @Benchmark
+   public boolean collidingListArgument()
+   {
+      return listParameter.verify(list);
+   }
+
+   @Benchmark
+   public String deeplyNestedProxy(NestedProxy state)
+   {
+      return state.service.echo("value");
+   }
+
+   /**
+    * A {@link MockService} reached through <code>depth</code> stacked proxies.
+    */
+   @State(Scope.Benchmark)
+   public static class NestedProxy
+   {
+      @Param({ "1", "4" })
+      private int depth;
+
+      private MockService service;
+
+      @Setup
+      public void setup() throws Exception
+      {
+         ClassLoader callingLoader = getClass().getClassLoader();
+         MockAddonClassLoader innerLoader = new MockAddonClassLoader(callingLoader);
+         Object nested = innerLoader.newInstance(MockService.class);
+         for (int i = 1; i < depth; i++)
+         {
+            MockAddonClassLoader outerLoader = new MockAddonClassLoader(callingLoader);
+            nested = enhance(outerLoader, innerLoader, nested);
+            innerLoader = outerLoader;
+         }
+         service = enhance(callingLoader, innerLoader, nested);
+      }
+   }
+}
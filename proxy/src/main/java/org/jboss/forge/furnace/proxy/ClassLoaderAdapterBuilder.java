@@ -7,6 +7,12 @@
 package org.jboss.forge.furnace.proxy;
 
 /**
+ * Creates proxies that adapt a delegate from one {@link ClassLoader} to the types of another.
+ * <p>
+ * Proxy metadata is cached for both {@link ClassLoader} instances. Once either of them is no longer in use, callers
+ * must pass it to {@link Proxies#releaseClassLoader(ClassLoader)}, or it may never be garbage collected. Addon
+ * {@link ClassLoader} instances are released by the container.
+ * 
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  * 
  */
@@ -6,7 +6,6 @@
  */
 package org.jboss.forge.furnace.proxy;
 
-import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -15,6 +14,7 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,6 +26,7 @@ import javassist.util.proxy.ProxyObject;
 
 import org.jboss.forge.furnace.exception.ContainerException;
 import org.jboss.forge.furnace.util.Assert;
+import org.jboss.forge.furnace.util.ClassLoaderTask;
 import org.jboss.forge.furnace.util.ClassLoaders;
 
 /**
@@ -36,6 +37,20 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
    private static final Logger log = Logger.getLogger(ClassLoaderAdapterCallback.class.getName());
    private static final ClassLoader JAVASSIST_LOADER = ProxyObject.class.getClassLoader();
 
+   private static final MethodFilter FILTER = new MethodFilter()
+   {
+      @Override
+      public boolean isHandled(Method method)
+      {
+         if (!method.getDeclaringClass().getName().contains("java.lang")
+                  || !Proxies.isPassthroughType(method.getDeclaringClass())
+                  || ("toString".equals(method.getName()) && method.getParameterTypes().length == 0)
+                  || isEquals(method))
+            return true;
+         return false;
+      }
+   };
+
    private final Object delegate;
 
    private final ClassLoader callingLoader;
@@ -45,6 +60,17 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
    private final Class<?> unwrappedDelegateType;
    private final ClassLoader unwrappedDelegateLoader;
 
+   private final ConcurrentMap<Method, MethodDispatchTable.Entry> dispatchTable;
+
+   private final ClassLoaderTask<Object, Method, Object[]> invocation = new ClassLoaderTask<Object, Method, Object[]>()
+   {
+      @Override
+      public Object call(Method thisMethod, Object[] args) throws Exception
+      {
+         return invokeDelegate(thisMethod, args);
+      }
+   };
+
    public ClassLoaderAdapterCallback(ClassLoader callingLoader, ClassLoader delegateLoader, Object delegate)
    {
       Assert.notNull(callingLoader, "Calling loader must not be null.");
@@ -60,94 +86,112 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
       unwrappedDelegateType = Proxies.unwrapProxyTypes(unwrappedDelegate.getClass(), callingLoader, delegateLoader,
                unwrappedDelegate.getClass().getClassLoader());
       unwrappedDelegateLoader = unwrappedDelegateType.getClassLoader();
+      dispatchTable = MethodDispatchTable.forType(delegate.getClass());
    }
 
    @Override
    public Object invoke(final Object obj, final Method thisMethod, final Method proceed, final Object[] args)
             throws Throwable
    {
-      return ClassLoaders.executeIn(delegateLoader, new Callable<Object>()
+      return ClassLoaders.executeIn(delegateLoader, invocation, thisMethod, args);
+   }
+
+   private Object invokeDelegate(final Method thisMethod, final Object[] args) throws Exception
+   {
+      try
       {
-         @Override
-         public Object call() throws Exception
+         if (thisMethod.getDeclaringClass().getName().equals(ForgeProxy.class.getName())
+                  && thisMethod.getDeclaringClass().equals(callingLoader.loadClass(ForgeProxy.class.getName())))
          {
-            try
-            {
-               if (thisMethod.getDeclaringClass().equals(callingLoader.loadClass(ForgeProxy.class.getName())))
-               {
-                  return delegate;
-               }
-            }
-            catch (Exception e)
-            {
-            }
+            return delegate;
+         }
+      }
+      catch (Exception e)
+      {
+      }
 
-            Method delegateMethod = getDelegateMethod(thisMethod);
+      MethodDispatchTable.Entry dispatch = getDispatch(thisMethod);
+      Method delegateMethod = dispatch.getDelegateMethod();
 
-            List<Object> parameterValues = enhanceParameterValues(args, delegateMethod);
+      Object[] parameterValues = enhanceParameterValues(args, dispatch);
 
-            AccessibleObject.setAccessible(new AccessibleObject[] { delegateMethod }, true);
-            try
-            {
-               Object[] parameterValueArray = parameterValues.toArray();
-               Object result = delegateMethod.invoke(delegate, parameterValueArray);
-               return enhanceResult(thisMethod, result);
-            }
-            catch (InvocationTargetException e)
-            {
-               if (e.getCause() instanceof Exception)
-                  throw enhanceException(delegateMethod, (Exception) e.getCause());
-               throw enhanceException(delegateMethod, e);
-            }
+      Object result;
+      try
+      {
+         result = dispatch.getInvoker().invoke(delegate, parameterValues);
+      }
+      catch (Exception e)
+      {
+         throw enhanceException(delegateMethod, e);
+      }
+      catch (Throwable e)
+      {
+         throw enhanceException(delegateMethod, new InvocationTargetException(e));
+      }
 
-         }
+      if (dispatch.isPassthroughResult())
+         return result;
+      return enhanceResult(thisMethod, result);
+   }
 
-         private Method getDelegateMethod(final Method proxy) throws ClassNotFoundException, NoSuchMethodException
-         {
+   private MethodDispatchTable.Entry getDispatch(final Method proxy) throws ClassNotFoundException,
+            NoSuchMethodException
+   {
+      MethodDispatchTable.Entry result = dispatchTable.get(proxy);
+      if (result == null)
+      {
+         result = new MethodDispatchTable.Entry(proxy, getDelegateMethod(proxy));
+         MethodDispatchTable.Entry existing = dispatchTable.putIfAbsent(proxy, result);
+         if (existing != null)
+            result = existing;
+      }
+      return result;
+   }
 
-            Method delegateMethod = null;
-            try
-            {
-               List<Class<?>> parameterTypes = translateParameterTypes(proxy);
-               delegateMethod = delegate.getClass().getMethod(proxy.getName(),
-                        parameterTypes.toArray(new Class<?>[parameterTypes.size()]));
-            }
-            catch (ClassNotFoundException e)
+   private Method getDelegateMethod(final Method proxy) throws ClassNotFoundException, NoSuchMethodException
+   {
+
+      Method delegateMethod = null;
+      try
+      {
+         List<Class<?>> parameterTypes = translateParameterTypes(proxy);
+         delegateMethod = delegate.getClass().getMethod(proxy.getName(),
+                  parameterTypes.toArray(new Class<?>[parameterTypes.size()]));
+      }
+      catch (ClassNotFoundException e)
+      {
+         method: for (Method m : delegate.getClass().getMethods())
+         {
+            String methodName = proxy.getName();
+            String delegateMethodName = m.getName();
+            if (methodName.equals(delegateMethodName))
             {
-               method: for (Method m : delegate.getClass().getMethods())
+               Class<?>[] methodParameterTypes = proxy.getParameterTypes();
+               Class<?>[] delegateParameterTypes = m.getParameterTypes();
+
+               if (methodParameterTypes.length == delegateParameterTypes.length)
                {
-                  String methodName = proxy.getName();
-                  String delegateMethodName = m.getName();
-                  if (methodName.equals(delegateMethodName))
+                  for (int i = 0; i < methodParameterTypes.length; i++)
                   {
-                     Class<?>[] methodParameterTypes = proxy.getParameterTypes();
-                     Class<?>[] delegateParameterTypes = m.getParameterTypes();
+                     Class<?> methodType = methodParameterTypes[i];
+                     Class<?> delegateType = delegateParameterTypes[i];
 
-                     if (methodParameterTypes.length == delegateParameterTypes.length)
+                     if (!methodType.getName().equals(delegateType.getName()))
                      {
-                        for (int i = 0; i < methodParameterTypes.length; i++)
-                        {
-                           Class<?> methodType = methodParameterTypes[i];
-                           Class<?> delegateType = delegateParameterTypes[i];
-
-                           if (!methodType.getName().equals(delegateType.getName()))
-                           {
-                              continue method;
-                           }
-                        }
-
-                        delegateMethod = m;
-                        break;
+                        continue method;
                      }
                   }
+
+                  delegateMethod = m;
+                  break;
                }
-               if (delegateMethod == null)
-                  throw e;
             }
-
-            return delegateMethod;
          }
-      });
+         if (delegateMethod == null)
+            throw e;
+      }
+
+      return delegateMethod;
    }
 
    private Object enhanceResult(final Method method, Object result)
@@ -257,7 +301,11 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
    {
       try
       {
-         Class<Enum> callingType = (Class<Enum>) loader.loadClass(instance.getClass().getName());
+         /*
+          * Constants with a body, such as TimeUnit.SECONDS, are instances of an anonymous subclass of their enum type.
+          */
+         Class<?> enumType = ((Enum) instance).getDeclaringClass();
+         Class<Enum> callingType = (Class<Enum>) loader.loadClass(enumType.getName());
          return Enum.valueOf(callingType, ((Enum) instance).name());
       }
       catch (ClassNotFoundException e)
@@ -340,22 +388,26 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
       return true;
    }
 
-   private List<Object> enhanceParameterValues(final Object[] args, Method delegateMethod)
+   private Object[] enhanceParameterValues(final Object[] args, MethodDispatchTable.Entry dispatch)
    {
-      List<Object> parameterValues = new ArrayList<Object>();
-      for (int i = 0; i < delegateMethod.getParameterTypes().length; i++)
+      Class<?>[] delegateParameterTypes = dispatch.getParameterTypes();
+      Object[] parameterValues = new Object[delegateParameterTypes.length];
+      for (int i = 0; i < delegateParameterTypes.length; i++)
       {
-         final Class<?> delegateParameterType = delegateMethod.getParameterTypes()[i];
          final Object parameterValue = args[i];
 
-         parameterValues.add(enhanceSingleParamterValue(delegateMethod, delegateParameterType, parameterValue));
+         if (dispatch.isPassthroughParameter(i))
+            parameterValues[i] = parameterValue;
+         else
+            parameterValues[i] = enhanceSingleParamterValue(dispatch, delegateParameterTypes[i], parameterValue);
       }
       return parameterValues;
    }
 
-   private Object enhanceSingleParamterValue(final Method delegateMethod, final Class<?> delegateParameterType,
-            final Object parameterValue)
+   private Object enhanceSingleParamterValue(final MethodDispatchTable.Entry dispatch,
+            final Class<?> delegateParameterType, final Object parameterValue)
    {
+      Method delegateMethod = dispatch.getDelegateMethod();
       if (parameterValue != null)
       {
          if (parameterValue instanceof Class<?>)
@@ -390,7 +442,7 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
             Object unwrappedValue = Proxies.unwrapOnce(parameterValue);
             if (delegateParameterType.isAssignableFrom(unwrappedValue.getClass())
                      && !Proxies.isLanguageType(unwrappedValue.getClass())
-                     && !isEquals(delegateMethod))
+                     && !dispatch.isEquals())
             {
                // https://issues.jboss.org/browse/FORGE-939
                return unwrappedValue;
@@ -433,7 +485,7 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
                            array.length);
                   for (int j = 0; j < array.length; j++)
                   {
-                     delegateArray[j] = enhanceSingleParamterValue(delegateMethod,
+                     delegateArray[j] = enhanceSingleParamterValue(dispatch,
                               delegateParameterType.getComponentType(), array[j]);
                   }
                   return delegateArray;
@@ -444,7 +496,7 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
                   if ((!Proxies.isPassthroughType(delegateParameterType)
                            && Proxies.isLanguageType(delegateParameterType))
                            || !delegateParameterType.isAssignableFrom(parameterType)
-                           || isEquals(delegateMethod))
+                           || dispatch.isEquals())
                   {
                      Class<?>[] compatibleClassHierarchy = ProxyTypeInspector.getCompatibleClassHierarchy(
                               valueDelegateLoader, unwrappedValueType);
@@ -500,6 +552,11 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
       return parameterTypes;
    }
 
+   /**
+    * Create a proxy of the given delegate for the given calling {@link ClassLoader}. As for
+    * {@link ClassLoaderAdapterBuilder}, both {@link ClassLoader} instances must be passed to
+    * {@link Proxies#releaseClassLoader(ClassLoader)} once they are no longer in use.
+    */
    public static <T> T enhance(final ClassLoader callingLoader, final ClassLoader delegateLoader,
             final Object delegate,
             final Class<?>... types)
@@ -542,58 +599,13 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
                   else
                      hierarchy = Arrays.copy(types, new Class<?>[types.length]);
 
-                  MethodFilter filter = new MethodFilter()
+                  Class<?> c = ProxyClassCache.get(callingLoader, delegateLoader, hierarchy);
+                  if (c == null)
                   {
-                     @Override
-                     public boolean isHandled(Method method)
-                     {
-                        if (!method.getDeclaringClass().getName().contains("java.lang")
-                                 || !Proxies.isPassthroughType(method.getDeclaringClass())
-                                 || ("toString".equals(method.getName()) && method.getParameterTypes().length == 0)
-                                 || isEquals(method))
-                           return true;
-                        return false;
-                     }
-                  };
-
-                  Object enhancedResult = null;
-
-                  ProxyFactory f = new ProxyFactory()
-                  {
-                     @Override
-                     protected ClassLoader getClassLoader0()
-                     {
-                        ClassLoader result = callingLoader;
-                        if (!ClassLoaders.containsClass(result, ProxyObject.class))
-                           result = super.getClassLoader0();
-                        return result;
-                     };
-                  };
-
-                  f.setUseCache(true);
-
-                  Class<?> first = hierarchy[0];
-                  if (!first.isInterface())
-                  {
-                     f.setSuperclass(Proxies.unwrapProxyTypes(first, callingLoader, delegateLoader));
-                     hierarchy = Arrays.shiftLeft(hierarchy, new Class<?>[hierarchy.length - 1]);
+                     c = createProxyClass(callingLoader, delegateLoader, hierarchy);
+                     ProxyClassCache.put(callingLoader, delegateLoader, hierarchy, c);
                   }
-
-                  int index = Arrays.indexOf(hierarchy, ProxyObject.class);
-                  if (index >= 0)
-                  {
-                     hierarchy = Arrays.removeElementAtIndex(hierarchy, index);
-                  }
-
-                  if (!Proxies.isProxyType(first) && !Arrays.contains(hierarchy, ForgeProxy.class))
-                     hierarchy = Arrays.append(hierarchy, ForgeProxy.class);
-
-                  if (hierarchy.length > 0)
-                     f.setInterfaces(hierarchy);
-
-                  f.setFilter(filter);
-                  Class<?> c = f.createClass();
-                  enhancedResult = c.newInstance();
+                  Object enhancedResult = c.newInstance();
 
                   try
                   {
@@ -638,6 +650,46 @@ public class ClassLoaderAdapterCallback implements MethodHandler, ForgeProxy
       }
    }
 
+   private static Class<?> createProxyClass(final ClassLoader callingLoader, final ClassLoader delegateLoader,
+            Class<?>[] hierarchy)
+   {
+      ProxyFactory f = new ProxyFactory()
+      {
+         @Override
+         protected ClassLoader getClassLoader0()
+         {
+            ClassLoader result = callingLoader;
+            if (!ClassLoaders.containsClass(result, ProxyObject.class))
+               result = super.getClassLoader0();
+            return result;
+         };
+      };
+
+      f.setUseCache(true);
+
+      Class<?> first = hierarchy[0];
+      if (!first.isInterface())
+      {
+         f.setSuperclass(Proxies.unwrapProxyTypes(first, callingLoader, delegateLoader));
+         hierarchy = Arrays.shiftLeft(hierarchy, new Class<?>[hierarchy.length - 1]);
+      }
+
+      int index = Arrays.indexOf(hierarchy, ProxyObject.class);
+      if (index >= 0)
+      {
+         hierarchy = Arrays.removeElementAtIndex(hierarchy, index);
+      }
+
+      if (!Proxies.isProxyType(first) && !Arrays.contains(hierarchy, ForgeProxy.class))
+         hierarchy = Arrays.append(hierarchy, ForgeProxy.class);
+
+      if (hierarchy.length > 0)
+         f.setInterfaces(hierarchy);
+
+      f.setFilter(FILTER);
+      return f.createClass();
+   }
+
    @Override
    public Object getDelegate() throws Exception
    {
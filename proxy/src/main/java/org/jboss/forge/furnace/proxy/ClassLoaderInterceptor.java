@@ -8,8 +8,9 @@ package org.jboss.forge.furnace.proxy;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 
+import org.jboss.forge.furnace.util.ClassLoaderTask;
 import org.jboss.forge.furnace.util.ClassLoaders;
 
 /**
@@ -19,49 +20,63 @@ public class ClassLoaderInterceptor implements ForgeProxy
 {
    private ClassLoader loader;
    private Object delegate;
+   private ConcurrentMap<Method, MethodDispatchTable.Entry> dispatchTable;
+
+   private final ClassLoaderTask<Object, Method, Object[]> invocation = new ClassLoaderTask<Object, Method, Object[]>()
+   {
+      @Override
+      public Object call(Method thisMethod, Object[] args) throws Exception
+      {
+         return invokeDelegate(thisMethod, args);
+      }
+   };
 
    public ClassLoaderInterceptor(ClassLoader loader, Object delegate)
    {
       this.loader = loader;
       this.delegate = delegate;
+      this.dispatchTable = MethodDispatchTable.forType(delegate.getClass());
    }
 
    @Override
    public Object invoke(final Object self, final Method thisMethod, final Method proceed, final Object[] args)
             throws Throwable
    {
-      Callable<Object> task = new Callable<Object>()
+      return ClassLoaders.executeIn(loader, invocation, thisMethod, args);
+   }
+
+   private Object invokeDelegate(final Method thisMethod, final Object[] args) throws Exception
+   {
+      try
       {
-         @Override
-         public Object call() throws Exception
+         if (thisMethod.getDeclaringClass().getName().equals(ForgeProxy.class.getName()))
          {
-            try
-            {
-               if (thisMethod.getDeclaringClass().getName().equals(ForgeProxy.class.getName()))
-               {
-                  return delegate;
-               }
-            }
-            catch (Exception e)
-            {
-            }
-
-            Object result;
-            try
-            {
-               result = thisMethod.invoke(delegate, args);
-            }
-            catch (InvocationTargetException e)
-            {
-               if (e.getCause() instanceof Exception)
-                  throw (Exception) e.getCause();
-               throw e;
-            }
-            return result;
+            return delegate;
          }
-      };
+      }
+      catch (Exception e)
+      {
+      }
+
+      MethodDispatchTable.Entry dispatch = dispatchTable.get(thisMethod);
+      if (dispatch == null)
+      {
+         dispatch = new MethodDispatchTable.Entry(thisMethod, thisMethod);
+         dispatchTable.putIfAbsent(thisMethod, dispatch);
+      }
 
-      return ClassLoaders.executeIn(loader, task);
+      try
+      {
+         return dispatch.getInvoker().invoke(delegate, args);
+      }
+      catch (Exception e)
+      {
+         throw e;
+      }
+      catch (Throwable e)
+      {
+         throw new InvocationTargetException(e);
+      }
    }
 
    @Override
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Describes whether instances of a given {@link Class} are {@link ForgeProxy} instances, and how to obtain their
+ * delegate. Instances are computed once per {@link Class}, and looked up without locking.
+ * <p>
+ * Cached instances hold their {@link Class}, and are only removed by {@link #release(ClassLoader)}, which
+ * {@link Proxies#releaseClassLoader(ClassLoader)} calls once a {@link ClassLoader} is no longer in use.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class ForgeProxyAccessor
+{
+   private static final ForgeProxyAccessor NOT_A_PROXY = new ForgeProxyAccessor(false, false, null);
+
+   private static final ConcurrentMap<Class<?>, ForgeProxyAccessor> accessors =
+            new ConcurrentHashMap<Class<?>, ForgeProxyAccessor>();
+
+   private final boolean forgeProxy;
+   private final boolean direct;
+   private final Method getDelegate;
+
+   private ForgeProxyAccessor(boolean forgeProxy, boolean direct, Method getDelegate)
+   {
+      this.forgeProxy = forgeProxy;
+      this.direct = direct;
+      this.getDelegate = getDelegate;
+   }
+
+   /**
+    * Get the {@link ForgeProxyAccessor} for the given {@link Class}.
+    */
+   static ForgeProxyAccessor forType(Class<?> type)
+   {
+      ForgeProxyAccessor result = accessors.get(type);
+      if (result == null)
+      {
+         result = inspect(type);
+         ForgeProxyAccessor existing = accessors.putIfAbsent(type, result);
+         if (existing != null)
+            result = existing;
+      }
+      return result;
+   }
+
+   /**
+    * Remove all {@link ForgeProxyAccessor} instances for types from the given {@link ClassLoader}.
+    */
+   static void release(ClassLoader loader)
+   {
+      Iterator<Class<?>> iterator = accessors.keySet().iterator();
+      while (iterator.hasNext())
+      {
+         if (iterator.next().getClassLoader() == loader)
+            iterator.remove();
+      }
+   }
+
+   private static ForgeProxyAccessor inspect(Class<?> type)
+   {
+      for (Class<?> iface : type.getInterfaces())
+      {
+         if (iface.getName().equals(ForgeProxy.class.getName()))
+         {
+            if (ForgeProxy.class.equals(iface))
+               return new ForgeProxyAccessor(true, true, null);
+
+            try
+            {
+               Method method = type.getMethod("getDelegate");
+               method.setAccessible(true);
+               return new ForgeProxyAccessor(true, false, method);
+            }
+            catch (Exception e)
+            {
+               return new ForgeProxyAccessor(true, false, null);
+            }
+         }
+      }
+      return NOT_A_PROXY;
+   }
+
+   /**
+    * Return <code>true</code> if instances of this type are {@link ForgeProxy} instances.
+    */
+   boolean isForgeProxy()
+   {
+      return forgeProxy;
+   }
+
+   /**
+    * Get the delegate of the given {@link ForgeProxy} instance.
+    */
+   Object getDelegate(Object proxy) throws Exception
+   {
+      if (direct)
+         return ((ForgeProxy) proxy).getDelegate();
+      else if (getDelegate != null)
+         return getDelegate.invoke(proxy);
+      else
+         throw new NoSuchMethodException("getDelegate");
+   }
+}
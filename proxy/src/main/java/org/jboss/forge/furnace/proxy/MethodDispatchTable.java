@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the resolved delegate {@link Method} for each proxied {@link Method}, per delegate {@link Class}, so that
+ * repeated invocations through a {@link ClassLoaderAdapterCallback} do not need to repeat class loading or reflective
+ * method lookup.
+ * <p>
+ * Tables are weakly keyed by delegate {@link Class}, and are themselves only weakly held, since their entries reference
+ * the delegate {@link Class}. Each {@link ClassLoaderAdapterCallback} holds the table of its delegate strongly, so a
+ * table lives as long as any proxy using it.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class MethodDispatchTable
+{
+   private static final Map<Class<?>, WeakReference<ConcurrentMap<Method, Entry>>> tables =
+            new WeakHashMap<Class<?>, WeakReference<ConcurrentMap<Method, Entry>>>();
+
+   private MethodDispatchTable()
+   {
+   }
+
+   /**
+    * Get the dispatch table for the given delegate {@link Class}, keyed by proxied {@link Method}.
+    */
+   static ConcurrentMap<Method, Entry> forType(Class<?> delegateType)
+   {
+      synchronized (tables)
+      {
+         WeakReference<ConcurrentMap<Method, Entry>> reference = tables.get(delegateType);
+         ConcurrentMap<Method, Entry> result = reference == null ? null : reference.get();
+         if (result == null)
+         {
+            result = new ConcurrentHashMap<Method, Entry>();
+            tables.put(delegateType, new WeakReference<ConcurrentMap<Method, Entry>>(result));
+         }
+         return result;
+      }
+   }
+
+   /**
+    * Remove all dispatch entries that reference types from the given {@link ClassLoader}.
+    */
+   static void release(ClassLoader loader)
+   {
+      synchronized (tables)
+      {
+         Iterator<Map.Entry<Class<?>, WeakReference<ConcurrentMap<Method, Entry>>>> iterator = tables.entrySet()
+                  .iterator();
+         while (iterator.hasNext())
+         {
+            Map.Entry<Class<?>, WeakReference<ConcurrentMap<Method, Entry>>> table = iterator.next();
+            ConcurrentMap<Method, Entry> entries = table.getValue().get();
+            if (entries == null || table.getKey().getClassLoader() == loader)
+            {
+               iterator.remove();
+            }
+            else
+            {
+               Iterator<Method> methods = entries.keySet().iterator();
+               while (methods.hasNext())
+               {
+                  if (methods.next().getDeclaringClass().getClassLoader() == loader)
+                     methods.remove();
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * The resolved dispatch for a single proxied {@link Method}.
+    */
+   static final class Entry
+   {
+      private final Method delegateMethod;
+      private final MethodInvoker invoker;
+      private final Class<?>[] parameterTypes;
+      private final boolean[] primitiveParameters;
+      private final boolean passthroughResult;
+      private final boolean equalsMethod;
+
+      Entry(Method proxyMethod, Method delegateMethod)
+      {
+         AccessibleObject.setAccessible(new AccessibleObject[] { delegateMethod }, true);
+         this.delegateMethod = delegateMethod;
+         this.invoker = MethodInvokers.create(delegateMethod);
+         this.parameterTypes = delegateMethod.getParameterTypes();
+         this.primitiveParameters = new boolean[parameterTypes.length];
+         for (int i = 0; i < parameterTypes.length; i++)
+         {
+            primitiveParameters[i] = parameterTypes[i].isPrimitive();
+         }
+
+         Class<?> returnType = proxyMethod.getReturnType();
+         this.passthroughResult = void.class.equals(returnType)
+                  || (!Object.class.equals(returnType) && Proxies.isPassthroughType(returnType));
+         this.equalsMethod = boolean.class.equals(delegateMethod.getReturnType())
+                  && "equals".equals(delegateMethod.getName())
+                  && parameterTypes.length == 1
+                  && Object.class.equals(parameterTypes[0]);
+      }
+
+      /**
+       * The delegate {@link Method}, already made accessible.
+       */
+      Method getDelegateMethod()
+      {
+         return delegateMethod;
+      }
+
+      /**
+       * The {@link MethodInvoker} used to call the delegate {@link Method}.
+       */
+      MethodInvoker getInvoker()
+      {
+         return invoker;
+      }
+
+      /**
+       * The parameter types of the delegate {@link Method}.
+       */
+      Class<?>[] getParameterTypes()
+      {
+         return parameterTypes;
+      }
+
+      /**
+       * Return <code>true</code> if the value of the parameter at the given index may be passed to the delegate
+       * unchanged.
+       */
+      boolean isPassthroughParameter(int index)
+      {
+         return primitiveParameters[index];
+      }
+
+      /**
+       * Return <code>true</code> if the result of the delegate {@link Method} never requires enhancement.
+       */
+      boolean isPassthroughResult()
+      {
+         return passthroughResult;
+      }
+
+      /**
+       * Return <code>true</code> if the delegate {@link Method} is {@link Object#equals(Object)}.
+       */
+      boolean isEquals()
+      {
+         return equalsMethod;
+      }
+   }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.reflect.Method;
+
+/**
+ * Invokes a single resolved {@link Method} on a given target. Any exception thrown by the target {@link Method} is
+ * propagated unchanged, without being wrapped in an {@link java.lang.reflect.InvocationTargetException}.
+ * <p>
+ * This type is public only so that generated invokers defined in addon {@link ClassLoader} instances may implement
+ * it.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public interface MethodInvoker
+{
+   /**
+    * Invoke the underlying {@link Method} on the given target with the given arguments.
+    */
+   Object invoke(Object target, Object[] args) throws Throwable;
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+/**
+ * Creates {@link MethodInvoker} instances for resolved delegate {@link Method} instances.
+ * <p>
+ * By default, {@link Method#invoke(Object, Object...)} is used. If the <code>furnace.proxy.bytecode_invokers</code>
+ * system property is set to <code>true</code>, a small invoker class calling the target {@link Method} directly is
+ * generated for each {@link Method} whose declaring type and signature are publicly accessible. The reflective
+ * {@link MethodInvoker} is used for all other {@link Method} instances, or if generation fails.
+ * <p>
+ * Generated invokers are defined in a child of the declaring {@link ClassLoader}, which is shared per declaring
+ * {@link ClassLoader} but only weakly held, since it references its parent. It lives as long as any invoker it
+ * defined.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class MethodInvokers
+{
+   private static final Logger log = Logger.getLogger(MethodInvokers.class.getName());
+
+   static final String BYTECODE_INVOKERS_PROPERTY = "furnace.proxy.bytecode_invokers";
+
+   private static final boolean BYTECODE_INVOKERS = Boolean.getBoolean(BYTECODE_INVOKERS_PROPERTY);
+
+   private static final String INVOKER_CLASS_SUFFIX = "$$_furnace_invoker_";
+
+   private static final AtomicLong counter = new AtomicLong();
+
+   private static final Map<ClassLoader, WeakReference<InvokerClassLoader>> loaders =
+            new WeakHashMap<ClassLoader, WeakReference<InvokerClassLoader>>();
+
+   private MethodInvokers()
+   {
+   }
+
+   /**
+    * Create a {@link MethodInvoker} for the given {@link Method}.
+    */
+   static MethodInvoker create(Method method)
+   {
+      if (BYTECODE_INVOKERS && isGeneratable(method))
+      {
+         try
+         {
+            return generate(method);
+         }
+         catch (Exception e)
+         {
+            log.log(Level.FINE, "Could not generate invoker for method [" + method + "], using reflection.", e);
+         }
+         catch (LinkageError e)
+         {
+            log.log(Level.FINE, "Could not generate invoker for method [" + method + "], using reflection.", e);
+         }
+      }
+      return new ReflectionMethodInvoker(method);
+   }
+
+   /**
+    * Release any generated invokers for types from the given {@link ClassLoader}.
+    */
+   static void release(ClassLoader loader)
+   {
+      synchronized (loaders)
+      {
+         Iterator<Map.Entry<ClassLoader, WeakReference<InvokerClassLoader>>> iterator = loaders.entrySet().iterator();
+         while (iterator.hasNext())
+         {
+            Map.Entry<ClassLoader, WeakReference<InvokerClassLoader>> entry = iterator.next();
+            if (entry.getKey() == loader || entry.getValue().get() == null)
+               iterator.remove();
+         }
+      }
+   }
+
+   private static boolean isGeneratable(Method method)
+   {
+      if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers()))
+         return false;
+
+      if (!isAccessible(method.getDeclaringClass()) || !isAccessible(method.getReturnType()))
+         return false;
+
+      for (Class<?> type : method.getParameterTypes())
+      {
+         if (!isAccessible(type))
+            return false;
+      }
+      return true;
+   }
+
+   private static boolean isAccessible(Class<?> type)
+   {
+      Class<?> result = type;
+      while (result.isArray())
+      {
+         result = result.getComponentType();
+      }
+
+      while (result != null)
+      {
+         if (!result.isPrimitive() && !Modifier.isPublic(result.getModifiers()))
+            return false;
+         result = result.getDeclaringClass();
+      }
+      return true;
+   }
+
+   static MethodInvoker generate(Method method) throws Exception
+   {
+      Class<?> declaringType = method.getDeclaringClass();
+      ClassLoader declaringLoader = declaringType.getClassLoader();
+      String className = MethodInvoker.class.getName() + INVOKER_CLASS_SUFFIX + counter.incrementAndGet();
+
+      ClassPool pool = new ClassPool(true);
+      pool.appendClassPath(new ClassClassPath(MethodInvoker.class));
+      if (declaringLoader != null)
+         pool.appendClassPath(new LoaderClassPath(declaringLoader));
+
+      CtClass invokerType = pool.makeClass(className);
+      try
+      {
+         invokerType.addInterface(pool.get(MethodInvoker.class.getName()));
+         invokerType.addConstructor(CtNewConstructor.defaultConstructor(invokerType));
+         invokerType.addMethod(CtNewMethod.make(getInvokerSource(method), invokerType));
+
+         byte[] bytecode = invokerType.toBytecode();
+         Class<?> result = getInvokerClassLoader(declaringLoader).define(className, bytecode);
+         return (MethodInvoker) result.newInstance();
+      }
+      finally
+      {
+         invokerType.detach();
+      }
+   }
+
+   private static String getInvokerSource(Method method)
+   {
+      StringBuilder invocation = new StringBuilder();
+      invocation.append("((").append(getSourceName(method.getDeclaringClass())).append(") target).")
+               .append(method.getName()).append("(");
+
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      for (int i = 0; i < parameterTypes.length; i++)
+      {
+         if (i > 0)
+            invocation.append(", ");
+
+         Class<?> type = parameterTypes[i];
+         if (type.isPrimitive())
+         {
+            invocation.append("((").append(getSourceName(getWrapperType(type))).append(") args[").append(i)
+                     .append("]).").append(type.getName()).append("Value()");
+         }
+         else
+         {
+            invocation.append("(").append(getSourceName(type)).append(") args[").append(i).append("]");
+         }
+      }
+      invocation.append(")");
+
+      StringBuilder result = new StringBuilder();
+      result.append("public Object invoke(Object target, Object[] args) throws Throwable { ");
+      Class<?> returnType = method.getReturnType();
+      if (void.class.equals(returnType))
+         result.append(invocation).append("; return null; }");
+      else if (returnType.isPrimitive())
+         result.append("return ").append(getSourceName(getWrapperType(returnType))).append(".valueOf(")
+                  .append(invocation).append("); }");
+      else
+         result.append("return ").append(invocation).append("; }");
+      return result.toString();
+   }
+
+   private static String getSourceName(Class<?> type)
+   {
+      if (type.isArray())
+         return getSourceName(type.getComponentType()) + "[]";
+      return type.getName();
+   }
+
+   private static Class<?> getWrapperType(Class<?> type)
+   {
+      if (boolean.class.equals(type))
+         return Boolean.class;
+      else if (byte.class.equals(type))
+         return Byte.class;
+      else if (char.class.equals(type))
+         return Character.class;
+      else if (short.class.equals(type))
+         return Short.class;
+      else if (int.class.equals(type))
+         return Integer.class;
+      else if (long.class.equals(type))
+         return Long.class;
+      else if (float.class.equals(type))
+         return Float.class;
+      else
+         return Double.class;
+   }
+
+   private static InvokerClassLoader getInvokerClassLoader(ClassLoader parent)
+   {
+      synchronized (loaders)
+      {
+         WeakReference<InvokerClassLoader> reference = loaders.get(parent);
+         InvokerClassLoader result = reference == null ? null : reference.get();
+         if (result == null)
+         {
+            result = new InvokerClassLoader(parent);
+            loaders.put(parent, new WeakReference<InvokerClassLoader>(result));
+         }
+         return result;
+      }
+   }
+
+   /**
+    * Defines generated invokers. Types are resolved from the parent {@link ClassLoader}, except for
+    * {@link MethodInvoker}, which is always resolved from this module.
+    */
+   private static class InvokerClassLoader extends ClassLoader
+   {
+      public InvokerClassLoader(ClassLoader parent)
+      {
+         super(parent);
+      }
+
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+      {
+         if (MethodInvoker.class.getName().equals(name))
+            return MethodInvoker.class;
+         return super.loadClass(name, resolve);
+      }
+
+      public synchronized Class<?> define(String name, byte[] bytecode)
+      {
+         return defineClass(name, bytecode, 0, bytecode.length);
+      }
+   }
+
+   /**
+    * Invokes the underlying {@link Method} via reflection, unwrapping any {@link InvocationTargetException}.
+    */
+   private static class ReflectionMethodInvoker implements MethodInvoker
+   {
+      private final Method method;
+
+      public ReflectionMethodInvoker(Method method)
+      {
+         this.method = method;
+      }
+
+      @Override
+      public Object invoke(Object target, Object[] args) throws Throwable
+      {
+         try
+         {
+            return method.invoke(target, args);
+         }
+         catch (InvocationTargetException e)
+         {
+            throw e.getCause();
+         }
+      }
+   }
+}
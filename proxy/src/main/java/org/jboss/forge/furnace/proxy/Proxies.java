@@ -19,6 +19,9 @@ import javassist.util.proxy.ProxyObject;
  */
 public class Proxies
 {
+   private static final String CGLIB_CLASS_SEPARATOR = "$$EnhancerByCGLIB$$";
+   private static final String JAVASSIST_CLASS_SEPARATOR = "_$$_javassist_";
+
    /**
     * Create a proxy for the given {@link Class} type.
     */
@@ -214,13 +217,15 @@ public class Proxies
 
       if (object != null)
       {
-         while (isForgeProxy(result))
+         while (result != null)
          {
+            ForgeProxyAccessor accessor = ForgeProxyAccessor.forType(result.getClass());
+            if (!accessor.isForgeProxy())
+               break;
+
             try
             {
-               Method method = result.getClass().getMethod("getDelegate");
-               method.setAccessible(true);
-               result = (T) method.invoke(result);
+               result = (T) accessor.getDelegate(result);
             }
             catch (Exception e)
             {
@@ -241,13 +246,12 @@ public class Proxies
 
       if (object != null)
       {
-         if (isForgeProxy(result))
+         ForgeProxyAccessor accessor = ForgeProxyAccessor.forType(object.getClass());
+         if (accessor.isForgeProxy())
          {
             try
             {
-               Method method = result.getClass().getMethod("getDelegate");
-               method.setAccessible(true);
-               result = (T) method.invoke(result);
+               result = (T) accessor.getDelegate(object);
             }
             catch (Exception e)
             {
@@ -267,17 +271,7 @@ public class Proxies
    {
       if (object != null)
       {
-         Class<?>[] interfaces = object.getClass().getInterfaces();
-         if (interfaces != null)
-         {
-            for (Class<?> iface : interfaces)
-            {
-               if (iface.getName().equals(ForgeProxy.class.getName()))
-               {
-                  return true;
-               }
-            }
-         }
+         return ForgeProxyAccessor.forType(object.getClass()).isForgeProxy();
       }
       return false;
    }
@@ -321,19 +315,13 @@ public class Proxies
     */
    public static String unwrapProxyClassName(Class<?> type)
    {
-      String typeName;
-      if (type.getName().contains("$$EnhancerByCGLIB$$"))
-      {
-         typeName = type.getName().replaceAll("^(.*)\\$\\$EnhancerByCGLIB\\$\\$.*", "$1");
-      }
-      else if (type.getName().contains("_javassist_"))
-      {
-         typeName = type.getName().replaceAll("^(.*)_\\$\\$_javassist_.*", "$1");
-      }
-      else
-      {
-         typeName = type.getName();
-      }
+      String typeName = type.getName();
+      int index = typeName.lastIndexOf(CGLIB_CLASS_SEPARATOR);
+      if (index < 0)
+         index = typeName.lastIndexOf(JAVASSIST_CLASS_SEPARATOR);
+
+      if (index >= 0)
+         typeName = typeName.substring(0, index);
       return typeName;
    }
 
@@ -420,13 +408,14 @@ public class Proxies
     */
    public static boolean isPassthroughType(Class<?> type)
    {
+      String name = type.getName();
       boolean result = type.isArray()
-               || type.getName().matches("^(java\\.lang).*")
-               || type.getName().matches("^(java\\.io).*")
-               || type.getName().matches("^(java\\.net).*")
+               || name.startsWith("java.lang")
+               || name.startsWith("java.io")
+               || name.startsWith("java.net")
                || type.isPrimitive();
 
-      result = result && !(Iterable.class.getName().equals(type.getName()));
+      result = result && !(Iterable.class.getName().equals(name));
 
       return result;
    }
@@ -434,12 +423,42 @@ public class Proxies
    public static boolean isLanguageType(Class<?> type)
    {
       boolean result = type.isArray()
-               || type.getName().matches("^(java\\.).*")
+               || type.getName().startsWith("java.")
                || type.isPrimitive();
 
       return result;
    }
 
+   /**
+    * Release any cached proxy metadata referencing types from the given {@link ClassLoader}. This must be called once
+    * a {@link ClassLoader} used as calling or delegate {@link ClassLoader} of a {@link ClassLoaderAdapterBuilder} is
+    * no longer in use, or it may never be garbage collected.
+    */
+   public static void releaseClassLoader(ClassLoader loader)
+   {
+      MethodDispatchTable.release(loader);
+      MethodInvokers.release(loader);
+      ProxyClassCache.release(loader);
+      ProxyTypeInspector.release(loader);
+      ForgeProxyAccessor.release(loader);
+   }
+
+   /**
+    * Get the number of proxy type hierarchy lookups that have been answered from the cache since startup.
+    */
+   public static long getTypeHierarchyCacheHits()
+   {
+      return ProxyTypeInspector.getCacheHits();
+   }
+
+   /**
+    * Get the number of proxy type hierarchy lookups that have required inspection of a {@link Class} since startup.
+    */
+   public static long getTypeHierarchyCacheMisses()
+   {
+      return ProxyTypeInspector.getCacheMisses();
+   }
+
    public static boolean isCollectionType(Object instance)
    {
       boolean result = instance instanceof Collection
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Holds proxy {@link Class} instances created by {@link ClassLoaderAdapterCallback}, keyed by calling
+ * {@link ClassLoader}, delegate {@link ClassLoader}, and requested type hierarchy.
+ * <p>
+ * Nothing in this cache is strongly held: {@link ClassLoader} keys are weak, and so are the requested types and the
+ * proxy {@link Class} itself, which is kept alive by its defining {@link ClassLoader} for as long as it is usable.
+ * {@link #release(ClassLoader)} removes entries for a {@link ClassLoader} eagerly.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+final class ProxyClassCache
+{
+   private static final Map<ClassLoader, Map<ClassLoader, Map<HierarchyKey, WeakReference<Class<?>>>>> cache =
+            new WeakHashMap<ClassLoader, Map<ClassLoader, Map<HierarchyKey, WeakReference<Class<?>>>>>();
+
+   private ProxyClassCache()
+   {
+   }
+
+   /**
+    * Get the cached proxy {@link Class} for the given {@link ClassLoader} pair and type hierarchy, or
+    * <code>null</code> if no such proxy {@link Class} has been cached.
+    */
+   static Class<?> get(ClassLoader callingLoader, ClassLoader delegateLoader, Class<?>[] hierarchy)
+   {
+      synchronized (cache)
+      {
+         Map<ClassLoader, Map<HierarchyKey, WeakReference<Class<?>>>> byDelegateLoader = cache.get(callingLoader);
+         if (byDelegateLoader != null)
+         {
+            Map<HierarchyKey, WeakReference<Class<?>>> byHierarchy = byDelegateLoader.get(delegateLoader);
+            if (byHierarchy != null)
+            {
+               WeakReference<Class<?>> result = byHierarchy.get(new HierarchyKey(hierarchy, false));
+               if (result != null)
+                  return result.get();
+            }
+         }
+         return null;
+      }
+   }
+
+   /**
+    * Cache the given proxy {@link Class} for the given {@link ClassLoader} pair and type hierarchy.
+    */
+   static void put(ClassLoader callingLoader, ClassLoader delegateLoader, Class<?>[] hierarchy, Class<?> proxyType)
+   {
+      synchronized (cache)
+      {
+         Map<ClassLoader, Map<HierarchyKey, WeakReference<Class<?>>>> byDelegateLoader = cache.get(callingLoader);
+         if (byDelegateLoader == null)
+         {
+            byDelegateLoader = new WeakHashMap<ClassLoader, Map<HierarchyKey, WeakReference<Class<?>>>>();
+            cache.put(callingLoader, byDelegateLoader);
+         }
+
+         Map<HierarchyKey, WeakReference<Class<?>>> byHierarchy = byDelegateLoader.get(delegateLoader);
+         if (byHierarchy == null)
+         {
+            byHierarchy = new HashMap<HierarchyKey, WeakReference<Class<?>>>();
+            byDelegateLoader.put(delegateLoader, byHierarchy);
+         }
+         else
+         {
+            expunge(byHierarchy);
+         }
+         byHierarchy.put(new HierarchyKey(hierarchy, true), new WeakReference<Class<?>>(proxyType));
+      }
+   }
+
+   /**
+    * Remove all cached proxy {@link Class} instances created for, or referencing types from, the given
+    * {@link ClassLoader}.
+    */
+   static void release(ClassLoader loader)
+   {
+      synchronized (cache)
+      {
+         cache.remove(loader);
+         for (Map<ClassLoader, Map<HierarchyKey, WeakReference<Class<?>>>> byDelegateLoader : cache.values())
+         {
+            byDelegateLoader.remove(loader);
+            for (Map<HierarchyKey, WeakReference<Class<?>>> byHierarchy : byDelegateLoader.values())
+            {
+               Iterator<Map.Entry<HierarchyKey, WeakReference<Class<?>>>> iterator = byHierarchy.entrySet()
+                        .iterator();
+               while (iterator.hasNext())
+               {
+                  Map.Entry<HierarchyKey, WeakReference<Class<?>>> entry = iterator.next();
+                  Class<?> proxyType = entry.getValue().get();
+                  if (proxyType == null || proxyType.getClassLoader() == loader || entry.getKey().references(loader))
+                     iterator.remove();
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Remove entries whose proxy {@link Class} or requested types have been collected.
+    */
+   private static void expunge(Map<HierarchyKey, WeakReference<Class<?>>> byHierarchy)
+   {
+      Iterator<Map.Entry<HierarchyKey, WeakReference<Class<?>>>> iterator = byHierarchy.entrySet().iterator();
+      while (iterator.hasNext())
+      {
+         Map.Entry<HierarchyKey, WeakReference<Class<?>>> entry = iterator.next();
+         if (entry.getValue().get() == null || entry.getKey().isCleared())
+            iterator.remove();
+      }
+   }
+
+   /**
+    * A requested type hierarchy, compared by identity of its types. Keys stored in the cache hold their types weakly;
+    * keys used for lookup hold them directly, to avoid allocating a {@link WeakReference} per type.
+    */
+   private static final class HierarchyKey
+   {
+      private final Object[] types;
+      private final boolean weak;
+      private final int hashCode;
+
+      HierarchyKey(Class<?>[] hierarchy, boolean weak)
+      {
+         this.weak = weak;
+         this.types = new Object[hierarchy.length];
+         int hash = 1;
+         for (int i = 0; i < hierarchy.length; i++)
+         {
+            types[i] = weak ? new WeakReference<Class<?>>(hierarchy[i]) : hierarchy[i];
+            hash = 31 * hash + System.identityHashCode(hierarchy[i]);
+         }
+         this.hashCode = hash;
+      }
+
+      private Class<?> get(int index)
+      {
+         if (weak)
+            return (Class<?>) ((WeakReference<?>) types[index]).get();
+         return (Class<?>) types[index];
+      }
+
+      boolean isCleared()
+      {
+         for (int i = 0; i < types.length; i++)
+         {
+            if (get(i) == null)
+               return true;
+         }
+         return false;
+      }
+
+      boolean references(ClassLoader loader)
+      {
+         for (int i = 0; i < types.length; i++)
+         {
+            Class<?> type = get(i);
+            if (type != null && type.getClassLoader() == loader)
+               return true;
+         }
+         return false;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hashCode;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof HierarchyKey))
+            return false;
+
+         HierarchyKey other = (HierarchyKey) obj;
+         if (hashCode != other.hashCode || types.length != other.types.length)
+            return false;
+         for (int i = 0; i < types.length; i++)
+         {
+            Class<?> type = get(i);
+            if (type == null || type != other.get(i))
+               return false;
+         }
+         return true;
+      }
+   }
+}
@@ -7,17 +7,110 @@
 package org.jboss.forge.furnace.proxy;
 
 import java.lang.reflect.Modifier;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.forge.furnace.util.ClassLoaders;
 
 /**
+ * Inspects, and caches per {@link ClassLoader}, the types of a {@link Class} hierarchy that may be proxied in a given
+ * {@link ClassLoader}.
+ * <p>
+ * Lookups do not lock. Cached hierarchies, and the {@link ClassLoader} instances they were inspected in, are held until
+ * {@link #release(ClassLoader)} is called, via {@link Proxies#releaseClassLoader(ClassLoader)}.
+ * 
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  */
 class ProxyTypeInspector
 {
+   private static final ConcurrentMap<ClassLoader, ConcurrentMap<Class<?>, Class<?>[]>> hierarchies =
+            new ConcurrentHashMap<ClassLoader, ConcurrentMap<Class<?>, Class<?>[]>>();
+
+   private static final AtomicLong hits = new AtomicLong();
+   private static final AtomicLong misses = new AtomicLong();
+
+   /**
+    * Get the compatible type hierarchy of the given origin {@link Class}, as seen by the given {@link ClassLoader}. The
+    * returned array is shared, and must not be modified.
+    */
    public static Class<?>[] getCompatibleClassHierarchy(ClassLoader loader, Class<?> origin)
+   {
+      ConcurrentMap<Class<?>, Class<?>[]> byOrigin = hierarchies.get(loader);
+      if (byOrigin == null)
+      {
+         byOrigin = new ConcurrentHashMap<Class<?>, Class<?>[]>();
+         ConcurrentMap<Class<?>, Class<?>[]> existing = hierarchies.putIfAbsent(loader, byOrigin);
+         if (existing != null)
+            byOrigin = existing;
+      }
+
+      Class<?>[] result = byOrigin.get(origin);
+      if (result == null)
+      {
+         misses.incrementAndGet();
+         result = inspectCompatibleClassHierarchy(loader, origin);
+         Class<?>[] existing = byOrigin.putIfAbsent(origin, result);
+         if (existing != null)
+            result = existing;
+      }
+      else
+      {
+         hits.incrementAndGet();
+      }
+
+      return result;
+   }
+
+   /**
+    * Remove all cached hierarchies inspected in, or referencing types from, the given {@link ClassLoader}.
+    */
+   static void release(ClassLoader loader)
+   {
+      hierarchies.remove(loader);
+      for (Map<Class<?>, Class<?>[]> byOrigin : hierarchies.values())
+      {
+         Iterator<Map.Entry<Class<?>, Class<?>[]>> iterator = byOrigin.entrySet().iterator();
+         while (iterator.hasNext())
+         {
+            Map.Entry<Class<?>, Class<?>[]> entry = iterator.next();
+            if (entry.getKey().getClassLoader() == loader || references(entry.getValue(), loader))
+               iterator.remove();
+         }
+      }
+   }
+
+   /**
+    * The number of {@link #getCompatibleClassHierarchy(ClassLoader, Class)} calls answered from the cache.
+    */
+   static long getCacheHits()
+   {
+      return hits.get();
+   }
+
+   /**
+    * The number of {@link #getCompatibleClassHierarchy(ClassLoader, Class)} calls that required inspection.
+    */
+   static long getCacheMisses()
+   {
+      return misses.get();
+   }
+
+   private static boolean references(Class<?>[] hierarchy, ClassLoader loader)
+   {
+      for (Class<?> type : hierarchy)
+      {
+         if (type.getClassLoader() == loader)
+            return true;
+      }
+      return false;
+   }
+
+   private static Class<?>[] inspectCompatibleClassHierarchy(ClassLoader loader, Class<?> origin)
    {
       Set<Class<?>> hierarchy = new LinkedHashSet<Class<?>>();
 
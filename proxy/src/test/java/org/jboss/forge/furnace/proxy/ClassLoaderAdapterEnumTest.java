@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.forge.furnace.proxy.mock.MockValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ */
+public class ClassLoaderAdapterEnumTest
+{
+   @Test
+   public void testEnumConstantWithBodyIsPassedToDelegate() throws Exception
+   {
+      ClassLoader callingLoader = getClass().getClassLoader();
+      ClassLoader delegateLoader = new IsolatedClassLoader(callingLoader, MockValue.class.getName());
+      Object delegate = delegateLoader.loadClass(MockValue.class.getName()).newInstance();
+
+      MockValue enhanced = (MockValue) ClassLoaderAdapterBuilder.callingLoader(callingLoader)
+               .delegateLoader(delegateLoader).enhance(delegate);
+      Assert.assertEquals(2000, enhanced.toMillis(2, TimeUnit.SECONDS));
+   }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.ref.WeakReference;
+
+import org.jboss.forge.furnace.proxy.mock.MockForgeProxy;
+import org.jboss.forge.furnace.proxy.mock.MockValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ */
+public class ForgeProxyAccessorTest
+{
+   @Test
+   public void testNonProxyType() throws Exception
+   {
+      Assert.assertFalse(ForgeProxyAccessor.forType(MockValue.class).isForgeProxy());
+      Assert.assertFalse(Proxies.isForgeProxy(new MockValue("a")));
+   }
+
+   @Test
+   public void testForgeProxyType() throws Exception
+   {
+      MockValue delegate = new MockValue("a");
+      ForgeProxyAccessor accessor = ForgeProxyAccessor.forType(MockForgeProxy.class);
+      Assert.assertTrue(accessor.isForgeProxy());
+      Assert.assertSame(delegate, accessor.getDelegate(new MockForgeProxy(delegate)));
+   }
+
+   @Test
+   public void testForgeProxyTypeFromOtherClassLoader() throws Exception
+   {
+      ClassLoader loader = new IsolatedClassLoader(getClass().getClassLoader(), ForgeProxy.class.getName(),
+               MockForgeProxy.class.getName());
+      Class<?> type = loader.loadClass(MockForgeProxy.class.getName());
+      Assert.assertNotSame(ForgeProxy.class, type.getInterfaces()[0]);
+
+      MockValue delegate = new MockValue("a");
+      Object proxy = type.getConstructor(Object.class).newInstance(delegate);
+      Assert.assertTrue(Proxies.isForgeProxy(proxy));
+      Assert.assertSame(delegate, Proxies.unwrap(proxy));
+      Assert.assertSame(delegate, Proxies.unwrapOnce(proxy));
+   }
+
+   @Test
+   public void testAccessorIsCached() throws Exception
+   {
+      Assert.assertSame(ForgeProxyAccessor.forType(MockForgeProxy.class),
+               ForgeProxyAccessor.forType(MockForgeProxy.class));
+   }
+
+   @Test
+   public void testReleaseRemovesAccessorsOfClassLoader() throws Exception
+   {
+      ClassLoader loader = getClass().getClassLoader();
+      ForgeProxyAccessor accessor = ForgeProxyAccessor.forType(MockForgeProxy.class);
+      ForgeProxyAccessor.release(loader);
+      Assert.assertNotSame(accessor, ForgeProxyAccessor.forType(MockForgeProxy.class));
+   }
+
+   @Test
+   public void testReleasedClassLoaderIsCollectable() throws Exception
+   {
+      Assert.assertTrue(IsolatedClassLoader.isCollected(inspectAndRelease()));
+   }
+
+   private static WeakReference<ClassLoader> inspectAndRelease() throws Exception
+   {
+      ClassLoader loader = new IsolatedClassLoader(ForgeProxyAccessorTest.class.getClassLoader(),
+               ForgeProxy.class.getName(), MockForgeProxy.class.getName());
+      Class<?> type = loader.loadClass(MockForgeProxy.class.getName());
+      Assert.assertTrue(ForgeProxyAccessor.forType(type).isForgeProxy());
+
+      Proxies.releaseClassLoader(loader);
+      return new WeakReference<ClassLoader>(loader);
+   }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Defines its own copy of the given classes from the resources of its parent, and delegates all other classes to its
+ * parent, like an addon {@link ClassLoader} importing the proxy API from another addon.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+class IsolatedClassLoader extends ClassLoader
+{
+   private final Set<String> isolated;
+
+   IsolatedClassLoader(ClassLoader parent, String... isolated)
+   {
+      super(parent);
+      this.isolated = new HashSet<String>(Arrays.asList(isolated));
+   }
+
+   @Override
+   protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+   {
+      if (!isolated.contains(name))
+         return super.loadClass(name, resolve);
+
+      Class<?> result = findLoadedClass(name);
+      if (result == null)
+      {
+         byte[] bytes = readClass(name);
+         result = defineClass(name, bytes, 0, bytes.length);
+      }
+      if (resolve)
+         resolveClass(result);
+      return result;
+   }
+
+   /**
+    * Run the garbage collector until the given {@link Reference} is cleared. Return <code>false</code> if it is still
+    * set after several attempts.
+    */
+   static boolean isCollected(Reference<?> reference) throws InterruptedException
+   {
+      for (int i = 0; i < 50 && reference.get() != null; i++)
+      {
+         System.gc();
+         Thread.sleep(20);
+      }
+      return reference.get() == null;
+   }
+
+   private byte[] readClass(String name) throws ClassNotFoundException
+   {
+      InputStream stream = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+      if (stream == null)
+         throw new ClassNotFoundException(name);
+      try
+      {
+         try
+         {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) != -1)
+            {
+               result.write(buffer, 0, read);
+            }
+            return result.toByteArray();
+         }
+         finally
+         {
+            stream.close();
+         }
+      }
+      catch (IOException e)
+      {
+         throw new ClassNotFoundException(name, e);
+      }
+   }
+}
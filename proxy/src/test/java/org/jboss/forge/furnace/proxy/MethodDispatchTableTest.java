@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.reflect.Method;
+
+import org.jboss.forge.furnace.proxy.mock.MockValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ */
+public class MethodDispatchTableTest
+{
+   @Test
+   public void testEqualsEntry() throws Exception
+   {
+      Method equals = MockValue.class.getMethod("equals", Object.class);
+      Assert.assertTrue(new MethodDispatchTable.Entry(equals, equals).isEquals());
+   }
+
+   @Test
+   public void testEqualsOverloadIsNotEquals() throws Exception
+   {
+      Method equals = MockValue.class.getMethod("equals", String.class);
+      Assert.assertFalse(new MethodDispatchTable.Entry(equals, equals).isEquals());
+
+      Method hashCode = MockValue.class.getMethod("hashCode");
+      Assert.assertFalse(new MethodDispatchTable.Entry(hashCode, hashCode).isEquals());
+   }
+
+   @Test
+   public void testTableIsSharedPerType() throws Exception
+   {
+      Assert.assertSame(MethodDispatchTable.forType(MockValue.class), MethodDispatchTable.forType(MockValue.class));
+   }
+
+   @Test
+   public void testEqualsParameterIsEnhancedForDelegateLoader() throws Exception
+   {
+      ClassLoader callingLoader = getClass().getClassLoader();
+      ClassLoader delegateLoader = new IsolatedClassLoader(callingLoader, MockValue.class.getName());
+      Object delegate = delegateLoader.loadClass(MockValue.class.getName()).getConstructor(String.class)
+               .newInstance("a");
+
+      MockValue enhanced = (MockValue) ClassLoaderAdapterBuilder.callingLoader(callingLoader)
+               .delegateLoader(delegateLoader).enhance(delegate);
+
+      /*
+       * equals(Object) parameters must be enhanced for the delegate loader, or the delegate never sees its own type.
+       */
+      Assert.assertTrue(enhanced.equals(new MockValue("a")));
+      Assert.assertFalse(enhanced.equals(new MockValue("b")));
+      Assert.assertTrue(enhanced.equals("a"));
+   }
+}
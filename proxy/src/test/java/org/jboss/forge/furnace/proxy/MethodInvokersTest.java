@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.forge.furnace.proxy.mock.MockValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ */
+public class MethodInvokersTest
+{
+   @Test
+   public void testGeneratedInvokerPrimitiveParameterAndResult() throws Throwable
+   {
+      MethodInvoker invoker = MethodInvokers.generate(String.class.getMethod("charAt", int.class));
+      Assert.assertEquals('b', invoker.invoke("abc", new Object[] { 1 }));
+   }
+
+   @Test
+   public void testGeneratedInvokerInterfaceMethod() throws Throwable
+   {
+      MethodInvoker invoker = MethodInvokers.generate(List.class.getMethod("add", Object.class));
+      List<String> list = new ArrayList<String>();
+      Assert.assertEquals(Boolean.TRUE, invoker.invoke(list, new Object[] { "a" }));
+      Assert.assertEquals(1, list.size());
+   }
+
+   @Test
+   public void testGeneratedInvokerVoidMethod() throws Throwable
+   {
+      MethodInvoker invoker = MethodInvokers.generate(List.class.getMethod("clear"));
+      List<String> list = new ArrayList<String>();
+      list.add("a");
+      Assert.assertNull(invoker.invoke(list, new Object[] {}));
+      Assert.assertTrue(list.isEmpty());
+   }
+
+   @Test(expected = StringIndexOutOfBoundsException.class)
+   public void testGeneratedInvokerDoesNotWrapExceptions() throws Throwable
+   {
+      MethodInvoker invoker = MethodInvokers.generate(String.class.getMethod("charAt", int.class));
+      invoker.invoke("abc", new Object[] { 5 });
+   }
+
+   @Test(expected = StringIndexOutOfBoundsException.class)
+   public void testReflectiveInvokerDoesNotWrapExceptions() throws Throwable
+   {
+      MethodInvoker invoker = MethodInvokers.create(String.class.getMethod("charAt", int.class));
+      invoker.invoke("abc", new Object[] { 5 });
+   }
+
+   @Test
+   public void testGeneratedInvokerDoesNotPinDeclaringLoader() throws Throwable
+   {
+      Assert.assertTrue(IsolatedClassLoader.isCollected(invokeInIsolatedLoader()));
+   }
+
+   private static WeakReference<ClassLoader> invokeInIsolatedLoader() throws Throwable
+   {
+      ClassLoader loader = new IsolatedClassLoader(MethodInvokersTest.class.getClassLoader(),
+               MockValue.class.getName());
+      Class<?> type = loader.loadClass(MockValue.class.getName());
+      MethodInvoker invoker = MethodInvokers.generate(type.getMethod("getValue"));
+      Assert.assertEquals("a", invoker.invoke(type.getConstructor(String.class).newInstance("a"), new Object[] {}));
+      return new WeakReference<ClassLoader>(loader);
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy;
+
+import java.lang.ref.WeakReference;
+
+import org.jboss.forge.furnace.proxy.mock.MockValue;
+import org.jboss.forge.furnace.util.ClassLoaders;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ */
+public class ProxyClassCacheTest
+{
+   @Test
+   public void testProxyClassIsReused() throws Exception
+   {
+      ClassLoader loader = getClass().getClassLoader();
+      MockValue first = ClassLoaderAdapterBuilder.callingLoader(loader).delegateLoader(loader)
+               .enhance(new MockValue("a"));
+      MockValue second = ClassLoaderAdapterBuilder.callingLoader(loader).delegateLoader(loader)
+               .enhance(new MockValue("b"));
+      Assert.assertSame(first.getClass(), second.getClass());
+      Assert.assertEquals("b", second.getValue());
+   }
+
+   @Test
+   public void testCacheDoesNotPinClassLoaders() throws Exception
+   {
+      Assert.assertTrue(IsolatedClassLoader.isCollected(cacheIsolatedType()));
+   }
+
+   @Test
+   public void testReleasedClassLoadersAreCollectable() throws Exception
+   {
+      WeakReference<ClassLoader>[] loaders = enhanceAndRelease();
+      Assert.assertTrue(IsolatedClassLoader.isCollected(loaders[0]));
+      Assert.assertTrue(IsolatedClassLoader.isCollected(loaders[1]));
+   }
+
+   private static WeakReference<ClassLoader> cacheIsolatedType() throws Exception
+   {
+      ClassLoader loader = new IsolatedClassLoader(ProxyClassCacheTest.class.getClassLoader(),
+               MockValue.class.getName());
+      Class<?> type = loader.loadClass(MockValue.class.getName());
+      ProxyClassCache.put(loader, loader, new Class<?>[] { type }, type);
+      Assert.assertSame(type, ProxyClassCache.get(loader, loader, new Class<?>[] { type }));
+      return new WeakReference<ClassLoader>(loader);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static WeakReference<ClassLoader>[] enhanceAndRelease() throws Exception
+   {
+      ClassLoader parent = ProxyClassCacheTest.class.getClassLoader();
+      ClassLoader callingLoader = new IsolatedClassLoader(parent, MockValue.class.getName());
+      ClassLoader delegateLoader = new IsolatedClassLoader(parent, MockValue.class.getName());
+
+      Class<?> delegateType = delegateLoader.loadClass(MockValue.class.getName());
+      Object delegate = delegateType.getConstructor(String.class).newInstance("a");
+      Object enhanced = ClassLoaderAdapterBuilder.callingLoader(callingLoader).delegateLoader(delegateLoader)
+               .enhance(delegate);
+
+      Class<?> callingType = callingLoader.loadClass(MockValue.class.getName());
+      Assert.assertTrue(callingType.isInstance(enhanced));
+      Assert.assertTrue(Proxies.isForgeProxy(enhanced));
+      Assert.assertEquals("a", callingType.getMethod("getValue").invoke(enhanced));
+      Assert.assertEquals(Boolean.TRUE, callingType.getMethod("equals", String.class).invoke(enhanced, "a"));
+
+      Proxies.releaseClassLoader(callingLoader);
+      Proxies.releaseClassLoader(delegateLoader);
+      ClassLoaders.releaseClassLoader(callingLoader);
+      ClassLoaders.releaseClassLoader(delegateLoader);
+
+      return new WeakReference[] { new WeakReference<ClassLoader>(callingLoader),
+               new WeakReference<ClassLoader>(delegateLoader) };
+   }
+}
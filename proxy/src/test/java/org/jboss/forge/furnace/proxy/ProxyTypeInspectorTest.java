@@ -6,6 +6,15 @@
  */
 package org.jboss.forge.furnace.proxy;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.jboss.forge.furnace.proxy.mock.MockBaseClassExternal;
 import org.junit.Assert;
 import org.junit.Test;
@@ -38,6 +47,72 @@ public class ProxyTypeInspectorTest
       Assert.assertEquals(MockNestedInterface.class, hierarchy[1]);
    }
 
+   @Test
+   public void testHierarchyIsCached() throws Exception
+   {
+      ClassLoader loader = getClass().getClassLoader();
+      Class<?>[] first = ProxyTypeInspector.getCompatibleClassHierarchy(loader, MockExtendsImplementsExternal.class);
+
+      long hits = Proxies.getTypeHierarchyCacheHits();
+      Class<?>[] second = ProxyTypeInspector.getCompatibleClassHierarchy(loader, MockExtendsImplementsExternal.class);
+
+      Assert.assertTrue(Proxies.getTypeHierarchyCacheHits() > hits);
+      Assert.assertSame(first, second);
+   }
+
+   @Test
+   public void testConcurrentLookupsShareOneHierarchy() throws Exception
+   {
+      final ClassLoader loader = getClass().getClassLoader();
+      ProxyTypeInspector.release(loader);
+
+      int threads = 8;
+      final CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try
+      {
+         List<Future<Class<?>[]>> results = new ArrayList<Future<Class<?>[]>>();
+         for (int i = 0; i < threads; i++)
+         {
+            results.add(executor.submit(new Callable<Class<?>[]>()
+            {
+               @Override
+               public Class<?>[] call() throws Exception
+               {
+                  start.await();
+                  return ProxyTypeInspector.getCompatibleClassHierarchy(loader, MockExtendsImplementsExternal.class);
+               }
+            }));
+         }
+         start.countDown();
+
+         Class<?>[] cached = ProxyTypeInspector.getCompatibleClassHierarchy(loader,
+                  MockExtendsImplementsExternal.class);
+         for (Future<Class<?>[]> result : results)
+         {
+            Assert.assertArrayEquals(cached, result.get(10, TimeUnit.SECONDS));
+         }
+         Assert.assertSame(cached,
+                  ProxyTypeInspector.getCompatibleClassHierarchy(loader, MockExtendsImplementsExternal.class));
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testReleasedHierarchyIsInspectedAgain() throws Exception
+   {
+      ClassLoader loader = getClass().getClassLoader();
+      ProxyTypeInspector.getCompatibleClassHierarchy(loader, MockExtendsImplementsExternal.class);
+      ProxyTypeInspector.release(loader);
+
+      long misses = Proxies.getTypeHierarchyCacheMisses();
+      ProxyTypeInspector.getCompatibleClassHierarchy(loader, MockExtendsImplementsExternal.class);
+      Assert.assertTrue(Proxies.getTypeHierarchyCacheMisses() > misses);
+   }
+
    private class MockExtendsImplementsInternal extends MockBaseClass implements MockInterface
    {
 
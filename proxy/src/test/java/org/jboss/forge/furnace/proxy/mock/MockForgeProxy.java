@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy.mock;
+
+import java.lang.reflect.Method;
+
+import org.jboss.forge.furnace.proxy.ForgeProxy;
+
+public class MockForgeProxy implements ForgeProxy
+{
+   private final Object delegate;
+
+   public MockForgeProxy(Object delegate)
+   {
+      this.delegate = delegate;
+   }
+
+   @Override
+   public Object invoke(Object self, Method thisMethod, Method proceed, Object[] args) throws Throwable
+   {
+      return thisMethod.invoke(delegate, args);
+   }
+
+   @Override
+   public Object getDelegate() throws Exception
+   {
+      return delegate;
+   }
+}
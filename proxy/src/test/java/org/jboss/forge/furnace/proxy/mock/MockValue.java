@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.furnace.proxy.mock;
+
+import java.util.concurrent.TimeUnit;
+
+public class MockValue
+{
+   private String value;
+
+   public MockValue()
+   {
+   }
+
+   public MockValue(String value)
+   {
+      this.value = value;
+   }
+
+   public String getValue()
+   {
+      return value;
+   }
+
+   public long toMillis(long duration, TimeUnit unit)
+   {
+      return unit.toMillis(duration);
+   }
+
+   public boolean equals(String value)
+   {
+      return this.value == null ? value == null : this.value.equals(value);
+   }
+
+   @Override
+   public boolean equals(Object obj)
+   {
+      return obj instanceof MockValue && equals(((MockValue) obj).getValue());
+   }
+
+   @Override
+   public int hashCode()
+   {
+      return value == null ? 0 : value.hashCode();
+   }
+}